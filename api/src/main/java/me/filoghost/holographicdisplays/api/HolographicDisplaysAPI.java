@@ -45,7 +45,7 @@ public interface HolographicDisplaysAPI {
      * @since 1
      */
     static int getVersion() {
-        return 1;
+        return 2;
     }
 
     /**
@@ -7,9 +7,12 @@ package me.filoghost.holographicdisplays.api.hologram;
 
 import me.filoghost.holographicdisplays.api.Position;
 import me.filoghost.holographicdisplays.api.HolographicDisplaysAPI;
+import me.filoghost.holographicdisplays.api.hologram.line.HologramLine;
 import org.bukkit.Location;
 import org.bukkit.World;
+import org.bukkit.entity.Entity;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Group of one or more vertically aligned lines which appear as floating text lines and items. To create one see
@@ -99,6 +102,102 @@ public interface Hologram {
      */
     void setPlaceholderSetting(@NotNull PlaceholderSetting placeholderSetting);
 
+    /**
+     * Returns the view range of the lines of this hologram, the maximum horizontal distance from which players can see
+     * them. If not set, each line uses a default view range depending on its type. The view range of a single line can
+     * be changed with {@link HologramLine#setViewRange(double)}, and is always limited by the one in the configuration.
+     *
+     * @return the view range in blocks, or a negative value if not set
+     * @since 2
+     */
+    double getViewRange();
+
+    /**
+     * Changes the view range of the lines of this hologram (see {@link #getViewRange()}).
+     *
+     * @param viewRange the new view range in blocks, or a negative value to use the default view range of each line
+     * @since 2
+     */
+    void setViewRange(double viewRange);
+
+    /**
+     * Returns the view range margin, the additional distance beyond the view range that a player must reach for the
+     * hologram to disappear. This avoids repeatedly hiding and showing the hologram to a player moving along the edge
+     * of the view range.
+     *
+     * @return the view range margin in blocks, or a negative value if the default margin of the configuration is used
+     * @since 2
+     */
+    double getViewRangeMargin();
+
+    /**
+     * Changes the view range margin (see {@link #getViewRangeMargin()}).
+     *
+     * @param viewRangeMargin the new view range margin in blocks, or a negative value to use the default margin of the
+     *                        configuration
+     * @since 2
+     */
+    void setViewRangeMargin(double viewRangeMargin);
+
+    /**
+     * Returns the priority, used when a player is near more hologram lines than the configured limit: holograms with
+     * higher priority are displayed first, then the nearest ones. A hologram is either displayed with all its lines in
+     * range or not at all. The default priority is 0.
+     *
+     * @return the priority
+     * @since 2
+     */
+    int getPriority();
+
+    /**
+     * Changes the priority (see {@link #getPriority()}).
+     *
+     * @param priority the new priority
+     * @since 2
+     */
+    void setPriority(int priority);
+
+    /**
+     * Returns the maximum number of text updates per second of each line of this hologram, for example because of
+     * placeholders refreshed every tick. When the limit is reached, the intermediate texts are skipped and the latest
+     * one is sent as soon as the limit allows it. The limit in the configuration, if any, always applies.
+     *
+     * @return the maximum text updates per second of each line, or zero if not set
+     * @since 2
+     */
+    int getMaxTextUpdatesPerSecond();
+
+    /**
+     * Changes the maximum number of text updates per second of each line (see {@link #getMaxTextUpdatesPerSecond()}).
+     *
+     * @param maxTextUpdatesPerSecond the new maximum text updates per second of each line, or zero to only use the
+     *                                limit of the configuration
+     * @since 2
+     */
+    void setMaxTextUpdatesPerSecond(int maxTextUpdatesPerSecond);
+
+    /**
+     * Returns the entity this hologram is attached to (see {@link #setAttachedEntity(Entity)}).
+     *
+     * @return the attached entity, or null if this hologram is not attached to an entity
+     * @since 2
+     */
+    @Nullable Entity getAttachedEntity();
+
+    /**
+     * Attaches this hologram to an entity, for example to display a name tag above a mob. The hologram follows the
+     * entity, with the bottom line right above it: when supported by the server version, the lines are mounted as
+     * passengers of the entity and are moved by the client together with it, without sending additional packets. The
+     * position set while attached is replaced by the one above the entity.
+     * <p>
+     * An attached hologram is visible only within the tracking range of the entity, and is hidden while the entity is
+     * not valid, for example because it died or it's in an unloaded chunk.
+     *
+     * @param entity the entity to attach this hologram to, or null to detach it, leaving it in the last position
+     * @since 2
+     */
+    void setAttachedEntity(@Nullable Entity entity);
+
     /**
      * Deletes this hologram, clearing the lines. Editing or teleporting the hologram after deleting it throws an
      * exception. A deleted hologram should no longer be referenced.
@@ -8,6 +8,8 @@ package me.filoghost.holographicdisplays.api.hologram;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Collection;
+
 /**
  * Settings to manage the visibility of a hologram to players. Allows to set both a global visibility and an individual
  * visibility for specific players.
@@ -47,6 +49,18 @@ public interface VisibilitySettings {
      */
     void setIndividualVisibility(@NotNull Player player, @NotNull Visibility visibility);
 
+    /**
+     * Sets the same visibility for multiple players, with precedence over the global visibility
+     * ({@link #getGlobalVisibility()}). This is equivalent to calling
+     * {@link #setIndividualVisibility(Player, Visibility)} for each player, but the changes are applied together, which
+     * is more efficient when changing the visibility for many players at once.
+     *
+     * @param players the players for which to set the individual visibility
+     * @param visibility the new individual visibility to use for the players
+     * @since 2
+     */
+    void setIndividualVisibility(@NotNull Collection<? extends Player> players, @NotNull Visibility visibility);
+
     /**
      * Removes the individual visibility for a player. The visibility for the player will then be determined by the
      * global visibility ({@link #getGlobalVisibility()}).
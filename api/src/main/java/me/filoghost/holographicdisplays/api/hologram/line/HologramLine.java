@@ -14,4 +14,21 @@ package me.filoghost.holographicdisplays.api.hologram.line;
  */
 public interface HologramLine {
 
+    /**
+     * Returns the view range of this line, the maximum horizontal distance from which players can see it. If not set,
+     * the view range of the hologram is used. The view range is always limited by the one in the configuration.
+     *
+     * @return the view range in blocks, or a negative value if not set
+     * @since 2
+     */
+    double getViewRange();
+
+    /**
+     * Changes the view range of this line (see {@link #getViewRange()}).
+     *
+     * @param viewRange the new view range in blocks, or a negative value to use the view range of the hologram
+     * @since 2
+     */
+    void setViewRange(double viewRange);
+
 }
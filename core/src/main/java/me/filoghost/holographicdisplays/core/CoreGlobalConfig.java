@@ -9,5 +9,16 @@ public class CoreGlobalConfig {
 
     public static double spaceBetweenLines;
     public static int maxViewRange;
+    public static int viewRangeMargin;
+    public static int spawnBudgetPerTick;
+    public static int maxLinesPerPlayer;
+    public static int maxTextUpdatesPerSecond;
+    public static int maxTextUpdatesPerPlayerPerSecond;
+    public static int movementUpdateInterval = 1;
+    public static boolean textDisplays;
+    public static boolean itemDisplays;
+    public static boolean itemDisplayRotation;
+    public static boolean interactionEntities;
+    public static double interactionEntityWidth = 1;
 
 }
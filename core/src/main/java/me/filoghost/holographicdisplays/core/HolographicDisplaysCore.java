@@ -16,11 +16,13 @@ import me.filoghost.holographicdisplays.core.api.current.DefaultHolographicDispl
 import me.filoghost.holographicdisplays.core.api.v2.V2HologramManager;
 import me.filoghost.holographicdisplays.core.api.v2.V2HologramsAPIProvider;
 import me.filoghost.holographicdisplays.core.base.BaseHologram;
+import me.filoghost.holographicdisplays.core.base.BaseHologramLine;
 import me.filoghost.holographicdisplays.core.listener.ChunkListener;
 import me.filoghost.holographicdisplays.core.listener.LineClickListener;
 import me.filoghost.holographicdisplays.core.listener.PlayerListener;
 import me.filoghost.holographicdisplays.core.placeholder.registry.PlaceholderRegistry;
 import me.filoghost.holographicdisplays.core.placeholder.tracking.ActivePlaceholderTracker;
+import me.filoghost.holographicdisplays.core.tick.CachedPlayer;
 import me.filoghost.holographicdisplays.core.tick.TickClock;
 import me.filoghost.holographicdisplays.core.tick.TickingTask;
 import me.filoghost.holographicdisplays.core.tracking.LineTrackerManager;
@@ -30,12 +32,16 @@ import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 
+import java.util.Collections;
+import java.util.List;
+
 public class HolographicDisplaysCore {
 
     private NMSManager nmsManager;
     private LineTrackerManager lineTrackerManager;
     private APIHologramManager apiHologramManager;
     private V2HologramManager v2HologramManager;
+    private TickingTask tickingTask;
 
     public void enable(Plugin plugin, ErrorCollector errorCollector) throws PluginEnableException {
         try {
@@ -48,7 +54,7 @@ public class HolographicDisplaysCore {
             throw new PluginEnableException(t, "Couldn't initialize the NMS manager.");
         }
 
-        PacketSenderExecutor.start();
+        PacketSenderExecutor.start(nmsManager);
 
         PlaceholderRegistry placeholderRegistry = new PlaceholderRegistry();
         TickClock tickClock = new TickClock();
@@ -64,7 +70,7 @@ public class HolographicDisplaysCore {
         }
 
         // Tasks
-        TickingTask tickingTask = new TickingTask(tickClock, placeholderTracker, lineTrackerManager, lineClickListener);
+        tickingTask = new TickingTask(tickClock, placeholderTracker, lineTrackerManager, lineClickListener, nmsManager);
         Bukkit.getScheduler().scheduleSyncRepeatingTask(plugin, tickingTask, 0, 1);
 
         // Listeners
@@ -96,6 +102,128 @@ public class HolographicDisplaysCore {
         CoreGlobalConfig.maxViewRange = maxViewRange;
     }
 
+    public void setViewRangeMargin(int viewRangeMargin) {
+        CoreGlobalConfig.viewRangeMargin = viewRangeMargin;
+    }
+
+    public void setSpawnBudgetPerTick(int spawnBudgetPerTick) {
+        CoreGlobalConfig.spawnBudgetPerTick = spawnBudgetPerTick;
+    }
+
+    public void setMaxLinesPerPlayer(int maxLinesPerPlayer) {
+        CoreGlobalConfig.maxLinesPerPlayer = maxLinesPerPlayer;
+    }
+
+    /**
+     * Limits the text updates of each line, such as placeholder refreshes: the latest text is sent when the limit
+     * allows it, skipping the intermediate ones.
+     */
+    public void setMaxTextUpdatesPerSecond(int maxTextUpdatesPerSecond) {
+        CoreGlobalConfig.maxTextUpdatesPerSecond = maxTextUpdatesPerSecond;
+    }
+
+    /**
+     * Limits the text updates sent to each player, for all the lines together.
+     */
+    public void setMaxTextUpdatesPerPlayerPerSecond(int maxTextUpdatesPerPlayerPerSecond) {
+        CoreGlobalConfig.maxTextUpdatesPerPlayerPerSecond = maxTextUpdatesPerPlayerPerSecond;
+    }
+
+    /**
+     * Sets the minimum number of ticks between two position updates of a moving hologram. Display entities created
+     * afterwards are interpolated by the client over the same number of ticks (since 1.20.2).
+     */
+    public void setMovementUpdateInterval(int movementUpdateInterval) {
+        CoreGlobalConfig.movementUpdateInterval = movementUpdateInterval;
+    }
+
+    /**
+     * Only applies to lines created afterwards.
+     */
+    public void setTextDisplays(boolean textDisplays) {
+        CoreGlobalConfig.textDisplays = textDisplays;
+    }
+
+    /**
+     * Only applies to lines created afterwards.
+     */
+    public void setItemDisplays(boolean itemDisplays) {
+        CoreGlobalConfig.itemDisplays = itemDisplays;
+    }
+
+    public void setItemDisplayRotation(boolean itemDisplayRotation) {
+        CoreGlobalConfig.itemDisplayRotation = itemDisplayRotation;
+    }
+
+    /**
+     * Only applies to lines created afterwards.
+     */
+    public void setInteractionEntities(boolean interactionEntities) {
+        CoreGlobalConfig.interactionEntities = interactionEntities;
+    }
+
+    /**
+     * Only applies to lines created afterwards.
+     */
+    public void setInteractionEntityWidth(double interactionEntityWidth) {
+        CoreGlobalConfig.interactionEntityWidth = interactionEntityWidth;
+    }
+
+    /**
+     * Encodes only once the packets sent to many players, instead of once for each player. Packets are still encoded
+     * for each player if another plugin replaces or intercepts them.
+     */
+    public void setSharedPacketEncoding(boolean sharedPacketEncoding) {
+        PacketSenderExecutor.setSharedPacketEncoding(sharedPacketEncoding);
+    }
+
+    /**
+     * Returns the lines currently displayed to the player, mainly for debugging.
+     */
+    public List<BaseHologramLine> getTrackedLines(Player player) {
+        CachedPlayer cachedPlayer = tickingTask.getCachedPlayer(player);
+        if (cachedPlayer == null) {
+            return Collections.emptyList();
+        }
+        return lineTrackerManager.getTrackedLines(cachedPlayer);
+    }
+
+    public long getAvoidedSpawnCycles() {
+        return lineTrackerManager.getAvoidedSpawnCycles();
+    }
+
+    public long getDeferredSpawns() {
+        return lineTrackerManager.getDeferredSpawns();
+    }
+
+    public long getReplacedLines() {
+        return lineTrackerManager.getReplacedLines();
+    }
+
+    public int getQueuedPacketTasks() {
+        return PacketSenderExecutor.getQueuedTasks();
+    }
+
+    public int getPendingPacketUpdates() {
+        return PacketSenderExecutor.getPendingUpdates();
+    }
+
+    public int getMaxPendingPacketUpdatesPerPlayer() {
+        return PacketSenderExecutor.getMaxPendingUpdatesPerPlayer();
+    }
+
+    public long getCoalescedPacketUpdates() {
+        return PacketSenderExecutor.getCoalescedUpdates();
+    }
+
+    public long getDroppedPacketUpdates() {
+        return PacketSenderExecutor.getDroppedUpdates();
+    }
+
+    public long getSharedPacketWrites() {
+        return PacketSenderExecutor.getSharedPacketWrites();
+    }
+
     public void disable() {
         if (lineTrackerManager != null) {
             lineTrackerManager.resetViewersAndSendDestroyPackets();
@@ -10,6 +10,10 @@ import me.filoghost.holographicdisplays.api.hologram.VisibilitySettings;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -17,12 +21,15 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 public class DefaultVisibilitySettings implements VisibilitySettings {
 
+    // Only changed when the visibility may have changed for all players, individual changes are notified separately
     private final AtomicInteger version;
+    private final ChangeListener changeListener;
     private Visibility globalVisibility;
     private Map<UUID, Visibility> individualVisibilities;
 
-    public DefaultVisibilitySettings() {
+    public DefaultVisibilitySettings(ChangeListener changeListener) {
         this.version = new AtomicInteger();
+        this.changeListener = changeListener;
         this.globalVisibility = Visibility.VISIBLE;
     }
 
@@ -38,19 +45,44 @@ public class DefaultVisibilitySettings implements VisibilitySettings {
         }
 
         this.globalVisibility = visibility;
-        version.incrementAndGet();
+        onGlobalChange();
     }
 
     @Override
     public void setIndividualVisibility(@NotNull Player player, @NotNull Visibility visibility) {
+        if (putIndividualVisibility(player, visibility)) {
+            changeListener.onIndividualVisibilityChange(Collections.singletonList(player));
+        }
+    }
+
+    @Override
+    public void setIndividualVisibility(@NotNull Collection<? extends Player> players, @NotNull Visibility visibility) {
+        Preconditions.notNull(players, "players");
+        Preconditions.notNull(visibility, "visibility");
+
+        List<Player> changedPlayers = null;
+        for (Player player : players) {
+            if (putIndividualVisibility(player, visibility)) {
+                if (changedPlayers == null) {
+                    changedPlayers = new ArrayList<>();
+                }
+                changedPlayers.add(player);
+            }
+        }
+
+        // Notify all the changes at once
+        if (changedPlayers != null) {
+            changeListener.onIndividualVisibilityChange(changedPlayers);
+        }
+    }
+
+    private boolean putIndividualVisibility(Player player, Visibility visibility) {
         // Lazy initialization
         if (individualVisibilities == null) {
             individualVisibilities = new ConcurrentHashMap<>();
         }
         Visibility previousVisibility = individualVisibilities.put(player.getUniqueId(), visibility);
-        if (visibility != previousVisibility) {
-            version.incrementAndGet();
-        }
+        return visibility != previousVisibility;
     }
 
     @Override
@@ -81,7 +113,7 @@ public class DefaultVisibilitySettings implements VisibilitySettings {
 
         Visibility previousVisibility = individualVisibilities.remove(player.getUniqueId());
         if (previousVisibility != null) {
-            version.incrementAndGet();
+            changeListener.onIndividualVisibilityChange(Collections.singletonList(player));
         }
     }
 
@@ -92,7 +124,12 @@ public class DefaultVisibilitySettings implements VisibilitySettings {
         }
 
         individualVisibilities.clear();
+        onGlobalChange();
+    }
+
+    private void onGlobalChange() {
         version.incrementAndGet();
+        changeListener.onGlobalVisibilityChange();
     }
 
     public int getVersion() {
@@ -107,4 +144,13 @@ public class DefaultVisibilitySettings implements VisibilitySettings {
                 + "}";
     }
 
+
+    public interface ChangeListener {
+
+        void onGlobalVisibilityChange();
+
+        void onIndividualVisibilityChange(Collection<? extends Player> players);
+
+    }
+
 }
@@ -6,26 +6,45 @@
 package me.filoghost.holographicdisplays.core.base;
 
 import me.filoghost.fcommons.Preconditions;
+import me.filoghost.fcommons.reflection.ReflectMethod;
 import me.filoghost.holographicdisplays.core.CorePreconditions;
 import me.filoghost.holographicdisplays.core.api.current.DefaultVisibilitySettings;
 import me.filoghost.holographicdisplays.core.tracking.LineTrackerManager;
 import org.bukkit.Chunk;
 import org.bukkit.Location;
 import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
+import org.bukkit.util.NumberConversions;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
+
 public abstract class BaseHologram extends BaseHologramComponent {
 
+    private static final ReflectMethod<Double> ENTITY_HEIGHT_METHOD = ReflectMethod.lookup(double.class, Entity.class, "getHeight");
+
     private final HologramPosition hologramPosition;
     private final DefaultVisibilitySettings visibilitySettings;
     private final LineTrackerManager lineTrackerManager;
+    private final Location attachedEntityLocation; // Reused when following the attached entity every tick
+
+    private double viewRange;
+    private double viewRangeMargin;
+    private int priority;
+    private int maxTextUpdatesPerSecond;
+    private @Nullable Entity attachedEntity;
 
     public BaseHologram(ImmutablePosition position, LineTrackerManager lineTrackerManager) {
         this.hologramPosition = new HologramPosition(position);
-        this.visibilitySettings = new DefaultVisibilitySettings();
+        this.visibilitySettings = new DefaultVisibilitySettings(new VisibilityChangeListener());
         this.lineTrackerManager = lineTrackerManager;
+        this.viewRange = -1;
+        this.viewRangeMargin = -1;
+        this.attachedEntityLocation = new Location(null, 0, 0, 0);
     }
 
     public abstract BaseHologramLines<? extends EditableHologramLine> getLines();
@@ -36,6 +55,14 @@ public abstract class BaseHologram extends BaseHologramComponent {
         return lineTrackerManager;
     }
 
+    /**
+     * Notifies the tracker manager that the hologram must be updated in the next tick. This method can be called from
+     * any thread.
+     */
+    final void setChanged() {
+        lineTrackerManager.setChanged(this);
+    }
+
     @Override
     public final void setDeleted() {
         super.setDeleted();
@@ -79,23 +106,152 @@ public abstract class BaseHologram extends BaseHologramComponent {
         getLines().updatePositions();
     }
 
+    public double getViewRange() {
+        return viewRange;
+    }
+
+    public void setViewRange(double viewRange) {
+        CorePreconditions.checkMainThread();
+        checkNotDeleted();
+
+        if (this.viewRange == viewRange) {
+            return;
+        }
+
+        this.viewRange = viewRange;
+        getLines().setChanged(); // Line trackers read the view range only when their line changes
+    }
+
+    public double getViewRangeMargin() {
+        return viewRangeMargin;
+    }
+
+    public void setViewRangeMargin(double viewRangeMargin) {
+        CorePreconditions.checkMainThread();
+        checkNotDeleted();
+
+        if (this.viewRangeMargin == viewRangeMargin) {
+            return;
+        }
+
+        this.viewRangeMargin = viewRangeMargin;
+        setChanged();
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public void setPriority(int priority) {
+        CorePreconditions.checkMainThread();
+        checkNotDeleted();
+
+        if (this.priority == priority) {
+            return;
+        }
+
+        this.priority = priority;
+        setChanged(); // The players near the hologram must be checked again, if they are limited in the lines they see
+    }
+
+    public int getMaxTextUpdatesPerSecond() {
+        return maxTextUpdatesPerSecond;
+    }
+
+    public void setMaxTextUpdatesPerSecond(int maxTextUpdatesPerSecond) {
+        CorePreconditions.checkMainThread();
+        Preconditions.checkArgument(maxTextUpdatesPerSecond >= 0, "maxTextUpdatesPerSecond cannot be negative");
+        checkNotDeleted();
+
+        // Read by the line trackers when the text changes, no need to update them
+        this.maxTextUpdatesPerSecond = maxTextUpdatesPerSecond;
+    }
+
+    public @Nullable Entity getAttachedEntity() {
+        return attachedEntity;
+    }
+
+    public void setAttachedEntity(@Nullable Entity attachedEntity) {
+        CorePreconditions.checkMainThread();
+        checkNotDeleted();
+
+        if (this.attachedEntity == attachedEntity) {
+            return;
+        }
+
+        this.attachedEntity = attachedEntity;
+        if (attachedEntity != null && attachedEntity.isValid()) {
+            followAttachedEntity(0);
+        }
+        getLines().setChanged(); // Line trackers must mount or dismount their entities
+    }
+
+    /**
+     * Moves the hologram above the attached entity, unless the new position is nearer than the given distance. Lines
+     * riding the entity are moved by the client, their position only needs to be approximately updated for the view
+     * range checks.
+     */
+    public void followAttachedEntity(double minDistance) {
+        Location location = attachedEntity.getLocation(attachedEntityLocation);
+        World world = location.getWorld();
+        double x = location.getX();
+        double y = location.getY() + getHeight(attachedEntity) + getLines().getHeight();
+        double z = location.getZ();
+
+        ImmutablePosition position = getPosition();
+        if (position.isInWorld(world)) {
+            double distanceSquared = NumberConversions.square(position.getX() - x)
+                    + NumberConversions.square(position.getY() - y)
+                    + NumberConversions.square(position.getZ() - z);
+            if (distanceSquared == 0 || distanceSquared < minDistance * minDistance) {
+                return;
+            }
+        }
+
+        hologramPosition.set(new ImmutablePosition(world.getName(), x, y, z));
+        getLines().updatePositions();
+    }
+
+    private static double getHeight(Entity entity) {
+        if (ENTITY_HEIGHT_METHOD.isValid()) {
+            try {
+                return ENTITY_HEIGHT_METHOD.invoke(entity);
+            } catch (ReflectiveOperationException e) {
+                // Fall through
+            }
+        }
+        // Entity height is not available before 1.11, the height of the eyes is similar
+        if (entity instanceof LivingEntity) {
+            return ((LivingEntity) entity).getEyeHeight();
+        }
+        return 0;
+    }
+
     protected void onWorldLoad(World world) {
-        hologramPosition.onWorldLoad(world);
+        if (hologramPosition.onWorldLoad(world)) {
+            setChanged();
+        }
     }
 
     protected void onWorldUnload(World world) {
-        hologramPosition.onWorldUnload(world);
+        if (hologramPosition.onWorldUnload(world)) {
+            setChanged();
+        }
     }
 
     protected void onChunkLoad(Chunk chunk) {
-        hologramPosition.onChunkLoad(chunk);
+        if (hologramPosition.onChunkLoad(chunk)) {
+            setChanged();
+        }
     }
 
     protected void onChunkUnload(Chunk chunk) {
-        hologramPosition.onChunkUnload(chunk);
+        if (hologramPosition.onChunkUnload(chunk)) {
+            setChanged();
+        }
     }
 
-    protected boolean isInLoadedChunk() {
+    public boolean isInLoadedChunk() {
         return hologramPosition.isChunkLoaded();
     }
 
@@ -108,4 +264,18 @@ public abstract class BaseHologram extends BaseHologramComponent {
                 + "}";
     }
 
+    private class VisibilityChangeListener implements DefaultVisibilitySettings.ChangeListener {
+
+        @Override
+        public void onGlobalVisibilityChange() {
+            setChanged();
+        }
+
+        @Override
+        public void onIndividualVisibilityChange(Collection<? extends Player> players) {
+            lineTrackerManager.setVisibilityChanged(BaseHologram.this, players);
+        }
+
+    }
+
 }
@@ -7,10 +7,12 @@ package me.filoghost.holographicdisplays.core.base;
 
 import me.filoghost.fcommons.Preconditions;
 import me.filoghost.holographicdisplays.common.PositionCoordinates;
+import me.filoghost.holographicdisplays.core.CorePreconditions;
 import me.filoghost.holographicdisplays.core.api.current.DefaultVisibilitySettings;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.MustBeInvokedByOverriders;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -19,6 +21,7 @@ public abstract class BaseHologramLine extends BaseHologramComponent implements
     private final BaseHologram hologram;
 
     private PositionCoordinates coordinates;
+    private double viewRange;
 
     /**
      * Flag to indicate that the line has changed in some way and update packets might be necessary.
@@ -28,15 +31,28 @@ public abstract class BaseHologramLine extends BaseHologramComponent implements
     protected BaseHologramLine(BaseHologram hologram) {
         Preconditions.notNull(hologram, "hologram");
         this.hologram = hologram;
+        this.viewRange = -1;
         setChanged(); // Force the initial refresh
     }
 
+    public final BaseHologram getHologram() {
+        return hologram;
+    }
+
+    @MustBeInvokedByOverriders
+    @Override
+    public void setDeleted() {
+        super.setDeleted();
+        hologram.setChanged(); // The tracker of the line must be removed
+    }
+
     public boolean hasChanged() {
         return changed;
     }
 
     public final void setChanged() {
         changed = true;
+        hologram.setChanged();
     }
 
     public void clearChanged() {
@@ -56,6 +72,22 @@ public abstract class BaseHologramLine extends BaseHologramComponent implements
         return coordinates;
     }
 
+    public double getViewRange() {
+        return viewRange;
+    }
+
+    public void setViewRange(double viewRange) {
+        CorePreconditions.checkMainThread();
+        checkNotDeleted();
+
+        if (this.viewRange == viewRange) {
+            return;
+        }
+
+        this.viewRange = viewRange;
+        setChanged();
+    }
+
     public @NotNull String getWorldName() {
         return hologram.getPosition().getWorldName();
     }
@@ -118,6 +118,15 @@ public class BaseHologramLines<T extends EditableHologramLine> implements Iterab
         }
     }
 
+    /**
+     * Marks all the lines as changed, when a property of the hologram used by the line trackers is modified.
+     */
+    public void setChanged() {
+        for (int i = 0; i < lines.size(); i++) {
+            lines.get(i).setChanged();
+        }
+    }
+
     public double getHeight() {
         CorePreconditions.checkMainThread();
 
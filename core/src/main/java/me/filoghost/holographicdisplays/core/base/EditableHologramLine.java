@@ -13,4 +13,6 @@ public interface EditableHologramLine {
 
     void setDeleted();
 
+    void setChanged();
+
 }
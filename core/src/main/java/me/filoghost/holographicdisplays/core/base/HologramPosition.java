@@ -48,30 +48,38 @@ class HologramPosition {
         return Location.locToBlock(positionCoordinate) >> 4;
     }
 
-    void onWorldLoad(World world) {
+    boolean onWorldLoad(World world) {
         if (position.isInWorld(world)) {
             this.world = world;
             chunkLoadState = ChunkLoadState.UNKNOWN;
+            return true;
         }
+        return false;
     }
 
-    void onWorldUnload(World world) {
+    boolean onWorldUnload(World world) {
         if (position.isInWorld(world)) {
             this.world = null;
             chunkLoadState = ChunkLoadState.NOT_LOADED;
+            return true;
         }
+        return false;
     }
 
-    void onChunkLoad(Chunk chunk) {
+    boolean onChunkLoad(Chunk chunk) {
         if (isInChunk(chunk)) {
             chunkLoadState = ChunkLoadState.LOADED;
+            return true;
         }
+        return false;
     }
 
-    void onChunkUnload(Chunk chunk) {
+    boolean onChunkUnload(Chunk chunk) {
         if (isInChunk(chunk)) {
             chunkLoadState = ChunkLoadState.NOT_LOADED;
+            return true;
         }
+        return false;
     }
 
     private boolean isInChunk(Chunk chunk) {
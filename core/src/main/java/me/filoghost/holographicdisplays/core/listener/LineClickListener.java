@@ -30,9 +30,14 @@ public class LineClickListener implements PacketListener {
 
     @Override
     public boolean onAsyncEntityInteract(Player player, int entityID) {
+        return onAsyncEntityInteract(player, entityID, Double.NaN);
+    }
+
+    @Override
+    public boolean onAsyncEntityInteract(Player player, int entityID, double hitOffsetY) {
         ClickableLineTracker<?> lineTracker = lineTrackerByEntityID.get(entityID);
         if (lineTracker != null) {
-            queuedClickEvents.add(new QueuedClickEvent(player, lineTracker));
+            queuedClickEvents.add(new QueuedClickEvent(player, lineTracker, hitOffsetY));
             return true;
         } else {
             return false;
@@ -42,7 +47,7 @@ public class LineClickListener implements PacketListener {
     // This method is called from the main thread
     public void processQueuedClickEvents() {
         for (QueuedClickEvent event : queuedClickEvents) {
-            event.lineTracker.onClientClick(event.player);
+            event.lineTracker.onClientClick(event.player, event.hitOffsetY);
         }
         queuedClickEvents.clear();
     }
@@ -62,10 +67,12 @@ public class LineClickListener implements PacketListener {
 
         private final Player player;
         private final ClickableLineTracker<?> lineTracker;
+        private final double hitOffsetY; // Not compared, only the first click to the same entity is kept
 
-        QueuedClickEvent(Player player, ClickableLineTracker<?> lineTracker) {
+        QueuedClickEvent(Player player, ClickableLineTracker<?> lineTracker, double hitOffsetY) {
             this.player = player;
             this.lineTracker = lineTracker;
+            this.hitOffsetY = hitOffsetY;
         }
 
         @Override
@@ -5,25 +5,97 @@
  */
 package me.filoghost.holographicdisplays.core.tick;
 
+import me.filoghost.holographicdisplays.core.CoreGlobalConfig;
+import me.filoghost.holographicdisplays.core.tracking.LineTracker;
+import me.filoghost.holographicdisplays.core.tracking.PacketSenderExecutor;
+import me.filoghost.holographicdisplays.core.tracking.PendingPacketUpdates;
+import me.filoghost.holographicdisplays.nms.common.EntityID;
+import me.filoghost.holographicdisplays.nms.common.PacketWriter;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 public class CachedPlayer {
 
+    // The view distance of the client can change at any time, without a Bukkit event
+    private static final int VIEW_RANGE_REFRESH_TICKS = 20;
+
     private final Player player;
+    private final PacketWriter packetWriter;
+    private final int packetSenderIndex;
 
     private Location location;
+    private Location nextLocation; // Filled with the new location and swapped with the current one, to reuse both
     private boolean movedLastTick;
 
-    public CachedPlayer(Player player) {
+    private int maxViewRange;
+    private int ticksUntilViewRangeRefresh;
+
+    // Text refreshes are skipped while the connection is congested or the limit of text updates is reached, the latest
+    // text is sent when they are resumed. Checked once per tick.
+    private boolean congested;
+    private double textUpdateBudget;
+    private boolean textRefreshesSkipped;
+    private boolean textRefreshesResumedLastTick;
+
+    // Line trackers which currently have the player as viewer, updated by the line trackers
+    private final Set<LineTracker<?>> trackedLines;
+    private final Collection<LineTracker<?>> trackedLinesView;
+
+    // Entities destroyed together with a single packet, only used by the packet sender thread
+    private final List<EntityID> entityIDsToDestroy;
+
+    // Updates held back while the connection is congested, only used by the packet sender thread
+    private final PendingPacketUpdates pendingPacketUpdates;
+
+    public CachedPlayer(Player player, PacketWriter packetWriter) {
         this.player = player;
+        this.packetWriter = packetWriter;
+        this.packetSenderIndex = PacketSenderExecutor.nextSenderIndex();
+        this.nextLocation = new Location(null, 0, 0, 0);
+        this.maxViewRange = Integer.MAX_VALUE;
+        this.trackedLines = new HashSet<>();
+        this.trackedLinesView = Collections.unmodifiableSet(trackedLines);
+        this.entityIDsToDestroy = new ArrayList<>();
+        this.pendingPacketUpdates = new PendingPacketUpdates();
+        this.textUpdateBudget = CoreGlobalConfig.maxTextUpdatesPerPlayerPerSecond;
     }
 
     void onTick() {
-        Location newLocation = player.getLocation();
+        Location newLocation = player.getLocation(nextLocation);
+        boolean worldChanged = location == null || location.getWorld() != newLocation.getWorld();
         movedLastTick = isDifferentPosition(location, newLocation);
+        nextLocation = location != null ? location : new Location(null, 0, 0, 0);
         location = newLocation;
+
+        ticksUntilViewRangeRefresh--;
+        if (worldChanged || ticksUntilViewRangeRefresh <= 0) {
+            ticksUntilViewRangeRefresh = VIEW_RANGE_REFRESH_TICKS;
+            int maxViewRange = ViewDistances.getMaxViewRange(player, newLocation.getWorld());
+            if (maxViewRange != this.maxViewRange) {
+                this.maxViewRange = maxViewRange;
+                movedLastTick = true; // Holograms near the player must check it again with the new range
+            }
+        }
+
+        congested = packetWriter.isCongested();
+        int maxTextUpdates = CoreGlobalConfig.maxTextUpdatesPerPlayerPerSecond;
+        if (maxTextUpdates > 0) {
+            // Unused updates are accumulated up to one second, allowing short bursts
+            textUpdateBudget = Math.min(textUpdateBudget + maxTextUpdates / 20.0, maxTextUpdates);
+        }
+
+        textRefreshesResumedLastTick = textRefreshesSkipped && canRefreshText();
+        if (textRefreshesResumedLastTick) {
+            textRefreshesSkipped = false;
+        }
     }
 
     private boolean isDifferentPosition(Location oldLocation, Location newLocation) {
@@ -41,14 +113,91 @@ public class CachedPlayer {
         return player;
     }
 
+    /**
+     * Returns the writer of the packets sent to the player, only used by the packet sender thread.
+     */
+    public PacketWriter getPacketWriter() {
+        return packetWriter;
+    }
+
+    /**
+     * Returns the index of the packet sender thread of the player, which sends all its packets in order.
+     */
+    public int getPacketSenderIndex() {
+        return packetSenderIndex;
+    }
+
+    /**
+     * Returns the entities to destroy for the player with a single packet, only used by the packet sender thread.
+     */
+    public List<EntityID> getEntityIDsToDestroy() {
+        return entityIDsToDestroy;
+    }
+
+    /**
+     * Returns the updates held back while the connection is congested, only used by the packet sender thread.
+     */
+    public PendingPacketUpdates getPendingPacketUpdates() {
+        return pendingPacketUpdates;
+    }
+
+    /**
+     * Returns the location of the player at the last tick. The returned instance is overwritten after two ticks, it
+     * should not be stored.
+     */
     public @Nullable Location getLocation() {
         return location;
     }
 
+    /**
+     * Returns the maximum distance at which the player can see holograms, limited by the view distance of its world and
+     * of its client, updated periodically.
+     */
+    public int getMaxViewRange() {
+        return maxViewRange;
+    }
+
     public boolean isMovedLastTick() {
         return movedLastTick;
     }
 
+    /**
+     * Returns true if text changes, which are not essential, can be sent to the player: they are skipped while its
+     * connection is congested or when it reached the limit of text updates per second.
+     */
+    public boolean canRefreshText() {
+        return !congested && (CoreGlobalConfig.maxTextUpdatesPerPlayerPerSecond <= 0 || textUpdateBudget >= 1);
+    }
+
+    public void onTextRefreshed() {
+        if (CoreGlobalConfig.maxTextUpdatesPerPlayerPerSecond > 0) {
+            textUpdateBudget--;
+        }
+    }
+
+    /**
+     * Records that a text change was skipped, the latest text must be sent when text refreshes are resumed.
+     */
+    public void onTextRefreshSkipped() {
+        textRefreshesSkipped = true;
+    }
+
+    public boolean isTextRefreshesResumedLastTick() {
+        return textRefreshesResumedLastTick;
+    }
+
+    public void addTrackedLine(LineTracker<?> lineTracker) {
+        trackedLines.add(lineTracker);
+    }
+
+    public void removeTrackedLine(LineTracker<?> lineTracker) {
+        trackedLines.remove(lineTracker);
+    }
+
+    public Collection<LineTracker<?>> getTrackedLines() {
+        return trackedLinesView;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) {
@@ -11,8 +11,11 @@ import me.filoghost.holographicdisplays.core.NMSVersion;
 import me.filoghost.holographicdisplays.core.listener.LineClickListener;
 import me.filoghost.holographicdisplays.core.placeholder.tracking.ActivePlaceholderTracker;
 import me.filoghost.holographicdisplays.core.tracking.LineTrackerManager;
+import me.filoghost.holographicdisplays.core.tracking.PacketSenderExecutor;
+import me.filoghost.holographicdisplays.nms.common.NMSManager;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -24,7 +27,9 @@ public class TickingTask implements Runnable {
     private final ActivePlaceholderTracker placeholderTracker;
     private final LineTrackerManager lineTrackerManager;
     private final LineClickListener lineClickListener;
+    private final NMSManager nmsManager;
     private final List<CachedPlayer> onlinePlayers;
+    private final List<CachedPlayer> movedPlayers; // Reused every tick to avoid allocating a new list
 
     private long lastErrorLogTick;
 
@@ -32,32 +37,40 @@ public class TickingTask implements Runnable {
             TickClock tickClock,
             ActivePlaceholderTracker placeholderTracker,
             LineTrackerManager lineTrackerManager,
-            LineClickListener lineClickListener) {
+            LineClickListener lineClickListener,
+            NMSManager nmsManager) {
         this.tickClock = tickClock;
         this.placeholderTracker = placeholderTracker;
         this.lineTrackerManager = lineTrackerManager;
         this.lineClickListener = lineClickListener;
+        this.nmsManager = nmsManager;
         this.onlinePlayers = new ArrayList<>();
+        this.movedPlayers = new ArrayList<>();
     }
 
     public void onPlayerJoin(Player player) {
-        onlinePlayers.add(new CachedPlayer(player));
+        onlinePlayers.add(new CachedPlayer(player, nmsManager.newPacketWriter(player)));
     }
 
     public void onPlayerQuit(Player player) {
         Iterator<CachedPlayer> iterator = onlinePlayers.iterator();
 
         while (iterator.hasNext()) {
-            if (iterator.next().getBukkitPlayer() == player) {
+            CachedPlayer cachedPlayer = iterator.next();
+            if (cachedPlayer.getBukkitPlayer() == player) {
                 iterator.remove();
+                lineTrackerManager.removePlayer(cachedPlayer);
                 break;
             }
         }
-
-        lineTrackerManager.removeViewer(player);
     }
 
     public void onPlayerRespawn(Player player) {
+        CachedPlayer cachedPlayer = getCachedPlayer(player);
+        if (cachedPlayer == null) {
+            return;
+        }
+
         switch (NMSVersion.getCurrent()) {
             case v1_8_R1:
             case v1_8_R2:
@@ -71,13 +84,24 @@ public class TickingTask implements Runnable {
             case v1_13_R2:
             case v1_14_R1:
                 // For older versions, force spawn packets to be resent after the player respawns
-                lineTrackerManager.removeViewer(player);
+                lineTrackerManager.removeViewer(cachedPlayer);
                 break;
             default:
+                // The server sends the entities again to the player, including the entities with riding lines
+                lineTrackerManager.mountViewerAgain(cachedPlayer);
                 break;
         }
     }
 
+    public @Nullable CachedPlayer getCachedPlayer(Player player) {
+        for (CachedPlayer cachedPlayer : onlinePlayers) {
+            if (cachedPlayer.getBukkitPlayer() == player) {
+                return cachedPlayer;
+            }
+        }
+        return null;
+    }
+
     @Override
     public void run() {
         tickClock.incrementTick();
@@ -85,11 +109,15 @@ public class TickingTask implements Runnable {
         // Remove outdated entries before using them from line trackers
         placeholderTracker.clearOutdatedEntries();
 
-        List<CachedPlayer> movedPlayers = new ArrayList<>();
-        for (CachedPlayer onlinePlayer : onlinePlayers) {
+        // Micro-optimization, don't use for-each loops to avoid creating a new Iterator (method called every tick)
+        for (int i = 0; i < onlinePlayers.size(); i++) {
+            CachedPlayer onlinePlayer = onlinePlayers.get(i);
             if (onlinePlayer.isMovedLastTick()) {
                 movedPlayers.add(onlinePlayer);
             }
+            if (onlinePlayer.isTextRefreshesResumedLastTick()) {
+                lineTrackerManager.catchUpSkippedRefreshes(onlinePlayer);
+            }
         }
 
         // Holograms need to disappear before chunks (code taken from Bukkit)
@@ -99,7 +127,7 @@ public class TickingTask implements Runnable {
         }
 
         try {
-            lineTrackerManager.update(onlinePlayers, movedPlayers, maxViewRange);
+            lineTrackerManager.update(movedPlayers, maxViewRange);
         } catch (Throwable t) {
             // Catch all types of Throwable because we're using NMS code
             if (tickClock.getCurrentTick() - lastErrorLogTick >= 20) {
@@ -108,6 +136,10 @@ public class TickingTask implements Runnable {
                 Log.severe("Error while ticking holograms", t);
             }
         }
+        movedPlayers.clear();
+
+        // Send all the packets of this tick together
+        PacketSenderExecutor.flush();
 
         // Remove placeholders which were not used by line trackers
         placeholderTracker.clearInactivePlaceholders();
@@ -117,8 +149,8 @@ public class TickingTask implements Runnable {
 
         // Delay position updates, so that they will be handled next tick.
         // A tick of delay is necessary to avoid issues such as holograms not being visible after a teleport.
-        for (CachedPlayer onlinePlayer : onlinePlayers) {
-            onlinePlayer.onTick();
+        for (int i = 0; i < onlinePlayers.size(); i++) {
+            onlinePlayers.get(i).onTick();
         }
     }
 
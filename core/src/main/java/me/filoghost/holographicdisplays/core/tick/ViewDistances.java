@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.core.tick;
+
+import me.filoghost.fcommons.reflection.ReflectMethod;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+/**
+ * Reads the view distance of worlds and of player clients, which is not available in the API of older versions.
+ */
+final class ViewDistances {
+
+    private static final ReflectMethod<Integer> WORLD_VIEW_DISTANCE_METHOD =
+            ReflectMethod.lookup(int.class, World.class, "getViewDistance");
+    private static final ReflectMethod<Integer> CLIENT_VIEW_DISTANCE_METHOD =
+            ReflectMethod.lookup(int.class, Player.class, "getClientViewDistance");
+
+    private ViewDistances() {}
+
+    /**
+     * Returns the maximum horizontal distance in blocks at which the player can see entities, considering the view
+     * distance of the server, of the world and of the client (if available).
+     */
+    static int getMaxViewRange(Player player, World world) {
+        int viewDistance = getWorldViewDistance(world);
+
+        int clientViewDistance = invoke(CLIENT_VIEW_DISTANCE_METHOD, player);
+        if (clientViewDistance > 0 && clientViewDistance < viewDistance) {
+            viewDistance = clientViewDistance;
+        }
+
+        // Holograms need to disappear before chunks (code taken from Bukkit)
+        return Math.max(viewDistance - 1, 1) * 16;
+    }
+
+    private static int getWorldViewDistance(World world) {
+        int worldViewDistance = invoke(WORLD_VIEW_DISTANCE_METHOD, world);
+        return worldViewDistance > 0 ? worldViewDistance : Bukkit.getViewDistance();
+    }
+
+    private static int invoke(ReflectMethod<Integer> method, Object instance) {
+        if (!method.isValid()) {
+            return 0;
+        }
+        try {
+            Integer result = method.invoke(instance);
+            return result != null ? result : 0;
+        } catch (ReflectiveOperationException e) {
+            return 0;
+        }
+    }
+
+}
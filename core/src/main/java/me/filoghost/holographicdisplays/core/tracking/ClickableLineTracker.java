@@ -6,35 +6,103 @@
 package me.filoghost.holographicdisplays.core.tracking;
 
 import me.filoghost.holographicdisplays.common.PositionCoordinates;
+import me.filoghost.holographicdisplays.core.CoreGlobalConfig;
 import me.filoghost.holographicdisplays.core.base.BaseClickableHologramLine;
 import me.filoghost.holographicdisplays.core.listener.LineClickListener;
+import me.filoghost.holographicdisplays.nms.common.DisplayEntitySupport;
 import me.filoghost.holographicdisplays.nms.common.NMSManager;
+import me.filoghost.holographicdisplays.nms.common.PacketGroup;
 import me.filoghost.holographicdisplays.nms.common.entity.ClickableNMSPacketEntity;
+import me.filoghost.holographicdisplays.nms.common.entity.InteractionNMSPacketEntity;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
+import org.bukkit.util.Vector;
 import org.jetbrains.annotations.MustBeInvokedByOverriders;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
 
 public abstract class ClickableLineTracker<T extends Viewer> extends LineTracker<T> {
 
     private final ClickableNMSPacketEntity clickableEntity;
+    private final @Nullable InteractionNMSPacketEntity interactionEntity;
+    private final float interactionEntityWidth;
     private final double positionOffsetY;
     private final LineClickListener lineClickListener;
 
     private boolean spawnClickableEntity;
     private boolean spawnClickableEntityChanged;
 
+    // Only with an interaction entity: the lines sharing it, from top to bottom, if this line spawns it
+    private @Nullable List<ClickableLineTracker<?>> clickableGroup;
+    private double clickableGroupHeight;
+
     public ClickableLineTracker(BaseClickableHologramLine line, NMSManager nmsManager, LineClickListener lineClickListener) {
-        this.clickableEntity = nmsManager.newClickablePacketEntity();
-        this.positionOffsetY = (line.getHeight() - ClickableNMSPacketEntity.SLIME_HEIGHT) / 2;
+        DisplayEntitySupport displayEntitySupport = nmsManager.getDisplayEntitySupport();
+        if (CoreGlobalConfig.interactionEntities && displayEntitySupport != null) {
+            this.interactionEntity = displayEntitySupport.newInteractionPacketEntity();
+            this.clickableEntity = interactionEntity;
+            this.positionOffsetY = 0;
+        } else {
+            this.interactionEntity = null;
+            this.clickableEntity = nmsManager.newClickablePacketEntity();
+            this.positionOffsetY = (line.getHeight() - ClickableNMSPacketEntity.SLIME_HEIGHT) / 2;
+        }
+        this.interactionEntityWidth = (float) CoreGlobalConfig.interactionEntityWidth;
         this.lineClickListener = lineClickListener;
     }
 
-    public void onClientClick(Player player) {
+    /**
+     * @param hitOffsetY the height of the hit relative to the clickable entity, or {@link Double#NaN} if unknown
+     */
+    public void onClientClick(Player player, double hitOffsetY) {
+        ClickableLineTracker<?> clickedLineTracker = this;
+        if (clickableGroup != null && clickableGroup.size() > 1) {
+            if (Double.isNaN(hitOffsetY)) {
+                hitOffsetY = getLookOffsetY(player);
+            }
+            clickedLineTracker = getClickedLineTracker(clickableGroup, positionCoordinates.getY() + hitOffsetY);
+        }
+        clickedLineTracker.onClientClick(player);
+    }
+
+    private void onClientClick(Player player) {
         if (getLine().hasClickCallback() && canInteract(player) && isInClickRange(player)) {
             getLine().onClick(player);
         }
     }
 
+    /**
+     * Returns the height where the player is looking at the vertical axis of the entity, relative to its position.
+     * Used when the client does not send the hit position, for example when attacking.
+     */
+    private double getLookOffsetY(Player player) {
+        Location eyeLocation = player.getEyeLocation();
+        Vector direction = eyeLocation.getDirection();
+        double horizontalDistance = Math.hypot(
+                positionCoordinates.getX() - eyeLocation.getX(),
+                positionCoordinates.getZ() - eyeLocation.getZ());
+        double horizontalDirection = Math.hypot(direction.getX(), direction.getZ());
+
+        double lookY = eyeLocation.getY();
+        if (horizontalDirection > 0.001) {
+            lookY += direction.getY() * horizontalDistance / horizontalDirection;
+        }
+        return lookY - positionCoordinates.getY();
+    }
+
+    private static ClickableLineTracker<?> getClickedLineTracker(List<ClickableLineTracker<?>> clickableGroup, double hitY) {
+        // The first line from the top whose bottom is below the hit, hits outside the entity go to the nearest line
+        int lastIndex = clickableGroup.size() - 1;
+        for (int i = 0; i < lastIndex; i++) {
+            ClickableLineTracker<?> lineTracker = clickableGroup.get(i);
+            if (hitY >= lineTracker.getLine().getCoordinates().getY()) {
+                return lineTracker;
+            }
+        }
+        return clickableGroup.get(lastIndex);
+    }
+
     private boolean isInClickRange(Player player) {
         Location playerLocation = player.getLocation();
         PositionCoordinates positionCoordinates = getLine().getCoordinates();
@@ -57,23 +125,54 @@ public abstract class ClickableLineTracker<T extends Viewer> extends LineTracker
         lineClickListener.removeLineTracker(clickableEntity.getID());
     }
 
+    final boolean isInteractionEntity() {
+        return interactionEntity != null;
+    }
+
+    final @Nullable List<ClickableLineTracker<?>> getClickableGroup() {
+        return clickableGroup;
+    }
+
+    final double getClickableGroupHeight() {
+        return clickableGroupHeight;
+    }
+
+    /**
+     * Only used with interaction entities, the hologram tracker groups the lines and must reset the viewers before.
+     */
+    final void setClickableGroup(@Nullable List<ClickableLineTracker<?>> clickableGroup, double clickableGroupHeight) {
+        this.clickableGroup = clickableGroup;
+        this.clickableGroupHeight = clickableGroupHeight;
+        setSpawnClickableEntity(clickableGroup != null);
+    }
+
     @MustBeInvokedByOverriders
     @Override
     protected void detectChanges() {
         super.detectChanges();
 
-        boolean spawnClickableEntity = getLine().hasClickCallback();
-        if (this.spawnClickableEntity != spawnClickableEntity) {
-            this.spawnClickableEntity = spawnClickableEntity;
-            this.spawnClickableEntityChanged = true;
-            if (spawnClickableEntity) {
-                lineClickListener.addLineTracker(clickableEntity.getID(), this);
-            } else {
-                lineClickListener.removeLineTracker(clickableEntity.getID());
+        // Interaction entities are spawned depending on the click callbacks of the whole group
+        if (interactionEntity == null) {
+            boolean spawnClickableEntity = getLine().hasClickCallback();
+            if (this.spawnClickableEntity != spawnClickableEntity) {
+                setSpawnClickableEntity(spawnClickableEntity);
+                this.spawnClickableEntityChanged = true;
             }
         }
     }
 
+    private void setSpawnClickableEntity(boolean spawnClickableEntity) {
+        if (this.spawnClickableEntity == spawnClickableEntity) {
+            return;
+        }
+        this.spawnClickableEntity = spawnClickableEntity;
+        if (spawnClickableEntity) {
+            lineClickListener.addLineTracker(clickableEntity.getID(), this);
+        } else {
+            lineClickListener.removeLineTracker(clickableEntity.getID());
+        }
+    }
+
     @MustBeInvokedByOverriders
     @Override
     protected void clearDetectedChanges() {
@@ -87,8 +186,11 @@ public abstract class ClickableLineTracker<T extends Viewer> extends LineTracker
         if (spawnClickableEntity) {
             // Copy for async use
             PositionCoordinates clickableEntityPosition = getClickableEntityPosition();
-            PacketSenderExecutor.execute(() -> {
-                viewers.sendPackets(clickableEntity.newSpawnPackets(clickableEntityPosition));
+            float clickableGroupHeight = (float) this.clickableGroupHeight;
+            PacketSenderExecutor.execute(viewers, () -> {
+                PacketGroup spawnPackets = PacketSenderExecutor.createOnce(
+                        () -> newClickableEntitySpawnPackets(clickableEntityPosition, clickableGroupHeight));
+                viewers.sendPackets(clickableEntity, spawnPackets);
             });
         }
     }
@@ -97,8 +199,8 @@ public abstract class ClickableLineTracker<T extends Viewer> extends LineTracker
     @Override
     protected void sendDestroyPackets(Viewers<T> viewers) {
         if (spawnClickableEntity) {
-            PacketSenderExecutor.execute(() -> {
-                viewers.sendPackets(clickableEntity.newDestroyPackets());
+            PacketSenderExecutor.execute(viewers, () -> {
+                viewers.sendDestroyPackets(clickableEntity);
             });
         }
     }
@@ -112,12 +214,15 @@ public abstract class ClickableLineTracker<T extends Viewer> extends LineTracker
             if (spawnClickableEntity) {
                 // Copy for async use
                 PositionCoordinates clickableEntityPosition = getClickableEntityPosition();
-                PacketSenderExecutor.execute(() -> {
-                    viewers.sendPackets(clickableEntity.newSpawnPackets(clickableEntityPosition));
+                float clickableGroupHeight = (float) this.clickableGroupHeight;
+                PacketSenderExecutor.execute(viewers, () -> {
+                    PacketGroup spawnPackets = PacketSenderExecutor.createOnce(
+                            () -> newClickableEntitySpawnPackets(clickableEntityPosition, clickableGroupHeight));
+                    viewers.sendPackets(clickableEntity, spawnPackets);
                 });
             } else {
-                PacketSenderExecutor.execute(() -> {
-                    viewers.sendPackets(clickableEntity.newDestroyPackets());
+                PacketSenderExecutor.execute(viewers, () -> {
+                    viewers.sendDestroyPackets(clickableEntity);
                 });
             }
         }
@@ -128,13 +233,24 @@ public abstract class ClickableLineTracker<T extends Viewer> extends LineTracker
     protected void sendPositionChangePackets(Viewers<T> viewers) {
         if (spawnClickableEntity) {
             // Copy for async use
+            PositionCoordinates previousPositionCoordinates = getPreviousPositionCoordinates();
+            PositionCoordinates previousClickableEntityPosition =
+                    previousPositionCoordinates != null ? previousPositionCoordinates.addY(positionOffsetY) : null;
             PositionCoordinates clickableEntityPosition = getClickableEntityPosition();
-            PacketSenderExecutor.execute(() -> {
-                viewers.sendPackets(clickableEntity.newTeleportPackets(clickableEntityPosition));
+            PacketSenderExecutor.execute(viewers, () -> {
+                sendMovePackets(viewers, clickableEntity, previousClickableEntityPosition, clickableEntityPosition);
             });
         }
     }
 
+    private PacketGroup newClickableEntitySpawnPackets(PositionCoordinates position, float clickableGroupHeight) {
+        if (interactionEntity != null) {
+            return interactionEntity.newSpawnPackets(position, interactionEntityWidth, clickableGroupHeight);
+        } else {
+            return clickableEntity.newSpawnPackets(position);
+        }
+    }
+
     private PositionCoordinates getClickableEntityPosition() {
         return positionCoordinates.addY(positionOffsetY);
     }
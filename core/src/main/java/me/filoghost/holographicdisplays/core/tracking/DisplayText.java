@@ -11,7 +11,6 @@ import me.filoghost.holographicdisplays.core.placeholder.tracking.ActivePlacehol
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Collection;
 import java.util.Objects;
 
 class DisplayText {
@@ -28,6 +27,10 @@ class DisplayText {
         this.placeholderTracker = placeholderTracker;
     }
 
+    boolean containsPlaceholders() {
+        return allowPlaceholders && unreplacedText != null && unreplacedText.containsPlaceholders();
+    }
+
     boolean containsIndividualPlaceholders() {
         if (!allowPlaceholders || unreplacedText == null) {
             return false;
@@ -62,13 +65,13 @@ class DisplayText {
         return globalText;
     }
 
-    public boolean updateReplacements(Collection<TextLineViewer> viewers) {
+    public boolean updateReplacements(ImmutableViewers<TextLineViewer> viewers) {
         boolean changed = false;
 
         if (containsIndividualPlaceholders()) {
             this.globalText = null;
-            for (TextLineViewer viewer : viewers) {
-                if (viewer.updateIndividualText()) {
+            for (int i = 0; i < viewers.size(); i++) {
+                if (viewers.get(i).updateIndividualText()) {
                     changed = true;
                 }
             }
@@ -84,7 +87,7 @@ class DisplayText {
     }
 
     private @Nullable String computeGlobalText() {
-        if (allowPlaceholders && unreplacedText != null && unreplacedText.containsPlaceholders()) {
+        if (containsPlaceholders()) {
             return unreplacedText.replacePlaceholders(null, placeholderTracker);
         } else {
             return unreplacedText != null ? unreplacedText.getString() : null;
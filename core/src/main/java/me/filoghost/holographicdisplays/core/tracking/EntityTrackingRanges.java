@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.core.tracking;
+
+import me.filoghost.fcommons.reflection.ReflectMethod;
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Ambient;
+import org.bukkit.entity.Animals;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.ExperienceOrb;
+import org.bukkit.entity.Ghast;
+import org.bukkit.entity.Item;
+import org.bukkit.entity.ItemFrame;
+import org.bukkit.entity.Monster;
+import org.bukkit.entity.Painting;
+import org.bukkit.entity.Player;
+import org.bukkit.entity.Slime;
+import org.bukkit.entity.WaterMob;
+
+/**
+ * Reads the tracking ranges of entities from the Spigot configuration, the maximum horizontal distance at which the
+ * server sends them to players. The configuration is not available in the API of older versions, in that case the
+ * default values of Spigot are used.
+ */
+final class EntityTrackingRanges {
+
+    private static final ReflectMethod<YamlConfiguration> SPIGOT_CONFIG_METHOD =
+            ReflectMethod.lookup(YamlConfiguration.class, Server.Spigot.class, "getConfig");
+
+    private EntityTrackingRanges() {}
+
+    static int getTrackingRange(Entity entity, World world) {
+        String category;
+        int defaultRange;
+        if (entity instanceof Player) {
+            category = "players";
+            defaultRange = 48;
+        } else if (entity instanceof Monster || entity instanceof Slime || entity instanceof Ghast) {
+            category = "monsters";
+            defaultRange = 48;
+        } else if (entity instanceof Animals || entity instanceof WaterMob || entity instanceof Ambient) {
+            category = "animals";
+            defaultRange = 48;
+        } else if (entity instanceof Item || entity instanceof ExperienceOrb
+                || entity instanceof ItemFrame || entity instanceof Painting) {
+            category = "misc";
+            defaultRange = 32;
+        } else {
+            category = "other";
+            defaultRange = 64;
+        }
+
+        YamlConfiguration spigotConfig = getSpigotConfig();
+        if (spigotConfig == null) {
+            return defaultRange;
+        }
+
+        String worldPath = "world-settings." + world.getName() + ".entity-tracking-range." + category;
+        if (spigotConfig.isInt(worldPath)) {
+            return spigotConfig.getInt(worldPath, defaultRange);
+        }
+        return spigotConfig.getInt("world-settings.default.entity-tracking-range." + category, defaultRange);
+    }
+
+    private static YamlConfiguration getSpigotConfig() {
+        if (!SPIGOT_CONFIG_METHOD.isValid()) {
+            return null;
+        }
+        try {
+            return SPIGOT_CONFIG_METHOD.invoke(Bukkit.spigot());
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.core.tracking;
+
+import me.filoghost.fcommons.reflection.ReflectMethod;
+import me.filoghost.holographicdisplays.nms.common.DisplayEntitySupport;
+import me.filoghost.holographicdisplays.nms.common.EntityID;
+import me.filoghost.holographicdisplays.nms.common.PacketGroup;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entities of the lines riding the entity a hologram is attached to. A mount packet replaces all the passengers of the
+ * vehicle on the client, so it always contains the passengers of the vehicle on the server and all the riding entities
+ * of the hologram, even those not spawned for the viewer (unknown entities are ignored by the client).
+ */
+class HologramPassengers {
+
+    // Not available in the API of older versions, which do not support riding entities anyway
+    @SuppressWarnings("rawtypes")
+    private static final ReflectMethod<List> PASSENGERS_METHOD = ReflectMethod.lookup(List.class, Entity.class, "getPassengers");
+    private static final int[] NO_PASSENGERS = new int[0];
+
+    private final DisplayEntitySupport displayEntitySupport;
+    private final int vehicleEntityID;
+    private final List<EntityID> passengerIDs;
+    private final List<Double> passengerOffsets;
+
+    // Replaced instead of modified when the passengers of the vehicle on the server change, for async use
+    private int[] vehiclePassengerIDs;
+
+    // Viewers that spawned riding entities since the last update, and those mounted in the last update
+    private Map<Player, Viewer> viewersToMount;
+    private Map<Player, Viewer> viewersToMountAgain;
+
+    HologramPassengers(
+            DisplayEntitySupport displayEntitySupport,
+            int vehicleEntityID,
+            List<EntityID> passengerIDs,
+            List<Double> passengerOffsets) {
+        this.displayEntitySupport = displayEntitySupport;
+        this.vehicleEntityID = vehicleEntityID;
+        this.passengerIDs = passengerIDs;
+        this.passengerOffsets = passengerOffsets;
+        this.vehiclePassengerIDs = NO_PASSENGERS;
+        this.viewersToMount = new LinkedHashMap<>();
+        this.viewersToMountAgain = new LinkedHashMap<>();
+    }
+
+    /**
+     * Returns true if the same entities ride the same vehicle, with the same vertical offsets.
+     */
+    boolean hasSameSetup(int vehicleEntityID, List<EntityID> passengerIDs, List<Double> passengerOffsets) {
+        return this.vehicleEntityID == vehicleEntityID
+                && this.passengerIDs.equals(passengerIDs)
+                && this.passengerOffsets.equals(passengerOffsets);
+    }
+
+    /**
+     * Reads the passengers of the vehicle on the server and returns true if they changed. The server then sends them to
+     * the viewers with a mount packet, which dismounts the riding entities, so they must be mounted again.
+     */
+    boolean updateVehiclePassengers(Entity vehicle) {
+        List<?> vehiclePassengers = getPassengers(vehicle);
+        int size = vehiclePassengers.size();
+        if (size == vehiclePassengerIDs.length) {
+            boolean changed = false;
+            for (int i = 0; i < size && !changed; i++) {
+                changed = ((Entity) vehiclePassengers.get(i)).getEntityId() != vehiclePassengerIDs[i];
+            }
+            if (!changed) {
+                return false;
+            }
+        }
+
+        int[] vehiclePassengerIDs = new int[size];
+        for (int i = 0; i < size; i++) {
+            vehiclePassengerIDs[i] = ((Entity) vehiclePassengers.get(i)).getEntityId();
+        }
+        this.vehiclePassengerIDs = vehiclePassengerIDs;
+        return true;
+    }
+
+    private static List<?> getPassengers(Entity vehicle) {
+        if (!PASSENGERS_METHOD.isValid()) {
+            return Collections.emptyList();
+        }
+        try {
+            List<?> passengers = PASSENGERS_METHOD.invoke(vehicle);
+            return passengers != null ? passengers : Collections.emptyList();
+        } catch (ReflectiveOperationException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    void addViewersToMount(Viewers<? extends Viewer> viewers) {
+        viewers.forEach(this::addViewerToMount);
+    }
+
+    void addViewerToMount(Viewer viewer) {
+        viewersToMount.putIfAbsent(viewer.getBukkitPlayer(), viewer);
+    }
+
+    boolean hasViewersToMount() {
+        return !viewersToMount.isEmpty() || !viewersToMountAgain.isEmpty();
+    }
+
+    /**
+     * Sends a single mount packet to each viewer that spawned riding entities or must mount them again, after all the
+     * lines are updated. The packet is sent again in the next update, since the vehicle may not be spawned yet: when a
+     * player enters its tracking range or respawns, the server sends the vehicle after the hologram lines.
+     */
+    void sendMountPackets() {
+        if (!hasViewersToMount()) {
+            return;
+        }
+
+        List<Viewer> viewers = new ArrayList<>(viewersToMount.values());
+        for (Viewer viewer : viewersToMountAgain.values()) {
+            if (!viewersToMount.containsKey(viewer.getBukkitPlayer())) {
+                viewers.add(viewer);
+            }
+        }
+
+        // Swap the maps, the viewers mounted now are mounted again in the next update
+        Map<Player, Viewer> mountedViewers = viewersToMount;
+        viewersToMount = viewersToMountAgain;
+        viewersToMount.clear();
+        viewersToMountAgain = mountedViewers;
+
+        // Copy for async use
+        int[] vehiclePassengerIDs = this.vehiclePassengerIDs;
+        Viewers<Viewer> mountViewers = new ImmutableViewers<>(viewers);
+        PacketSenderExecutor.execute(mountViewers, () -> {
+            PacketGroup mountPackets = PacketSenderExecutor.createOnce(
+                    () -> displayEntitySupport.newMountPackets(vehicleEntityID, vehiclePassengerIDs, passengerIDs));
+            mountViewers.sendPackets(null, mountPackets); // Concerns the vehicle and all the passengers
+        });
+    }
+
+}
@@ -0,0 +1,686 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.core.tracking;
+
+import me.filoghost.holographicdisplays.core.CoreGlobalConfig;
+import me.filoghost.holographicdisplays.core.base.BaseHologram;
+import me.filoghost.holographicdisplays.core.base.ImmutablePosition;
+import me.filoghost.holographicdisplays.core.tick.CachedPlayer;
+import me.filoghost.holographicdisplays.nms.common.EntityID;
+import me.filoghost.holographicdisplays.nms.common.DisplayEntitySupport;
+import me.filoghost.holographicdisplays.nms.common.NMSManager;
+import me.filoghost.holographicdisplays.nms.common.entity.RidingNMSPacketEntity;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which players can see a hologram and shares the result with the trackers of its lines. All the lines of a
+ * hologram are in the same world, have the same X and Z coordinates and the same visibility settings, so the checks
+ * are done once per player instead of once per player and line. Each line tracker then only compares the distance of
+ * the player with its own view range.
+ */
+class HologramTracker {
+
+    private static final double NOT_TRACKABLE = Double.POSITIVE_INFINITY;
+
+    private static final Comparator<LineTracker<?>> TOP_TO_BOTTOM = Comparator.comparingDouble(
+            (LineTracker<?> lineTracker) -> lineTracker.getLine().getCoordinates().getY()).reversed();
+
+    private final BaseHologram hologram;
+    private final NMSManager nmsManager;
+    private final List<LineTracker<?>> lineTrackers;
+
+    // Players in range of at least one line, which may be viewers of the line trackers
+    private final Map<Player, CachedPlayer> trackedPlayers;
+
+    // Players that moved near this hologram or whose visibility changed since the last update, added by the manager
+    private final List<CachedPlayer> playersToCheck;
+
+    // Results of the last check, reused across updates
+    private final List<CachedPlayer> checkedPlayers;
+    private double[] checkedPlayerDistances;
+
+    private boolean inLoadedChunk;
+    private int lastVisibilitySettingsVersion;
+    private int lastPriority;
+    private ImmutablePosition lastPosition;
+    private double viewRange;
+    private double viewRangeMargin;
+    private boolean viewRangeChanged;
+    private boolean lineTrackersAdded;
+    private boolean lineGroupsChanged;
+
+    // Only used while attached to an entity
+    private boolean attachedEntityValid;
+    private Entity trackingRangeEntity;
+    private World trackingRangeWorld;
+    private int trackingRange;
+    private @Nullable HologramPassengers passengers;
+    private boolean movedByClient;
+
+    private boolean markedForUpdate;
+    private boolean requiresUpdateEveryTick;
+    private int avoidedSpawnCycles;
+
+    // Position currently stored in the spatial index of the tracker manager
+    private World indexedWorld;
+    private ImmutablePosition indexedPosition;
+
+    HologramTracker(BaseHologram hologram, NMSManager nmsManager) {
+        this.hologram = hologram;
+        this.nmsManager = nmsManager;
+        this.attachedEntityValid = true;
+        this.lineTrackers = new ArrayList<>();
+        this.trackedPlayers = new HashMap<>();
+        this.playersToCheck = new ArrayList<>();
+        this.checkedPlayers = new ArrayList<>();
+        this.checkedPlayerDistances = new double[16];
+    }
+
+    BaseHologram getHologram() {
+        return hologram;
+    }
+
+    void addLineTracker(LineTracker<?> lineTracker) {
+        lineTrackers.add(lineTracker);
+        lineTrackersAdded = true; // The new tracker must receive all the players in range
+    }
+
+    boolean shouldBeRemoved() {
+        return lineTrackers.isEmpty();
+    }
+
+    /**
+     * Returns true if the tracker was not already marked for update.
+     */
+    boolean markForUpdate() {
+        if (markedForUpdate) {
+            return false;
+        }
+        markedForUpdate = true;
+        return true;
+    }
+
+    /**
+     * Returns true if the tracker must be updated in the next tick even if nothing changed, for example to refresh
+     * placeholders.
+     */
+    boolean requiresUpdateEveryTick() {
+        return requiresUpdateEveryTick;
+    }
+
+    void addPlayerToCheck(CachedPlayer player) {
+        // The same player may be added twice in a row if the cells around its old and new position overlap
+        int size = playersToCheck.size();
+        if (size == 0 || playersToCheck.get(size - 1) != player) {
+            playersToCheck.add(player);
+        }
+    }
+
+    void updateSpatialIndex(SpatialIndex<HologramTracker> hologramTrackerIndex) {
+        World world = hologram.getWorldIfLoaded();
+        ImmutablePosition position = hologram.getPosition();
+        if (world == indexedWorld && position == indexedPosition) {
+            return; // Reference comparison is enough, the position is replaced only when it changes
+        }
+
+        indexedWorld = world;
+        indexedPosition = position;
+        if (world != null) {
+            hologramTrackerIndex.put(this, world, position.getX(), position.getZ());
+        } else {
+            hologramTrackerIndex.remove(this);
+        }
+    }
+
+    void update(
+            SpatialIndex<CachedPlayer> playerIndex,
+            @Nullable SpawnScheduler spawnScheduler,
+            int maxViewRange,
+            boolean checkAllPlayers) {
+        markedForUpdate = false;
+        avoidedSpawnCycles = 0;
+
+        double viewRangeMargin = hologram.getViewRangeMargin();
+        if (viewRangeMargin < 0) {
+            viewRangeMargin = CoreGlobalConfig.viewRangeMargin;
+        }
+
+        Entity attachedEntity = hologram.getAttachedEntity();
+        if (attachedEntity != null) {
+            maxViewRange = updateAttachedEntity(attachedEntity, maxViewRange, viewRangeMargin);
+        } else {
+            attachedEntityValid = true;
+        }
+
+        double viewRange = 0;
+        boolean linesChanged = lineTrackersAdded;
+        boolean containsTextDisplays = false;
+        boolean containsInteractionEntities = false;
+
+        // Micro-optimization, don't use an Iterator to remove deleted trackers (method called frequently)
+        for (int i = 0; i < lineTrackers.size(); i++) {
+            LineTracker<?> lineTracker = lineTrackers.get(i);
+
+            // Remove deleted trackers
+            if (lineTracker.shouldBeRemoved()) {
+                lineTrackers.remove(i);
+                i--;
+                lineTracker.onRemoval();
+                linesChanged = true;
+                continue;
+            }
+
+            if (lineTracker.getLine().hasChanged()) {
+                linesChanged = true;
+            }
+            if (lineTracker instanceof TextLineTracker && ((TextLineTracker) lineTracker).isTextDisplay()) {
+                containsTextDisplays = true;
+            }
+            if (lineTracker instanceof ClickableLineTracker && ((ClickableLineTracker<?>) lineTracker).isInteractionEntity()) {
+                containsInteractionEntities = true;
+            }
+
+            lineTracker.updateViewRange();
+            viewRange = Math.max(viewRange, lineTracker.getEffectiveViewRange(maxViewRange));
+        }
+
+        if (linesChanged && (containsTextDisplays || containsInteractionEntities)) {
+            // Sort the lines from top to bottom, so that the trackers of collapsed lines are updated before the tracker
+            // rendering their text
+            lineTrackers.sort(TOP_TO_BOTTOM);
+            if (containsTextDisplays) {
+                updateCollapsedTextLines();
+            }
+            if (containsInteractionEntities) {
+                updateClickableGroups();
+            }
+        }
+
+        if (linesChanged && (attachedEntity != null || passengers != null)) {
+            updatePassengers(attachedEntity);
+        }
+        if (passengers != null && attachedEntityValid && passengers.updateVehiclePassengers(attachedEntity)) {
+            // The riding entities are replaced on the clients by the new passengers sent by the server
+            for (int i = 0; i < lineTrackers.size(); i++) {
+                lineTrackers.get(i).mountViewersAgain();
+            }
+        }
+
+        if (viewRange != this.viewRange || viewRangeMargin != this.viewRangeMargin) {
+            this.viewRange = viewRange;
+            this.viewRangeMargin = viewRangeMargin;
+            viewRangeChanged = true;
+        }
+
+        checkPlayers(playerIndex, checkAllPlayers);
+
+        int priority = hologram.getPriority();
+        if (priority != lastPriority) {
+            lastPriority = priority;
+            if (spawnScheduler != null) {
+                // The players near the hologram may now see it instead of other holograms, or the opposite
+                for (CachedPlayer player : trackedPlayers.values()) {
+                    spawnScheduler.reschedule(player);
+                }
+            }
+        }
+
+        // Attached holograms follow the entity every tick
+        requiresUpdateEveryTick = attachedEntity != null;
+        for (int i = 0; i < lineTrackers.size(); i++) {
+            LineTracker<?> lineTracker = lineTrackers.get(i);
+            lineTracker.update(this, spawnScheduler, maxViewRange);
+            if (lineTracker.requiresUpdateNextTick()) {
+                requiresUpdateEveryTick = true;
+            }
+        }
+
+        if (passengers != null) {
+            passengers.sendMountPackets();
+            if (passengers.hasViewersToMount()) {
+                requiresUpdateEveryTick = true;
+            }
+        }
+
+        playersToCheck.clear();
+        checkedPlayers.clear();
+    }
+
+    /**
+     * Moves the hologram above the attached entity and returns the maximum view range of the lines. The lines must
+     * disappear before the attached entity and appear after it, so that the entity is spawned again for a viewer only
+     * together with the lines mounted on it, therefore the view range including the margin and the distance from the
+     * entity cannot exceed the tracking range of the entity.
+     */
+    private int updateAttachedEntity(Entity attachedEntity, int maxViewRange, double viewRangeMargin) {
+        // The lines are hidden while the entity is dead or unloaded, and are spawned again with it
+        attachedEntityValid = attachedEntity.isValid();
+        if (!attachedEntityValid) {
+            return maxViewRange;
+        }
+
+        // Lines moved by the client only need an approximate position for the view range checks
+        int followDistance = movedByClient ? 1 : 0;
+        hologram.followAttachedEntity(followDistance);
+
+        World world = attachedEntity.getWorld();
+        if (attachedEntity != trackingRangeEntity || world != trackingRangeWorld) {
+            trackingRangeEntity = attachedEntity;
+            trackingRangeWorld = world;
+            trackingRange = EntityTrackingRanges.getTrackingRange(attachedEntity, world);
+        }
+        return Math.max(Math.min(maxViewRange, trackingRange - (int) Math.ceil(viewRangeMargin) - followDistance), 1);
+    }
+
+    /**
+     * Display entities ride the attached entity, displaced vertically to keep their position above it, while the
+     * other entities are moved by the server. Lines that ride the entity are spawned again when the passengers change,
+     * to mount or dismount them and to send the updated passengers to all the viewers.
+     */
+    private void updatePassengers(@Nullable Entity attachedEntity) {
+        List<EntityID> passengerIDs = new ArrayList<>();
+        List<Double> passengerOffsets = new ArrayList<>();
+        DisplayEntitySupport displayEntitySupport = nmsManager.getDisplayEntitySupport();
+        boolean movedByClient = attachedEntity != null && displayEntitySupport != null;
+        if (movedByClient) {
+            // The bottom of the hologram is right above the attached entity, near its riding position
+            double bottomY = hologram.getPosition().getY() - hologram.getLines().getHeight();
+            for (int i = 0; i < lineTrackers.size(); i++) {
+                LineTracker<?> lineTracker = lineTrackers.get(i);
+                RidingNMSPacketEntity ridingEntity = lineTracker.getRidingEntity();
+                if (ridingEntity != null) {
+                    passengerIDs.add(ridingEntity.getID());
+                    // Rounded to ignore floating point errors, the offsets change only when the lines change
+                    passengerOffsets.add(Math.round((lineTracker.getLine().getCoordinates().getY() - bottomY) * 1000) / 1000.0);
+                }
+                if (!isMovedByClient(lineTracker)) {
+                    movedByClient = false;
+                }
+            }
+        }
+        this.movedByClient = movedByClient;
+
+        HologramPassengers passengers;
+        if (passengerIDs.isEmpty()) {
+            if (this.passengers == null) {
+                return;
+            }
+            passengers = null;
+        } else {
+            int vehicleEntityID = attachedEntity.getEntityId();
+            if (this.passengers != null && this.passengers.hasSameSetup(vehicleEntityID, passengerIDs, passengerOffsets)) {
+                return;
+            }
+            passengers = new HologramPassengers(displayEntitySupport, vehicleEntityID, passengerIDs, passengerOffsets);
+        }
+
+        resetViewersAndSendDestroyPackets();
+        lineGroupsChanged = true;
+        this.passengers = passengers;
+
+        int passengerIndex = 0;
+        for (int i = 0; i < lineTrackers.size(); i++) {
+            LineTracker<?> lineTracker = lineTrackers.get(i);
+            if (passengers != null && lineTracker.getRidingEntity() != null) {
+                lineTracker.setPassengers(passengers, passengerOffsets.get(passengerIndex++));
+            } else {
+                lineTracker.setPassengers(null, 0);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the line rides the attached entity and does not need its exact position on the server, which is
+     * used to detect clicks and pickups.
+     */
+    private static boolean isMovedByClient(LineTracker<?> lineTracker) {
+        if (lineTracker.getRidingEntity() == null) {
+            return false;
+        }
+        if (lineTracker instanceof ClickableLineTracker && ((ClickableLineTracker<?>) lineTracker).getLine().hasClickCallback()) {
+            return false;
+        }
+        return !(lineTracker instanceof ItemLineTracker) || !((ItemLineTracker) lineTracker).getLine().hasPickupCallback();
+    }
+
+    /**
+     * Contiguous text lines with the same view range displayed by text display entities are collapsed into the entity
+     * of the bottom line, since the text of display entities grows upwards.
+     */
+    private void updateCollapsedTextLines() {
+        List<List<TextLineTracker>> groups = new ArrayList<>();
+        List<TextLineTracker> group = null;
+        for (int i = 0; i < lineTrackers.size(); i++) {
+            LineTracker<?> lineTracker = lineTrackers.get(i);
+            if (!(lineTracker instanceof TextLineTracker) || !((TextLineTracker) lineTracker).isTextDisplay()) {
+                group = null; // Other lines interrupt the group
+                continue;
+            }
+
+            TextLineTracker textLineTracker = (TextLineTracker) lineTracker;
+            if (group == null || group.get(0).getViewRange() != textLineTracker.getViewRange()) {
+                group = new ArrayList<>();
+                groups.add(group);
+            }
+            group.add(textLineTracker);
+        }
+
+        boolean groupsChanged = false;
+        for (List<TextLineTracker> textLineTrackers : groups) {
+            if (!isCollapsed(textLineTrackers)) {
+                groupsChanged = true;
+                break;
+            }
+        }
+        if (!groupsChanged) {
+            return;
+        }
+
+        // The entities must be destroyed before changing the line rendering the text, then they are spawned again
+        resetViewersAndSendDestroyPackets();
+        lineGroupsChanged = true;
+
+        for (List<TextLineTracker> textLineTrackers : groups) {
+            int lastIndex = textLineTrackers.size() - 1;
+            TextLineTracker renderingLineTracker = textLineTrackers.get(lastIndex);
+            renderingLineTracker.setCollapsedLines(lastIndex > 0 ? new ArrayList<>(textLineTrackers.subList(0, lastIndex)) : null);
+            for (int i = 0; i < lastIndex; i++) {
+                textLineTrackers.get(i).setCollapsedInto(renderingLineTracker);
+            }
+        }
+    }
+
+    private static boolean isCollapsed(List<TextLineTracker> textLineTrackers) {
+        int lastIndex = textLineTrackers.size() - 1;
+        TextLineTracker renderingLineTracker = textLineTrackers.get(lastIndex);
+        if (renderingLineTracker.getCollapsedInto() != null) {
+            return false;
+        }
+
+        List<TextLineTracker> collapsedLines = renderingLineTracker.getCollapsedLines();
+        if (lastIndex == 0) {
+            return collapsedLines == null;
+        }
+        return collapsedLines != null && collapsedLines.equals(textLineTrackers.subList(0, lastIndex));
+    }
+
+    /**
+     * Contiguous lines with a click callback and the same view range share a single interaction entity, spawned by the
+     * bottom line and as tall as the whole group. The clicked line is then found from the height of the hit.
+     */
+    private void updateClickableGroups() {
+        List<List<ClickableLineTracker<?>>> groups = new ArrayList<>();
+        List<ClickableLineTracker<?>> group = null;
+        int groupedLineTrackers = 0;
+        for (int i = 0; i < lineTrackers.size(); i++) {
+            LineTracker<?> lineTracker = lineTrackers.get(i);
+            if (!(lineTracker instanceof ClickableLineTracker)) {
+                group = null; // Other lines interrupt the group
+                continue;
+            }
+
+            ClickableLineTracker<?> clickableLineTracker = (ClickableLineTracker<?>) lineTracker;
+            if (clickableLineTracker.getClickableGroup() != null) {
+                groupedLineTrackers++;
+            }
+            if (!clickableLineTracker.isInteractionEntity() || !clickableLineTracker.getLine().hasClickCallback()) {
+                group = null;
+                continue;
+            }
+
+            if (group == null || group.get(0).getViewRange() != clickableLineTracker.getViewRange()) {
+                group = new ArrayList<>();
+                groups.add(group);
+            }
+            group.add(clickableLineTracker);
+        }
+
+        boolean groupsChanged = groupedLineTrackers != groups.size();
+        for (int i = 0; i < groups.size() && !groupsChanged; i++) {
+            List<ClickableLineTracker<?>> clickableLineTrackers = groups.get(i);
+            ClickableLineTracker<?> spawningLineTracker = clickableLineTrackers.get(clickableLineTrackers.size() - 1);
+            groupsChanged = !clickableLineTrackers.equals(spawningLineTracker.getClickableGroup())
+                    || getHeight(clickableLineTrackers) != spawningLineTracker.getClickableGroupHeight();
+        }
+        if (!groupsChanged) {
+            return;
+        }
+
+        // The entities must be destroyed before changing their size or the line spawning them
+        resetViewersAndSendDestroyPackets();
+        lineGroupsChanged = true;
+
+        for (int i = 0; i < lineTrackers.size(); i++) {
+            LineTracker<?> lineTracker = lineTrackers.get(i);
+            if (lineTracker instanceof ClickableLineTracker) {
+                ((ClickableLineTracker<?>) lineTracker).setClickableGroup(null, 0);
+            }
+        }
+        for (List<ClickableLineTracker<?>> clickableLineTrackers : groups) {
+            ClickableLineTracker<?> spawningLineTracker = clickableLineTrackers.get(clickableLineTrackers.size() - 1);
+            spawningLineTracker.setClickableGroup(clickableLineTrackers, getHeight(clickableLineTrackers));
+        }
+    }
+
+    private static double getHeight(List<ClickableLineTracker<?>> clickableLineTrackers) {
+        ClickableLineTracker<?> topLineTracker = clickableLineTrackers.get(0);
+        ClickableLineTracker<?> bottomLineTracker = clickableLineTrackers.get(clickableLineTrackers.size() - 1);
+        return topLineTracker.getLine().getCoordinates().getY()
+                + topLineTracker.getLine().getHeight()
+                - bottomLineTracker.getLine().getCoordinates().getY();
+    }
+
+    private void checkPlayers(SpatialIndex<CachedPlayer> playerIndex, boolean checkAllPlayers) {
+        if (!hologram.isInLoadedChunk() || !attachedEntityValid) {
+            if (inLoadedChunk) {
+                inLoadedChunk = false;
+                resetViewersAndSendDestroyPackets();
+            }
+            return;
+        }
+
+        if (!inLoadedChunk) {
+            // The chunk was just loaded or the attached entity is valid again, check all players
+            inLoadedChunk = true;
+            checkAllPlayers = true;
+        }
+
+        int visibilitySettingsVersion = hologram.getVisibilitySettings().getVersion();
+        if (visibilitySettingsVersion != lastVisibilitySettingsVersion) {
+            lastVisibilitySettingsVersion = visibilitySettingsVersion;
+            checkAllPlayers = true;
+        }
+
+        ImmutablePosition position = hologram.getPosition();
+        if (position != lastPosition) {
+            lastPosition = position;
+            checkAllPlayers = true;
+        }
+
+        if (viewRangeChanged) {
+            viewRangeChanged = false;
+            checkAllPlayers = true;
+        }
+
+        if (lineTrackersAdded) {
+            lineTrackersAdded = false;
+            checkAllPlayers = true;
+        }
+
+        if (lineGroupsChanged) {
+            lineGroupsChanged = false;
+            checkAllPlayers = true;
+        }
+
+        if (checkAllPlayers) {
+            checkAllPlayers(playerIndex, position);
+        } else {
+            // Only players that moved near the hologram or whose visibility changed can be added or removed
+            // Micro-optimization, don't use for-each loop to avoid creating a new Iterator (method called frequently)
+            int size = playersToCheck.size();
+            for (int i = 0; i < size; i++) {
+                checkPlayer(playersToCheck.get(i), position);
+            }
+        }
+    }
+
+    private void checkAllPlayers(SpatialIndex<CachedPlayer> playerIndex, ImmutablePosition position) {
+        // First check currently tracked players, which may be outside the cells near the hologram
+        for (CachedPlayer player : trackedPlayers.values()) {
+            addCheckedPlayer(player, getDistance(player, position));
+        }
+        int trackedPlayersCount = checkedPlayers.size();
+
+        // Then check the other players, only those in the cells near the hologram can be in range
+        World world = hologram.getWorldIfLoaded();
+        if (world != null) {
+            List<CachedPlayer> nearbyPlayers = playerIndex.getElementsNear(
+                    world,
+                    SpatialIndex.toCellCoordinate(position.getX()),
+                    SpatialIndex.toCellCoordinate(position.getZ()),
+                    SpatialIndex.toCellRadius(viewRange));
+
+            int size = nearbyPlayers.size();
+            for (int i = 0; i < size; i++) {
+                CachedPlayer player = nearbyPlayers.get(i);
+                if (!trackedPlayers.containsKey(player.getBukkitPlayer())) {
+                    addCheckedPlayer(player, getDistance(player, position));
+                }
+            }
+        }
+
+        // Finally update the tracked players, after iterating them
+        for (int i = 0; i < checkedPlayers.size(); i++) {
+            updateTrackedPlayer(checkedPlayers.get(i), checkedPlayerDistances[i], i < trackedPlayersCount);
+        }
+    }
+
+    private void checkPlayer(CachedPlayer player, ImmutablePosition position) {
+        double distance = getDistance(player, position);
+        addCheckedPlayer(player, distance);
+        updateTrackedPlayer(player, distance, trackedPlayers.containsKey(player.getBukkitPlayer()));
+    }
+
+    private void updateTrackedPlayer(CachedPlayer player, double distance, boolean tracked) {
+        // Players are removed only beyond the margin, to avoid removing and adding them again when moving on the edge
+        if (distance <= viewRange) {
+            if (!tracked) {
+                trackedPlayers.put(player.getBukkitPlayer(), player);
+            }
+        } else if (distance > viewRange + viewRangeMargin && tracked) {
+            trackedPlayers.remove(player.getBukkitPlayer());
+        }
+    }
+
+    /**
+     * Returns the distance used to compare the player with the view range, the maximum between the distances on the
+     * X and Z axes, or {@link #NOT_TRACKABLE} if the player cannot see the hologram regardless of the distance. The
+     * horizontal distance is used instead while attached to an entity, like the entity tracker of the server.
+     */
+    private double getDistance(CachedPlayer player, ImmutablePosition position) {
+        Location playerLocation = player.getLocation();
+        if (playerLocation == null || playerLocation.getWorld() != hologram.getWorldIfLoaded()) {
+            return NOT_TRACKABLE;
+        }
+
+        double diffX = Math.abs(playerLocation.getX() - position.getX());
+        double diffZ = Math.abs(playerLocation.getZ() - position.getZ());
+        double distance = hologram.getAttachedEntity() != null ? Math.sqrt(diffX * diffX + diffZ * diffZ) : Math.max(diffX, diffZ);
+
+        double playerViewRange = Math.min(viewRange, player.getMaxViewRange());
+        if (distance > playerViewRange + viewRangeMargin || !hologram.getVisibilitySettings().isVisibleTo(player.getBukkitPlayer())) {
+            return NOT_TRACKABLE;
+        }
+        return distance;
+    }
+
+    private void addCheckedPlayer(CachedPlayer player, double distance) {
+        int index = checkedPlayers.size();
+        if (index == checkedPlayerDistances.length) {
+            checkedPlayerDistances = Arrays.copyOf(checkedPlayerDistances, index * 2);
+        }
+        checkedPlayers.add(player);
+        checkedPlayerDistances[index] = distance;
+    }
+
+    /**
+     * Returns the number of players checked in the current update. Line trackers must only add or remove these
+     * players, the others did not change.
+     */
+    int getCheckedPlayersCount() {
+        return checkedPlayers.size();
+    }
+
+    CachedPlayer getCheckedPlayer(int index) {
+        return checkedPlayers.get(index);
+    }
+
+    double getCheckedPlayerDistance(int index) {
+        return checkedPlayerDistances[index];
+    }
+
+    double getViewRange() {
+        return viewRange;
+    }
+
+    /**
+     * Returns the additional distance beyond the view range of each line that a viewer must reach to be removed.
+     */
+    double getViewRangeMargin() {
+        return viewRangeMargin;
+    }
+
+    void onSpawnCycleAvoided() {
+        avoidedSpawnCycles++;
+    }
+
+    /**
+     * Returns the number of viewers that moved beyond the view range of a line and then back in range in the last
+     * update, without being removed because of the view range margin.
+     */
+    int getAvoidedSpawnCycles() {
+        return avoidedSpawnCycles;
+    }
+
+    void resetViewersAndSendDestroyPackets() {
+        trackedPlayers.clear();
+        for (int i = 0; i < lineTrackers.size(); i++) {
+            lineTrackers.get(i).resetViewersAndSendDestroyPackets();
+        }
+    }
+
+    void removeTrackedPlayer(Player player) {
+        trackedPlayers.remove(player);
+    }
+
+    boolean isTrackedPlayer(CachedPlayer player) {
+        return trackedPlayers.containsKey(player.getBukkitPlayer());
+    }
+
+    /**
+     * Returns true if the position is within the distance at which the tracker removes its viewers, as of its last
+     * update. Players beyond it cannot become viewers, and only need to be checked if they are tracked already.
+     */
+    boolean isInDespawnRange(World world, double x, double z) {
+        if (world != indexedWorld) {
+            return false;
+        }
+        double despawnRange = viewRange + viewRangeMargin;
+        return Math.abs(x - indexedPosition.getX()) <= despawnRange && Math.abs(z - indexedPosition.getZ()) <= despawnRange;
+    }
+
+}
@@ -7,19 +7,47 @@ package me.filoghost.holographicdisplays.core.tracking;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.function.Consumer;
 
 public class ImmutableViewers<T extends Viewer> implements Viewers<T> {
 
-    private final Collection<T> viewers;
+    private final List<T> viewers;
+    private final long packetSenderMask;
 
     public ImmutableViewers(Collection<T> viewers) {
         this.viewers = new ArrayList<>(viewers);
+        long packetSenderMask = 0;
+        for (int i = 0; i < this.viewers.size(); i++) {
+            packetSenderMask |= this.viewers.get(i).getPacketSenderMask();
+        }
+        this.packetSenderMask = packetSenderMask;
     }
 
     @Override
     public void forEach(Consumer<? super T> action) {
-        viewers.forEach(action);
+        for (int i = 0; i < viewers.size(); i++) {
+            T viewer = viewers.get(i);
+            if (viewer.isHandledByCurrentThread()) {
+                action.accept(viewer);
+            }
+        }
+    }
+
+    @Override
+    public long getPacketSenderMask() {
+        return packetSenderMask;
+    }
+
+    /**
+     * Returns the number of all the viewers, regardless of the current thread.
+     */
+    public int size() {
+        return viewers.size();
+    }
+
+    public T get(int index) {
+        return viewers.get(index);
     }
 
 }
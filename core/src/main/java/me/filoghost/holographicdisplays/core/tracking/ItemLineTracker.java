@@ -6,23 +6,33 @@
 package me.filoghost.holographicdisplays.core.tracking;
 
 import me.filoghost.holographicdisplays.common.PositionCoordinates;
+import me.filoghost.holographicdisplays.core.CoreGlobalConfig;
 import me.filoghost.holographicdisplays.core.base.BaseItemHologramLine;
 import me.filoghost.holographicdisplays.core.listener.LineClickListener;
 import me.filoghost.holographicdisplays.core.tick.CachedPlayer;
+import me.filoghost.holographicdisplays.nms.common.DisplayEntitySupport;
 import me.filoghost.holographicdisplays.nms.common.NMSManager;
+import me.filoghost.holographicdisplays.nms.common.PacketGroup;
+import me.filoghost.holographicdisplays.nms.common.entity.ItemDisplayNMSPacketEntity;
 import me.filoghost.holographicdisplays.nms.common.entity.ItemNMSPacketEntity;
+import me.filoghost.holographicdisplays.nms.common.entity.RidingNMSPacketEntity;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.MustBeInvokedByOverriders;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.List;
 import java.util.Objects;
 
 public class ItemLineTracker extends ClickableLineTracker<Viewer> {
 
+    // Item displays do not spin like dropped items: they are rotated in steps, interpolated by the client
+    static final int ROTATION_STEP_TICKS = 30;
+    static final float ROTATION_STEP_DEGREES = 90;
+
     private final BaseItemHologramLine line;
     private final ItemNMSPacketEntity itemEntity;
+    private final @Nullable ItemDisplayNMSPacketEntity itemDisplayEntity;
 
     private ItemStack itemStack;
     private boolean itemStackChanged;
@@ -30,13 +40,27 @@ public class ItemLineTracker extends ClickableLineTracker<Viewer> {
     private boolean spawnItemEntity;
     private boolean spawnItemEntityChanged;
 
+    private float rotation;
+
+    // Reused while the viewers don't change, the task reads the latest rotation when executed
+    private volatile float rotationToSend;
+    private @Nullable Runnable rotationTask;
+    private @Nullable Viewers<Viewer> rotationTaskViewers;
+
     public ItemLineTracker(
             BaseItemHologramLine line,
             NMSManager nmsManager,
             LineClickListener lineClickListener) {
         super(line, nmsManager, lineClickListener);
         this.line = line;
-        this.itemEntity = nmsManager.newItemPacketEntity();
+        DisplayEntitySupport displayEntitySupport = nmsManager.getDisplayEntitySupport();
+        if (CoreGlobalConfig.itemDisplays && displayEntitySupport != null) {
+            this.itemDisplayEntity = displayEntitySupport.newItemDisplayPacketEntity(CoreGlobalConfig.movementUpdateInterval);
+            this.itemEntity = itemDisplayEntity;
+        } else {
+            this.itemDisplayEntity = null;
+            this.itemEntity = nmsManager.newItemPacketEntity();
+        }
     }
 
     @Override
@@ -46,16 +70,59 @@ public class ItemLineTracker extends ClickableLineTracker<Viewer> {
 
     @MustBeInvokedByOverriders
     @Override
-    protected void update(List<CachedPlayer> onlinePlayers, List<CachedPlayer> movedPlayers, int maxViewRange) {
-        super.update(onlinePlayers, movedPlayers, maxViewRange);
+    protected void update(HologramTracker hologramTracker, @Nullable SpawnScheduler spawnScheduler, int maxViewRange) {
+        super.update(hologramTracker, spawnScheduler, maxViewRange);
 
         if (spawnItemEntity && hasViewers() && line.hasPickupCallback()) {
-            for (Viewer viewer : getViewers()) {
-                invokePickupIfNecessary(viewer);
+            ImmutableViewers<Viewer> viewers = getViewersSnapshot();
+            for (int i = 0; i < viewers.size(); i++) {
+                invokePickupIfNecessary(viewers.get(i));
             }
         }
     }
 
+    @Override
+    protected @Nullable RidingNMSPacketEntity getRidingEntity() {
+        return itemDisplayEntity;
+    }
+
+    boolean isItemDisplay() {
+        return itemDisplayEntity != null;
+    }
+
+    /**
+     * Sets the rotation of the item display, sent to the viewers with an interpolation of one rotation step. Called by
+     * the manager for all the item displays at once every {@link #ROTATION_STEP_TICKS} ticks, instead of updating the
+     * tracker every tick.
+     */
+    void rotate(float rotation) {
+        this.rotation = rotation; // Also used when spawning the item to new viewers
+        if (!spawnItemEntity || !hasViewers()) {
+            return;
+        }
+
+        // Copy for async use, a rotation not sent yet is replaced by the new one
+        rotationToSend = rotation;
+        Viewers<Viewer> viewers = getViewersSnapshot();
+        if (rotationTask == null || rotationTaskViewers != viewers) {
+            rotationTaskViewers = viewers;
+            rotationTask = () -> {
+                PacketGroup rotationPackets = PacketSenderExecutor.createOnce(
+                        () -> itemDisplayEntity.newRotationPackets(rotationToSend, ROTATION_STEP_TICKS));
+                viewers.sendUpdatePackets(itemDisplayEntity, UpdateKind.ROTATION, rotationPackets);
+            };
+        }
+        PacketSenderExecutor.execute(viewers, rotationTask);
+    }
+
+    private PacketGroup newSpawnPackets(PositionCoordinates positionCoordinates, ItemStack itemStack, float rotation) {
+        if (itemDisplayEntity != null) {
+            return itemDisplayEntity.newSpawnPackets(positionCoordinates, itemStack, rotation);
+        } else {
+            return itemEntity.newSpawnPackets(positionCoordinates, itemStack);
+        }
+    }
+
     private void invokePickupIfNecessary(Viewer viewer) {
         Location location = viewer.getLocation();
         Player player = viewer.getBukkitPlayer();
@@ -108,10 +175,12 @@ public class ItemLineTracker extends ClickableLineTracker<Viewer> {
 
         if (spawnItemEntity) {
             // Copy for async use
-            PositionCoordinates positionCoordinates = this.positionCoordinates;
+            PositionCoordinates positionCoordinates = getEntityPositionCoordinates();
             ItemStack itemStack = this.itemStack;
-            PacketSenderExecutor.execute(() -> {
-                viewers.sendPackets(itemEntity.newSpawnPackets(positionCoordinates, itemStack));
+            float rotation = this.rotation;
+            PacketSenderExecutor.execute(viewers, () -> {
+                PacketGroup spawnPackets = PacketSenderExecutor.createOnce(() -> newSpawnPackets(positionCoordinates, itemStack, rotation));
+                viewers.sendPackets(itemEntity, spawnPackets);
             });
         }
     }
@@ -122,8 +191,8 @@ public class ItemLineTracker extends ClickableLineTracker<Viewer> {
         super.sendDestroyPackets(viewers);
 
         if (spawnItemEntity) {
-            PacketSenderExecutor.execute(() -> {
-                viewers.sendPackets(itemEntity.newDestroyPackets());
+            PacketSenderExecutor.execute(viewers, () -> {
+                viewers.sendDestroyPackets(itemEntity);
             });
         }
     }
@@ -136,22 +205,27 @@ public class ItemLineTracker extends ClickableLineTracker<Viewer> {
         if (spawnItemEntityChanged) {
             if (spawnItemEntity) {
                 // Copy for async use
-                PositionCoordinates positionCoordinates = this.positionCoordinates;
+                PositionCoordinates positionCoordinates = getEntityPositionCoordinates();
                 ItemStack itemStack = this.itemStack;
-                PacketSenderExecutor.execute(() -> {
-                    viewers.sendPackets(itemEntity.newSpawnPackets(positionCoordinates, itemStack));
+                float rotation = this.rotation;
+                PacketSenderExecutor.execute(viewers, () -> {
+                    PacketGroup spawnPackets = PacketSenderExecutor.createOnce(
+                            () -> newSpawnPackets(positionCoordinates, itemStack, rotation));
+                    viewers.sendPackets(itemEntity, spawnPackets);
                 });
+                sendRidingPackets(viewers);
             } else {
-                PacketSenderExecutor.execute(() -> {
-                    viewers.sendPackets(itemEntity.newDestroyPackets());
+                PacketSenderExecutor.execute(viewers, () -> {
+                    viewers.sendDestroyPackets(itemEntity);
                 });
             }
         } else if (itemStackChanged) {
             // Only send item changes if full spawn/destroy packets were not sent
             // Copy for async use
             ItemStack itemStack = this.itemStack;
-            PacketSenderExecutor.execute(() -> {
-                viewers.sendPackets(itemEntity.newChangePackets(itemStack));
+            PacketSenderExecutor.execute(viewers, () -> {
+                PacketGroup changePackets = PacketSenderExecutor.createOnce(() -> itemEntity.newChangePackets(itemStack));
+                viewers.sendUpdatePackets(itemEntity, UpdateKind.ITEM, changePackets);
             });
         }
     }
@@ -163,15 +237,16 @@ public class ItemLineTracker extends ClickableLineTracker<Viewer> {
 
         if (spawnItemEntity) {
             // Copy for async use
-            PositionCoordinates positionCoordinates = this.positionCoordinates;
-            PacketSenderExecutor.execute(() -> {
-                viewers.sendPackets(itemEntity.newTeleportPackets(positionCoordinates));
+            PositionCoordinates previousPositionCoordinates = getPreviousEntityPositionCoordinates();
+            PositionCoordinates positionCoordinates = getEntityPositionCoordinates();
+            PacketSenderExecutor.execute(viewers, () -> {
+                sendMovePackets(viewers, itemEntity, previousPositionCoordinates, positionCoordinates);
             });
         }
     }
 
     @Override
-    protected double getViewRange() {
+    protected double getDefaultViewRange() {
         return 16;
     }
 
@@ -6,15 +6,17 @@
 package me.filoghost.holographicdisplays.core.tracking;
 
 import me.filoghost.holographicdisplays.common.PositionCoordinates;
+import me.filoghost.holographicdisplays.core.CoreGlobalConfig;
 import me.filoghost.holographicdisplays.core.base.BaseHologramLine;
 import me.filoghost.holographicdisplays.core.tick.CachedPlayer;
+import me.filoghost.holographicdisplays.nms.common.PacketGroup;
+import me.filoghost.holographicdisplays.nms.common.entity.NMSPacketEntity;
+import me.filoghost.holographicdisplays.nms.common.entity.RidingNMSPacketEntity;
 import org.bukkit.GameMode;
-import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.MustBeInvokedByOverriders;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.Collection;
-import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -23,12 +25,25 @@ public abstract class LineTracker<T extends Viewer> {
 
     private final ConcurrentMap<Player, T> viewers;
 
+    // Copy of the viewers for async use, created again only after they change instead of every time packets are sent
+    private @Nullable ImmutableViewers<T> viewersSnapshot;
+
     private String positionWorldName;
-    protected PositionCoordinates positionCoordinates;
+    protected PositionCoordinates positionCoordinates; // The position known by the viewers
+    private @Nullable PositionCoordinates previousPositionCoordinates;
+    private @Nullable PositionCoordinates pendingPositionCoordinates;
     private boolean positionChanged;
+    private int positionUpdateCooldown;
+
+    private double viewRange;
 
-    private boolean inLoadedChunk;
-    private int lastVisibilitySettingsVersion;
+    // Set while the entity of this line rides the entity the hologram is attached to
+    private @Nullable HologramPassengers passengers;
+    private double ridingOffsetY;
+
+    // Lazy initialization, only used while modifying the viewers
+    private MutableViewers<T> addedViewers;
+    private MutableViewers<T> removedViewers;
 
     protected LineTracker() {
         this.viewers = new ConcurrentHashMap<>();
@@ -46,7 +61,7 @@ public abstract class LineTracker<T extends Viewer> {
     }
 
     @MustBeInvokedByOverriders
-    protected void update(List<CachedPlayer> onlinePlayers, List<CachedPlayer> movedPlayers, int maxViewRange) {
+    protected void update(HologramTracker hologramTracker, @Nullable SpawnScheduler spawnScheduler, int maxViewRange) {
         boolean sendChangesPackets = false;
 
         // First, detect the changes if the flag is on and set it off
@@ -56,6 +71,10 @@ public abstract class LineTracker<T extends Viewer> {
             sendChangesPackets = true;
         }
 
+        if (updatePosition()) {
+            sendChangesPackets = true;
+        }
+
         if (hasViewers()) {
             boolean textChanged = updatePlaceholders();
             if (textChanged) {
@@ -65,110 +84,228 @@ public abstract class LineTracker<T extends Viewer> {
 
         // Then, send the changes (if any) to already tracked players
         if (sendChangesPackets && hasViewers()) {
-            sendChangesPackets(new ImmutableViewers<>(viewers.values()));
+            sendChangesPackets(getViewersSnapshot());
         }
 
         // Finally, add/remove viewers sending them the full spawn/destroy packets
-        modifyViewersAndSendPackets(onlinePlayers, movedPlayers, maxViewRange);
+        modifyViewersAndSendPackets(hologramTracker, spawnScheduler, maxViewRange);
 
         if (sendChangesPackets) {
             clearDetectedChanges();
         }
     }
 
-    protected abstract boolean updatePlaceholders();
-
-    private void modifyViewersAndSendPackets(List<CachedPlayer> onlinePlayers, List<CachedPlayer> movedPlayers, int maxViewRange) {
-        if (!getLine().isInLoadedChunk()) {
-            if (inLoadedChunk) {
-                inLoadedChunk = false;
-                resetViewersAndSendDestroyPackets();
+    /**
+     * Moves the line to the pending position, unless the viewers received a position less than the movement update
+     * interval ago. The intermediate positions of lines moving every tick are skipped, and the client interpolates the
+     * movement between the positions it receives.
+     */
+    private boolean updatePosition() {
+        if (positionUpdateCooldown > 0) {
+            positionUpdateCooldown--;
+            if (hasViewers()) {
+                return false;
             }
-            return;
         }
-
-        boolean checkAllPlayers = false;
-
-        if (!inLoadedChunk) {
-            // The chunk was just loaded, check all players
-            inLoadedChunk = true;
-            checkAllPlayers = true;
+        if (pendingPositionCoordinates == null) {
+            return false;
         }
 
-        int visibilitySettingsVersion = getLine().getVisibilitySettings().getVersion();
-        if (visibilitySettingsVersion != lastVisibilitySettingsVersion) {
-            lastVisibilitySettingsVersion = visibilitySettingsVersion;
-            checkAllPlayers = true;
+        this.previousPositionCoordinates = positionCoordinates;
+        this.positionCoordinates = pendingPositionCoordinates;
+        this.pendingPositionCoordinates = null;
+        this.positionChanged = true;
+        if (hasViewers()) {
+            this.positionUpdateCooldown = CoreGlobalConfig.movementUpdateInterval - 1;
         }
+        return true;
+    }
 
-        if (positionChanged) {
-            checkAllPlayers = true;
-        }
+    protected abstract boolean updatePlaceholders();
 
-        List<CachedPlayer> playersToCheck;
-        if (checkAllPlayers) {
-            playersToCheck = onlinePlayers;
-        } else {
-            playersToCheck = movedPlayers;
-        }
+    /**
+     * Called when the refreshes of a viewer are resumed after some were skipped, returns true if the tracker must be
+     * updated to send them.
+     */
+    protected boolean catchUpSkippedRefreshes(CachedPlayer player) {
+        return false;
+    }
+
+    /**
+     * Returns true if the tracker must be updated every tick, even if the line did not change and no player moved
+     * nearby.
+     */
+    protected boolean requiresUpdateEveryTick() {
+        return false;
+    }
 
-        // Lazy initialization
-        MutableViewers<T> addedPlayers = null;
-        MutableViewers<T> removedPlayers = null;
+    final boolean requiresUpdateNextTick() {
+        // A pending position must be sent even if the line stops moving
+        return pendingPositionCoordinates != null || positionUpdateCooldown > 0 || requiresUpdateEveryTick();
+    }
+
+    private void modifyViewersAndSendPackets(
+            HologramTracker hologramTracker,
+            @Nullable SpawnScheduler spawnScheduler,
+            int maxViewRange) {
+        // The hologram tracker already checked the world, the visibility and the distance of the players
+        double viewRange = getEffectiveViewRange(maxViewRange);
+        double despawnRange = viewRange + hologramTracker.getViewRangeMargin();
 
         // Micro-optimization, don't use for-each loop to avoid creating a new Iterator (method called frequently)
-        int size = playersToCheck.size();
+        int size = hologramTracker.getCheckedPlayersCount();
         for (int i = 0; i < size; i++) {
-            CachedPlayer player = playersToCheck.get(i);
-            Player bukkitPlayer = player.getBukkitPlayer();
-            if (shouldTrackPlayer(player, maxViewRange)) {
-                if (!viewers.containsKey(bukkitPlayer)) {
-                    T viewer = createViewer(player);
-                    viewers.put(bukkitPlayer, viewer);
-                    if (addedPlayers == null) {
-                        addedPlayers = new MutableViewers<>();
+            CachedPlayer player = hologramTracker.getCheckedPlayer(i);
+            double distance = hologramTracker.getCheckedPlayerDistance(i);
+            double playerViewRange = viewRange;
+            double playerDespawnRange = despawnRange;
+            if (player.getMaxViewRange() < viewRange) {
+                // The player cannot see that far, for example because of a low view distance of the client
+                playerViewRange = player.getMaxViewRange();
+                playerDespawnRange = playerViewRange + hologramTracker.getViewRangeMargin();
+            }
+
+            if (distance <= playerViewRange) {
+                T viewer = viewers.get(player.getBukkitPlayer());
+                if (viewer == null) {
+                    if (spawnScheduler != null) {
+                        spawnScheduler.requestSpawn(this, hologramTracker, player, distance);
+                    } else {
+                        addViewer(player, distance);
+                    }
+                } else {
+                    viewer.setDistance(distance);
+                    if (viewer.isInViewRangeMargin()) {
+                        // Back in range without being removed
+                        viewer.setInViewRangeMargin(false);
+                        hologramTracker.onSpawnCycleAvoided();
                     }
-                    addedPlayers.add(viewer);
+                }
+            } else if (distance > playerDespawnRange) {
+                T viewer = viewers.remove(player.getBukkitPlayer());
+                if (viewer != null) {
+                    viewersSnapshot = null;
+                    addRemovedViewer(viewer);
                 }
             } else {
-                if (viewers.containsKey(bukkitPlayer)) {
-                    T viewer = viewers.remove(bukkitPlayer);
-                    if (removedPlayers == null) {
-                        removedPlayers = new MutableViewers<>();
-                    }
-                    removedPlayers.add(viewer);
+                // Between the view range and the margin: existing viewers are kept, but new ones are not added
+                T viewer = viewers.get(player.getBukkitPlayer());
+                if (viewer != null) {
+                    viewer.setDistance(distance);
+                    viewer.setInViewRangeMargin(true);
                 }
             }
         }
 
-        if (addedPlayers != null) {
-            sendSpawnPackets(addedPlayers);
+        if (addedViewers != null) {
+            sendSpawnPackets(addedViewers);
+            sendRidingPackets(addedViewers);
+            addedViewers = null;
         }
-        if (removedPlayers != null) {
-            sendDestroyPackets(removedPlayers);
+        if (removedViewers != null) {
+            sendDestroyPackets(removedViewers);
+            removedViewers = null;
         }
     }
 
-    private boolean shouldTrackPlayer(CachedPlayer player, int maxViewRange) {
-        Location playerLocation = player.getLocation();
-        if (playerLocation == null || playerLocation.getWorld() != getLine().getWorldIfLoaded()) {
-            return false;
+    private void addViewer(CachedPlayer player, double distance) {
+        T viewer = createViewer(player);
+        viewer.setDistance(distance);
+        viewers.put(player.getBukkitPlayer(), viewer);
+        viewersSnapshot = null;
+        player.addTrackedLine(this);
+        if (addedViewers == null) {
+            addedViewers = new MutableViewers<>();
         }
+        addedViewers.add(viewer);
+    }
 
-        double viewRange = getViewRange();
-        if (viewRange > maxViewRange) {
-            viewRange = maxViewRange;
+    /**
+     * Adds a viewer whose spawn was requested to the scheduler, the spawn packets are sent later to all the viewers
+     * added with {@link #sendScheduledSpawnPackets()}.
+     */
+    final void addScheduledViewer(CachedPlayer player, double distance) {
+        addViewer(player, distance);
+    }
+
+    /**
+     * Removes a viewer to make room for a line with a higher priority or nearer to the player.
+     */
+    final void removeViewerAndSendDestroyPackets(CachedPlayer player) {
+        T viewer = viewers.remove(player.getBukkitPlayer());
+        if (viewer == null) {
+            return;
         }
+        viewersSnapshot = null;
+        addRemovedViewer(viewer);
+        sendDestroyPackets(removedViewers);
+        removedViewers = null;
+    }
 
-        double diffX = Math.abs(playerLocation.getX() - positionCoordinates.getX());
-        double diffZ = Math.abs(playerLocation.getZ() - positionCoordinates.getZ());
+    /**
+     * Returns the distance of the player from the line at the last check, or a negative value if it's not a viewer.
+     */
+    final double getViewerDistance(CachedPlayer player) {
+        T viewer = viewers.get(player.getBukkitPlayer());
+        return viewer != null ? viewer.getDistance() : -1;
+    }
+
+    final int getPriority() {
+        return getLine().getHologram().getPriority();
+    }
+
+    final void sendScheduledSpawnPackets() {
+        if (addedViewers != null) {
+            sendSpawnPackets(addedViewers);
+            sendRidingPackets(addedViewers);
+            addedViewers = null;
+        }
+    }
 
-        return diffX <= viewRange
-                && diffZ <= viewRange
-                && getLine().isVisibleTo(player.getBukkitPlayer());
+    private void addRemovedViewer(T viewer) {
+        viewer.getCachedPlayer().removeTrackedLine(this);
+        if (removedViewers == null) {
+            removedViewers = new MutableViewers<>();
+        }
+        removedViewers.add(viewer);
     }
 
-    protected abstract double getViewRange();
+    /**
+     * Must be called before {@link #update(HologramTracker, SpawnScheduler, int)}, since the hologram tracker needs the
+     * view range of all the lines before checking the players.
+     */
+    final void updateViewRange() {
+        // Only read when the line changes, setting the view range of the line or of the hologram marks it as changed
+        if (!getLine().hasChanged()) {
+            return;
+        }
+
+        double viewRange = getLine().getViewRange();
+        if (viewRange < 0) {
+            viewRange = getLine().getHologram().getViewRange();
+        }
+        if (viewRange < 0) {
+            viewRange = getDefaultViewRange();
+        }
+        this.viewRange = viewRange;
+    }
+
+    final double getViewRange() {
+        return viewRange;
+    }
+
+    final double getEffectiveViewRange(int maxViewRange) {
+        double viewRange = this.viewRange;
+        if (viewRange > maxViewRange) {
+            viewRange = maxViewRange;
+        }
+        return viewRange;
+    }
+
+    /**
+     * Returns the view range used if neither the line nor the hologram have one.
+     */
+    protected abstract double getDefaultViewRange();
 
     protected abstract T createViewer(CachedPlayer cachedPlayer);
 
@@ -176,16 +313,30 @@ public abstract class LineTracker<T extends Viewer> {
         return !viewers.isEmpty();
     }
 
-    protected final Collection<T> getViewers() {
-        return viewers.values();
+    /**
+     * Returns an immutable copy of the current viewers, which can be used from the packet sender threads and is reused
+     * until the viewers change. Must be called from the main thread.
+     */
+    protected final ImmutableViewers<T> getViewersSnapshot() {
+        if (viewersSnapshot == null) {
+            viewersSnapshot = new ImmutableViewers<>(viewers.values());
+        }
+        return viewersSnapshot;
     }
 
     protected final boolean isViewer(Player player) {
         return viewers.containsKey(player);
     }
 
-    protected final void removeViewer(Player player) {
-        viewers.remove(player);
+    protected final @Nullable T getViewer(Player player) {
+        return viewers.get(player);
+    }
+
+    final void removeViewer(CachedPlayer player) {
+        if (viewers.remove(player.getBukkitPlayer()) != null) {
+            viewersSnapshot = null;
+            player.removeTrackedLine(this);
+        }
     }
 
     protected boolean canInteract(Player player) {
@@ -199,15 +350,18 @@ public abstract class LineTracker<T extends Viewer> {
     @MustBeInvokedByOverriders
     protected void detectChanges() {
         PositionCoordinates positionCoordinates = getLine().getCoordinates();
-        if (!Objects.equals(this.positionCoordinates, positionCoordinates)) {
-            this.positionCoordinates = positionCoordinates;
-            this.positionChanged = true;
-        }
-
         String positionWorldName = getLine().getWorldName();
         if (!Objects.equals(this.positionWorldName, positionWorldName)) {
+            // Not a movement, the position is changed immediately
             this.positionWorldName = positionWorldName;
+            this.previousPositionCoordinates = null;
+            this.positionCoordinates = positionCoordinates;
+            this.pendingPositionCoordinates = null;
             this.positionChanged = true;
+        } else if (!Objects.equals(this.positionCoordinates, positionCoordinates)) {
+            this.pendingPositionCoordinates = positionCoordinates;
+        } else {
+            this.pendingPositionCoordinates = null; // Moved back before the pending position was sent
         }
     }
 
@@ -221,12 +375,89 @@ public abstract class LineTracker<T extends Viewer> {
             return;
         }
 
-        sendDestroyPackets(new ImmutableViewers<>(viewers.values()));
-        viewers.clear();
+        ImmutableViewers<T> viewers = getViewersSnapshot();
+        sendDestroyPackets(viewers);
+        for (int i = 0; i < viewers.size(); i++) {
+            viewers.get(i).getCachedPlayer().removeTrackedLine(this);
+        }
+        this.viewers.clear();
+        this.viewersSnapshot = null;
     }
 
     protected abstract void sendSpawnPackets(Viewers<T> viewers);
 
+    /**
+     * Returns the entity which can ride the entity the hologram is attached to, or null if the entity of this line
+     * must be moved by the server.
+     */
+    protected @Nullable RidingNMSPacketEntity getRidingEntity() {
+        return null;
+    }
+
+    /**
+     * Sets the passengers of the attached entity including the riding entity of this line, displaced vertically by
+     * the given offset from the riding position, or null if it does not ride. Viewers must be reset before changing it.
+     */
+    final void setPassengers(@Nullable HologramPassengers passengers, double ridingOffsetY) {
+        this.passengers = passengers;
+        this.ridingOffsetY = ridingOffsetY;
+    }
+
+    /**
+     * Returns the position at which the entity of this line is spawned and moved. While riding, the entity is lowered by
+     * the riding offset, which the client adds back to its position also while the entity does not ride, for example
+     * if the vehicle was spawned again without the passengers.
+     */
+    protected final PositionCoordinates getEntityPositionCoordinates() {
+        return passengers != null ? positionCoordinates.addY(-ridingOffsetY) : positionCoordinates;
+    }
+
+    protected final @Nullable PositionCoordinates getPreviousEntityPositionCoordinates() {
+        if (passengers != null && previousPositionCoordinates != null) {
+            return previousPositionCoordinates.addY(-ridingOffsetY);
+        }
+        return previousPositionCoordinates;
+    }
+
+    /**
+     * Displaces the riding entity and mounts it, must be called after the riding entity is spawned. The entity is moved
+     * by the client together with its vehicle, position changes are only a fallback in case it is dismounted.
+     */
+    protected final void sendRidingPackets(Viewers<T> viewers) {
+        if (passengers == null) {
+            return;
+        }
+
+        // Copy for async use
+        RidingNMSPacketEntity ridingEntity = getRidingEntity();
+        double ridingOffsetY = this.ridingOffsetY;
+        PacketSenderExecutor.execute(viewers, () -> {
+            PacketGroup ridingOffsetPackets = PacketSenderExecutor.createOnce(
+                    () -> ridingEntity.newRidingOffsetPackets(ridingOffsetY));
+            viewers.sendPackets(ridingEntity, ridingOffsetPackets);
+        });
+        passengers.addViewersToMount(viewers);
+    }
+
+    /**
+     * Mounts the riding entity again for all the viewers, after the client may have dismounted it.
+     */
+    final void mountViewersAgain() {
+        if (passengers != null && hasViewers()) {
+            passengers.addViewersToMount(getViewersSnapshot());
+        }
+    }
+
+    final void mountViewerAgain(CachedPlayer player) {
+        if (passengers == null) {
+            return;
+        }
+        T viewer = viewers.get(player.getBukkitPlayer());
+        if (viewer != null) {
+            passengers.addViewerToMount(viewer);
+        }
+    }
+
     protected abstract void sendDestroyPackets(Viewers<T> viewers);
 
     @MustBeInvokedByOverriders
@@ -238,4 +469,29 @@ public abstract class LineTracker<T extends Viewer> {
 
     protected abstract void sendPositionChangePackets(Viewers<T> viewers);
 
+    /**
+     * Returns the position known by the viewers before the last position change, or null if they must receive the new
+     * position with a teleport.
+     */
+    protected final @Nullable PositionCoordinates getPreviousPositionCoordinates() {
+        return previousPositionCoordinates;
+    }
+
+    /**
+     * Sends relative moves in order, while a teleport replaces the previous one not sent yet to a congested viewer.
+     */
+    protected static void sendMovePackets(
+            Viewers<?> viewers,
+            NMSPacketEntity entity,
+            @Nullable PositionCoordinates oldPosition,
+            PositionCoordinates newPosition) {
+        if (oldPosition != null) {
+            PacketGroup movePackets = PacketSenderExecutor.createOnce(() -> entity.newMovePackets(oldPosition, newPosition));
+            viewers.sendPackets(entity, movePackets);
+        } else {
+            PacketGroup teleportPackets = PacketSenderExecutor.createOnce(() -> entity.newTeleportPackets(newPosition));
+            viewers.sendUpdatePackets(entity, UpdateKind.TELEPORT, teleportPackets);
+        }
+    }
+
 }
@@ -5,6 +5,9 @@
  */
 package me.filoghost.holographicdisplays.core.tracking;
 
+import me.filoghost.holographicdisplays.core.CoreGlobalConfig;
+import me.filoghost.holographicdisplays.core.base.BaseHologram;
+import me.filoghost.holographicdisplays.core.base.BaseHologramLine;
 import me.filoghost.holographicdisplays.core.base.BaseItemHologramLine;
 import me.filoghost.holographicdisplays.core.base.BaseTextHologramLine;
 import me.filoghost.holographicdisplays.core.base.EditableHologramLine;
@@ -12,19 +15,50 @@ import me.filoghost.holographicdisplays.core.listener.LineClickListener;
 import me.filoghost.holographicdisplays.core.placeholder.tracking.ActivePlaceholderTracker;
 import me.filoghost.holographicdisplays.core.tick.CachedPlayer;
 import me.filoghost.holographicdisplays.nms.common.NMSManager;
+import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
 
 public class LineTrackerManager {
 
     private final NMSManager nmsManager;
     private final ActivePlaceholderTracker placeholderTracker;
     private final LineClickListener lineClickListener;
-    private final Collection<LineTracker<?>> lineTrackers;
+    private final Map<BaseHologram, HologramTracker> hologramTrackers;
+    private final SpatialIndex<HologramTracker> hologramTrackerIndex;
+    private final SpatialIndex<CachedPlayer> playerIndex;
+    private final Map<Player, CachedPlayer> players;
+    private final SpawnScheduler spawnScheduler;
+    private final Consumer<HologramTracker> markForUpdateAction; // Created once, instead of a method reference per tick
+    private final List<CachedPlayer> playersToReschedule; // Reused every tick to avoid allocating a new list
+
+    // Item displays are rotated together on a fixed schedule, instead of updating each tracker every tick
+    private final List<ItemLineTracker> itemDisplayLineTrackers;
+    private int ticksUntilItemRotation;
+    private float itemRotation;
+
+    // Holograms that changed since the last update, visibility settings can also be changed from other threads
+    private final Queue<BaseHologram> changedHolograms;
+    private final Queue<VisibilityChange> visibilityChanges;
+
+    // Only these trackers are updated in the next tick, the others have nothing to do
+    private List<HologramTracker> hologramTrackersToUpdate;
+    private List<HologramTracker> nextHologramTrackersToUpdate;
+
+    private int lastMaxViewRange;
+    private int lastViewRangeMargin;
+    private double largestDespawnRange;
+    private long avoidedSpawnCycles;
 
     public LineTrackerManager(
             NMSManager nmsManager,
@@ -33,45 +67,341 @@ public class LineTrackerManager {
         this.nmsManager = nmsManager;
         this.placeholderTracker = placeholderTracker;
         this.lineClickListener = lineClickListener;
-        this.lineTrackers = new LinkedList<>();
+        this.hologramTrackers = new LinkedHashMap<>();
+        this.hologramTrackerIndex = new SpatialIndex<>();
+        this.playerIndex = new SpatialIndex<>();
+        this.players = new HashMap<>();
+        this.spawnScheduler = new SpawnScheduler();
+        this.markForUpdateAction = this::markForUpdate;
+        this.playersToReschedule = new ArrayList<>();
+        this.itemDisplayLineTrackers = new ArrayList<>();
+        this.ticksUntilItemRotation = ItemLineTracker.ROTATION_STEP_TICKS;
+        this.changedHolograms = new ConcurrentLinkedQueue<>();
+        this.visibilityChanges = new ConcurrentLinkedQueue<>();
+        this.hologramTrackersToUpdate = new ArrayList<>();
+        this.nextHologramTrackersToUpdate = new ArrayList<>();
     }
 
     public <T extends EditableHologramLine> void startTracking(T line) {
+        LineTracker<?> lineTracker;
         if (line instanceof BaseTextHologramLine) {
-            lineTrackers.add(new TextLineTracker((BaseTextHologramLine) line, nmsManager, lineClickListener, placeholderTracker));
+            lineTracker = new TextLineTracker((BaseTextHologramLine) line, nmsManager, lineClickListener, placeholderTracker);
         } else if (line instanceof BaseItemHologramLine) {
-            lineTrackers.add(new ItemLineTracker((BaseItemHologramLine) line, nmsManager, lineClickListener));
+            ItemLineTracker itemLineTracker = new ItemLineTracker((BaseItemHologramLine) line, nmsManager, lineClickListener);
+            if (itemLineTracker.isItemDisplay()) {
+                itemDisplayLineTrackers.add(itemLineTracker);
+            }
+            lineTracker = itemLineTracker;
         } else {
             throw new UnsupportedOperationException("unsupported line class: " + line.getClass().getName());
         }
+
+        BaseHologram hologram = lineTracker.getLine().getHologram();
+        HologramTracker hologramTracker = hologramTrackers.computeIfAbsent(
+                hologram, (BaseHologram key) -> new HologramTracker(key, nmsManager));
+        hologramTracker.addLineTracker(lineTracker);
+        markForUpdate(hologramTracker);
     }
 
-    public void update(List<CachedPlayer> onlinePlayers, List<CachedPlayer> movedPlayers, int maxViewRange) {
-        Iterator<LineTracker<?>> iterator = lineTrackers.iterator();
-        while (iterator.hasNext()) {
-            LineTracker<?> lineTracker = iterator.next();
+    public void setChanged(BaseHologram hologram) {
+        changedHolograms.add(hologram);
+    }
+
+    /**
+     * Only the given players are checked again, instead of all the players near the hologram. This method can be
+     * called from any thread.
+     */
+    public void setVisibilityChanged(BaseHologram hologram, Collection<? extends Player> players) {
+        visibilityChanges.add(new VisibilityChange(hologram, players));
+    }
+
+    private void markForUpdate(HologramTracker hologramTracker) {
+        if (hologramTracker.markForUpdate()) {
+            hologramTrackersToUpdate.add(hologramTracker);
+        }
+    }
+
+    public void update(List<CachedPlayer> movedPlayers, int maxViewRange) {
+        // If the range is changed all the trackers must check their viewers again, even those far from moved players
+        int viewRangeMargin = CoreGlobalConfig.viewRangeMargin;
+        boolean checkAllPlayers = maxViewRange != lastMaxViewRange || viewRangeMargin != lastViewRangeMargin;
+        lastMaxViewRange = maxViewRange;
+        lastViewRangeMargin = viewRangeMargin;
+
+        // Without limits, line trackers add new viewers immediately
+        int spawnBudget = CoreGlobalConfig.spawnBudgetPerTick;
+        int maxLinesPerPlayer = CoreGlobalConfig.maxLinesPerPlayer;
+        SpawnScheduler spawnScheduler = spawnBudget > 0 || maxLinesPerPlayer > 0 ? this.spawnScheduler : null;
+
+        // Only holograms near the old or the new position of a moved player need to check it
+        int movedPlayerCellRadius = SpatialIndex.toCellRadius(largestDespawnRange);
+        for (int i = 0; i < movedPlayers.size(); i++) {
+            addToNearbyHologramTrackers(movedPlayers.get(i), movedPlayerCellRadius);
+        }
+
+        if (spawnScheduler != null) {
+            // Nearby holograms request the spawn again, like after a movement, if the player can now see other ones
+            spawnScheduler.collectPlayersToReschedule(playersToReschedule);
+            for (int i = 0; i < playersToReschedule.size(); i++) {
+                CachedPlayer player = playersToReschedule.get(i);
+                if (!player.isMovedLastTick()) {
+                    addToNearbyHologramTrackers(player, movedPlayerCellRadius);
+                }
+            }
+            playersToReschedule.clear();
+        }
+
+        BaseHologram changedHologram;
+        while ((changedHologram = changedHolograms.poll()) != null) {
+            HologramTracker hologramTracker = hologramTrackers.get(changedHologram);
+            if (hologramTracker != null) {
+                markForUpdate(hologramTracker);
+            }
+        }
+
+        VisibilityChange visibilityChange;
+        while ((visibilityChange = visibilityChanges.poll()) != null) {
+            HologramTracker hologramTracker = hologramTrackers.get(visibilityChange.hologram);
+            if (hologramTracker != null) {
+                for (Player player : visibilityChange.players) {
+                    CachedPlayer cachedPlayer = players.get(player);
+                    if (cachedPlayer != null) {
+                        hologramTracker.addPlayerToCheck(cachedPlayer);
+                    }
+                }
+                markForUpdate(hologramTracker);
+            }
+        }
+
+        if (checkAllPlayers) {
+            for (HologramTracker hologramTracker : hologramTrackers.values()) {
+                markForUpdate(hologramTracker);
+            }
+            largestDespawnRange = 0; // Computed again below, since all the trackers are updated
+        }
+
+        // Swap the lists, trackers that must be updated again are added to the new one
+        List<HologramTracker> hologramTrackersToUpdate = this.hologramTrackersToUpdate;
+        this.hologramTrackersToUpdate = nextHologramTrackersToUpdate;
 
-            // Remove deleted trackers
-            if (lineTracker.shouldBeRemoved()) {
-                iterator.remove();
-                lineTracker.onRemoval();
+        for (int i = 0; i < hologramTrackersToUpdate.size(); i++) {
+            HologramTracker hologramTracker = hologramTrackersToUpdate.get(i);
+            hologramTracker.update(playerIndex, spawnScheduler, maxViewRange, checkAllPlayers);
+            avoidedSpawnCycles += hologramTracker.getAvoidedSpawnCycles();
+
+            // Remove trackers of holograms without lines, they are created again if lines are added
+            if (hologramTracker.shouldBeRemoved()) {
+                hologramTrackers.remove(hologramTracker.getHologram());
+                hologramTrackerIndex.remove(hologramTracker);
                 continue;
             }
 
-            lineTracker.update(onlinePlayers, movedPlayers, maxViewRange);
+            hologramTracker.updateSpatialIndex(hologramTrackerIndex);
+            if (hologramTracker.requiresUpdateEveryTick()) {
+                markForUpdate(hologramTracker);
+            }
+
+            // May be larger than necessary if the range of a tracker decreases, until the next full check
+            largestDespawnRange = Math.max(
+                    largestDespawnRange,
+                    hologramTracker.getViewRange() + hologramTracker.getViewRangeMargin());
+        }
+
+        hologramTrackersToUpdate.clear();
+        nextHologramTrackersToUpdate = hologramTrackersToUpdate;
+
+        if (spawnScheduler != null) {
+            // Trackers with spawns over the budget are updated again in the next tick
+            spawnScheduler.spawnRequestedLines(spawnBudget, maxLinesPerPlayer, markForUpdateAction);
+        }
+
+        ticksUntilItemRotation--;
+        if (ticksUntilItemRotation <= 0) {
+            ticksUntilItemRotation = ItemLineTracker.ROTATION_STEP_TICKS;
+            rotateItemDisplays();
         }
     }
 
+    private void rotateItemDisplays() {
+        boolean rotate = CoreGlobalConfig.itemDisplayRotation;
+        if (rotate) {
+            itemRotation = (itemRotation + ItemLineTracker.ROTATION_STEP_DEGREES) % 360;
+        }
+
+        // Iterated backwards, the trackers of deleted lines are removed by replacing them with the last one
+        for (int i = itemDisplayLineTrackers.size() - 1; i >= 0; i--) {
+            ItemLineTracker itemLineTracker = itemDisplayLineTrackers.get(i);
+            if (itemLineTracker.shouldBeRemoved()) {
+                int lastIndex = itemDisplayLineTrackers.size() - 1;
+                itemDisplayLineTrackers.set(i, itemDisplayLineTrackers.get(lastIndex));
+                itemDisplayLineTrackers.remove(lastIndex);
+            } else if (rotate) {
+                itemLineTracker.rotate(itemRotation);
+            }
+        }
+    }
+
+    /**
+     * Sends the latest state of the lines to a player whose refreshes were skipped, because of a congested connection or
+     * the limit of text updates, replacing all the skipped ones. Must be called before {@link #update(List, int)}.
+     */
+    public void catchUpSkippedRefreshes(CachedPlayer player) {
+        for (LineTracker<?> lineTracker : player.getTrackedLines()) {
+            if (lineTracker.catchUpSkippedRefreshes(player)) {
+                HologramTracker hologramTracker = hologramTrackers.get(lineTracker.getLine().getHologram());
+                if (hologramTracker != null) {
+                    markForUpdate(hologramTracker);
+                }
+            }
+        }
+    }
+
+    private void addToNearbyHologramTrackers(CachedPlayer movedPlayer, int cellRadius) {
+        Location location = movedPlayer.getLocation();
+        if (location == null || location.getWorld() == null) {
+            return;
+        }
+
+        double x = location.getX();
+        double z = location.getZ();
+        int cellX = SpatialIndex.toCellCoordinate(x);
+        int cellZ = SpatialIndex.toCellCoordinate(z);
+
+        // Holograms near the old position may have the player as viewer and need to remove it
+        SpatialIndex.Cell<CachedPlayer> previousCell = playerIndex.getCell(movedPlayer);
+        if (previousCell != null && !previousCell.isAt(location.getWorld(), cellX, cellZ)) {
+            if (previousCell.getWorld() != location.getWorld()) {
+                // After a world change, only the holograms seen by the player in the old world need to remove it
+                addToTrackedHologramTrackers(movedPlayer);
+            } else {
+                addToHologramTrackers(movedPlayer, location.getWorld(), x, z, hologramTrackerIndex.getElementsNear(
+                        previousCell.getWorld(), previousCell.getX(), previousCell.getZ(), cellRadius));
+            }
+        }
+
+        addToHologramTrackers(movedPlayer, location.getWorld(), x, z, hologramTrackerIndex.getElementsNear(
+                location.getWorld(), cellX, cellZ, cellRadius));
+
+        playerIndex.put(movedPlayer, location.getWorld(), x, z);
+        players.put(movedPlayer.getBukkitPlayer(), movedPlayer);
+    }
+
+    private void addToHologramTrackers(
+            CachedPlayer movedPlayer,
+            World world,
+            double x,
+            double z,
+            List<HologramTracker> nearbyTrackers) {
+        for (int i = 0; i < nearbyTrackers.size(); i++) {
+            HologramTracker hologramTracker = nearbyTrackers.get(i);
+
+            // The nearby cells cover the largest range of all the trackers, those out of range skip the player unless
+            // they must remove it. Trackers whose position or range changed since the last update check all players.
+            if (!hologramTracker.isInDespawnRange(world, x, z)
+                    && !hologramTracker.isTrackedPlayer(movedPlayer)) {
+                continue;
+            }
+
+            hologramTracker.addPlayerToCheck(movedPlayer);
+            markForUpdate(hologramTracker);
+        }
+    }
+
+    private void addToTrackedHologramTrackers(CachedPlayer movedPlayer) {
+        for (LineTracker<?> lineTracker : movedPlayer.getTrackedLines()) {
+            HologramTracker hologramTracker = hologramTrackers.get(lineTracker.getLine().getHologram());
+            if (hologramTracker != null) {
+                hologramTracker.addPlayerToCheck(movedPlayer);
+                markForUpdate(hologramTracker);
+            }
+        }
+    }
+
+    /**
+     * Returns the total number of times a viewer moved slightly beyond the view range of a line and then back in
+     * range, which would have caused destroy and spawn packets without the view range margin.
+     */
+    public long getAvoidedSpawnCycles() {
+        return avoidedSpawnCycles;
+    }
+
+    /**
+     * Returns the total number of line spawns postponed to a later tick because of the spawn budget, each counted once
+     * even if postponed for several ticks.
+     */
+    public long getDeferredSpawns() {
+        return spawnScheduler.getDeferredSpawns();
+    }
+
+    /**
+     * Returns the total number of lines hidden to make room for lines with a higher priority or nearer to the player,
+     * because of the maximum number of lines per player.
+     */
+    public long getReplacedLines() {
+        return spawnScheduler.getReplacedLines();
+    }
+
     public void resetViewersAndSendDestroyPackets() {
-        for (LineTracker<?> tracker : lineTrackers) {
+        for (HologramTracker tracker : hologramTrackers.values()) {
             tracker.resetViewersAndSendDestroyPackets();
         }
     }
 
-    public void removeViewer(Player player) {
-        for (LineTracker<?> tracker : lineTrackers) {
-            tracker.removeViewer(player);
+    public void removePlayer(CachedPlayer player) {
+        removeViewer(player);
+        spawnScheduler.removePlayer(player);
+        playerIndex.remove(player);
+        players.remove(player.getBukkitPlayer());
+    }
+
+    /**
+     * Removes the player from the viewers of all the lines, without sending destroy packets. The cost depends only on
+     * the number of lines seen by the player.
+     */
+    public void removeViewer(CachedPlayer player) {
+        Collection<LineTracker<?>> trackedLines = player.getTrackedLines();
+        if (trackedLines.isEmpty()) {
+            return;
+        }
+
+        // Copy, because removing the player from a line tracker also removes the line tracker from the player
+        for (LineTracker<?> lineTracker : new ArrayList<>(trackedLines)) {
+            lineTracker.removeViewer(player);
+            HologramTracker hologramTracker = hologramTrackers.get(lineTracker.getLine().getHologram());
+            if (hologramTracker != null) {
+                hologramTracker.removeTrackedPlayer(player.getBukkitPlayer());
+            }
+        }
+    }
+
+    /**
+     * Mounts the lines riding an entity again for the player, after the server may have sent their vehicle again.
+     */
+    public void mountViewerAgain(CachedPlayer player) {
+        for (LineTracker<?> lineTracker : player.getTrackedLines()) {
+            lineTracker.mountViewerAgain(player);
+        }
+    }
+
+    public List<BaseHologramLine> getTrackedLines(CachedPlayer player) {
+        List<BaseHologramLine> trackedLines = new ArrayList<>();
+        for (LineTracker<?> lineTracker : player.getTrackedLines()) {
+            trackedLines.add(lineTracker.getLine());
         }
+        return trackedLines;
+    }
+
+
+    private static class VisibilityChange {
+
+        private final BaseHologram hologram;
+        private final Collection<? extends Player> players;
+
+        private VisibilityChange(BaseHologram hologram, Collection<? extends Player> players) {
+            this.hologram = hologram;
+            this.players = players;
+        }
+
     }
 
 }
@@ -14,6 +14,7 @@ public class MutableViewers<T extends Viewer> implements Viewers<T> {
     // Optimization: the viewer is frequently only a single player
     private T viewer;
     private List<T> additionalViewers;
+    private long packetSenderMask;
 
     public synchronized void add(T viewer) {
         if (this.viewer == null) {
@@ -24,16 +25,29 @@ public class MutableViewers<T extends Viewer> implements Viewers<T> {
             }
             this.additionalViewers.add(viewer);
         }
+        this.packetSenderMask |= viewer.getPacketSenderMask();
     }
 
     @Override
     public synchronized void forEach(Consumer<? super T> action) {
         if (viewer != null) {
-            action.accept(viewer);
+            if (viewer.isHandledByCurrentThread()) {
+                action.accept(viewer);
+            }
             if (additionalViewers != null) {
-                additionalViewers.forEach(action);
+                for (int i = 0; i < additionalViewers.size(); i++) {
+                    T additionalViewer = additionalViewers.get(i);
+                    if (additionalViewer.isHandledByCurrentThread()) {
+                        action.accept(additionalViewer);
+                    }
+                }
             }
         }
     }
 
+    @Override
+    public synchronized long getPacketSenderMask() {
+        return packetSenderMask;
+    }
+
 }
@@ -6,48 +6,539 @@
 package me.filoghost.holographicdisplays.core.tracking;
 
 import me.filoghost.fcommons.logging.Log;
+import me.filoghost.holographicdisplays.core.tick.CachedPlayer;
+import me.filoghost.holographicdisplays.nms.common.EncodedPacketCache;
+import me.filoghost.holographicdisplays.nms.common.EntityID;
+import me.filoghost.holographicdisplays.nms.common.NMSManager;
+import me.filoghost.holographicdisplays.nms.common.PacketGroup;
+import me.filoghost.holographicdisplays.nms.common.PacketWriter;
+import me.filoghost.holographicdisplays.nms.common.entity.NMSPacketEntity;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * This is a quick but ugly helper class for creating and sending packets async.
  * Static classes like this should be avoided.
- * Important note: this executor can only have one thread, as packets must be sent in a precise order.
+ * Important note: packets must be sent to each player in a precise order, so each player is assigned to a single
+ * sender thread, which executes the tasks in the same order they are submitted. The tasks of a tick are handed to all
+ * the threads as a single batch: each task is executed by the threads of its viewers, and each thread only sends
+ * packets to its own players. The packets of a task are created once, see {@link #createOnce(Supplier)}.
  */
 public class PacketSenderExecutor {
 
-    private static volatile BlockingQueue<Runnable> tasks;
+    // Threads are identified by a bit of a long in the sender masks of the viewers
+    private static final int SENDER_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
 
-    private static final Runnable STOP_MARKER_TASK = () -> {};
+    private static final int MAX_RECYCLED_BATCHES = 4;
+    private static final TaskBatch STOP_MARKER_BATCH = new TaskBatch();
 
-    public static void execute(Runnable task) {
-        tasks.add(task);
+    private static volatile PacketSenderThread[] senderThreads;
+    private static int nextSenderIndex;
+
+    // Tasks submitted in the current tick, only used by the main thread
+    private static TaskBatch pendingBatch = new TaskBatch();
+
+    // Batches are handed to the threads once per tick, they are reused to avoid allocating them again
+    private static final BlockingQueue<TaskBatch> recycledBatches = new ArrayBlockingQueue<>(MAX_RECYCLED_BATCHES);
+
+    // Tasks of the batches not executed yet by all their threads
+    private static final AtomicInteger submittedTasks = new AtomicInteger();
+
+    private static volatile NMSManager nmsManager;
+
+    // If true, all the packets written to a player in a tick are grouped into a bundle, applied by the client at once
+    private static volatile boolean bundlePackets;
+
+    // If true, the packets written to many players of the same thread in a tick are encoded once
+    private static volatile boolean sharedPacketEncoding;
+    private static final AtomicLong sharedPacketWrites = new AtomicLong();
+
+    // Updates held back for congested players, replaced by newer ones and discarded because the entity was destroyed
+    private static final AtomicInteger pendingUpdates = new AtomicInteger();
+    private static final AtomicLong coalescedUpdates = new AtomicLong();
+    private static final AtomicLong droppedUpdates = new AtomicLong();
+
+    /**
+     * Submits a task sending packets to the viewers, executed after the current tick by the threads of the viewers. Must
+     * be called from the main thread.
+     */
+    public static void execute(Viewers<?> viewers, Runnable task) {
+        long senderMask = viewers.getPacketSenderMask();
+        if (senderMask == 0) {
+            return; // No thread would execute the task, which would be retained until the batch is handed off
+        }
+        pendingBatch.add(task, senderMask);
+    }
+
+    /**
+     * Hands the tasks submitted so far to the threads, which send their packets together. Should be called once per
+     * tick from the main thread.
+     */
+    public static void flush() {
+        TaskBatch batch = pendingBatch;
+        long threadsMask = batch.senderMask;
+        for (PacketSenderThread senderThread : senderThreads) {
+            if (senderThread.hasPlayersWithPendingUpdates) {
+                threadsMask |= senderThread.mask; // Woken up even without tasks
+            }
+        }
+        if (threadsMask == 0) {
+            return;
+        }
+
+        batch.remainingThreads.set(Long.bitCount(threadsMask));
+        submittedTasks.addAndGet(batch.size());
+        for (PacketSenderThread senderThread : senderThreads) {
+            if ((threadsMask & senderThread.mask) != 0) {
+                senderThread.batches.add(batch);
+            }
+        }
+
+        TaskBatch recycledBatch = recycledBatches.poll();
+        pendingBatch = recycledBatch != null ? recycledBatch : new TaskBatch();
+    }
+
+    /**
+     * Returns the packets created by the first thread executing the current task, so that they are not created again by
+     * each thread of its viewers. Must be called at most once by each task, and the packets must not be null.
+     */
+    static <P> P createOnce(Supplier<P> packetsFactory) {
+        Thread currentThread = Thread.currentThread();
+        if (!(currentThread instanceof PacketSenderThread)) {
+            return packetsFactory.get();
+        }
+
+        PacketSenderThread senderThread = (PacketSenderThread) currentThread;
+        TaskBatch batch = senderThread.currentBatch;
+        int taskIndex = senderThread.currentTaskIndex;
+        if (batch.senderMasks[taskIndex] == senderThread.mask) {
+            return packetsFactory.get(); // The only thread executing the task
+        }
+        return batch.getSharedPackets(taskIndex, packetsFactory);
+    }
+
+    /**
+     * Returns the index of the thread sending packets to a new player, players are distributed evenly among the threads.
+     * Must be called from the main thread.
+     */
+    public static int nextSenderIndex() {
+        int senderIndex = nextSenderIndex;
+        nextSenderIndex = (nextSenderIndex + 1) % SENDER_THREADS;
+        return senderIndex;
+    }
+
+    /**
+     * Returns true if packets for the player are sent by the current thread. Always true outside the sender threads,
+     * where all the viewers of a task are visited.
+     */
+    static boolean isHandledByCurrentThread(CachedPlayer player) {
+        Thread currentThread = Thread.currentThread();
+        return !(currentThread instanceof PacketSenderThread)
+                || ((PacketSenderThread) currentThread).index == player.getPacketSenderIndex();
+    }
+
+    /**
+     * Returns the writer of the packets concerning the entity sent to the player, which is flushed at the end of the tick.
+     * The updates of the entity held back are written first, or all the updates held back if the entity is null. Must be
+     * called from the thread of the player, before writing each packet.
+     */
+    static PacketWriter getPacketWriter(CachedPlayer player, @Nullable NMSPacketEntity entity) {
+        PacketWriter packetWriter = getPacketWriter(player);
+
+        PendingPacketUpdates playerPendingUpdates = player.getPendingPacketUpdates();
+        if (!playerPendingUpdates.isEmpty()) {
+            // The next packets may depend on the state changed by the updates of the entity, they must be written first,
+            // while the updates of other entities stay held back
+            int writtenUpdates = entity != null
+                    ? playerPendingUpdates.writeTo(packetWriter, entity)
+                    : playerPendingUpdates.writeTo(packetWriter);
+            pendingUpdates.addAndGet(-writtenUpdates);
+        }
+        return packetWriter;
+    }
+
+    /**
+     * Returns the writer of the packets sent to the player, after writing the packets destroying entities.
+     */
+    private static PacketWriter getPacketWriter(CachedPlayer player) {
+        PacketSenderThread senderThread = senderThreads[player.getPacketSenderIndex()];
+        PacketWriter packetWriter = player.getPacketWriter();
+        if (!packetWriter.hasPendingFlush()) {
+            senderThread.flushAtEndOfTick(packetWriter);
+        }
+
+        List<EntityID> entityIDsToDestroy = player.getEntityIDsToDestroy();
+        if (!entityIDsToDestroy.isEmpty()) {
+            // The next packets may spawn the same entities again, they must be destroyed first
+            nmsManager.newDestroyPackets(entityIDsToDestroy).writeTo(packetWriter);
+            entityIDsToDestroy.clear();
+        }
+        return packetWriter;
+    }
+
+    /**
+     * Writes packets which replace a part of the state of the entity. If the connection of the player is congested,
+     * they are held back until it recovers and replaced by newer updates of the same kind in the meantime. Must be
+     * called from the thread of the player.
+     */
+    static void sendUpdatePackets(CachedPlayer player, NMSPacketEntity entity, UpdateKind kind, PacketGroup packetGroup) {
+        if (!isCongested(player)) {
+            packetGroup.writeTo(getPacketWriter(player, entity));
+            return;
+        }
+
+        PendingPacketUpdates playerPendingUpdates = player.getPendingPacketUpdates();
+        if (!playerPendingUpdates.isScheduled()) {
+            playerPendingUpdates.setScheduled(true);
+            senderThreads[player.getPacketSenderIndex()].playersWithPendingUpdates.add(player);
+        }
+
+        if (playerPendingUpdates.put(entity, kind, packetGroup)) {
+            coalescedUpdates.incrementAndGet();
+        } else {
+            pendingUpdates.incrementAndGet();
+        }
+
+        if (playerPendingUpdates.size() >= PendingPacketUpdates.MAX_UPDATES) {
+            getPacketWriter(player, null); // Writes the pending updates, to keep them bounded
+        }
+    }
+
+    static boolean isCongested(CachedPlayer player) {
+        return player.getPacketWriter().isCongested();
+    }
+
+    /**
+     * Must be called from the thread of the player.
+     */
+    static void addEntityToDestroy(CachedPlayer player, NMSPacketEntity entity) {
+        List<EntityID> entityIDsToDestroy = player.getEntityIDsToDestroy();
+        if (entityIDsToDestroy.isEmpty()) {
+            senderThreads[player.getPacketSenderIndex()].playersWithEntitiesToDestroy.add(player);
+        }
+        entity.addDestroyedEntityIDs(entityIDsToDestroy);
+
+        int droppedPlayerUpdates = player.getPendingPacketUpdates().remove(entity);
+        if (droppedPlayerUpdates > 0) {
+            pendingUpdates.addAndGet(-droppedPlayerUpdates);
+            droppedUpdates.addAndGet(droppedPlayerUpdates);
+        }
+    }
+
+    /**
+     * Enables or disables encoding only once the packets sent to many players, starting from the next tick.
+     */
+    public static void setSharedPacketEncoding(boolean sharedPacketEncoding) {
+        PacketSenderExecutor.sharedPacketEncoding = sharedPacketEncoding;
+    }
+
+    /**
+     * Returns the number of tasks not executed yet by all the threads, mainly for debugging. Must be called from the
+     * main thread.
+     */
+    public static int getQueuedTasks() {
+        return pendingBatch.size() + submittedTasks.get();
+    }
+
+    /**
+     * Returns the number of updates currently held back for congested players.
+     */
+    public static int getPendingUpdates() {
+        return pendingUpdates.get();
+    }
+
+    /**
+     * Returns the maximum number of updates held back for each congested player.
+     */
+    public static int getMaxPendingUpdatesPerPlayer() {
+        return PendingPacketUpdates.MAX_UPDATES;
+    }
+
+    /**
+     * Returns the total number of held back updates replaced by a newer update of the same kind.
+     */
+    public static long getCoalescedUpdates() {
+        return coalescedUpdates.get();
     }
 
-    public static void start() {
-        tasks = new LinkedBlockingQueue<>();
-        Thread thread = new Thread(() -> {
+    /**
+     * Returns the total number of held back updates discarded because the entity was destroyed.
+     */
+    public static long getDroppedUpdates() {
+        return droppedUpdates.get();
+    }
+
+    /**
+     * Returns the total number of packets written without encoding them again, if shared packet encoding is enabled.
+     */
+    public static long getSharedPacketWrites() {
+        return sharedPacketWrites.get();
+    }
+
+    public static void start(NMSManager nmsManager) {
+        PacketSenderExecutor.nmsManager = nmsManager;
+        PacketSenderExecutor.bundlePackets = nmsManager.supportsBundlePackets();
+        PacketSenderThread[] senderThreads = new PacketSenderThread[SENDER_THREADS];
+        for (int i = 0; i < senderThreads.length; i++) {
+            senderThreads[i] = new PacketSenderThread(i);
+        }
+        PacketSenderExecutor.senderThreads = senderThreads;
+        for (PacketSenderThread senderThread : senderThreads) {
+            senderThread.start();
+        }
+    }
+
+    public static void stopGracefully() {
+        if (senderThreads != null) {
+            flush();
+            for (PacketSenderThread senderThread : senderThreads) {
+                senderThread.batches.add(STOP_MARKER_BATCH);
+            }
+        }
+    }
+
+
+    /**
+     * The tasks submitted in a tick, with the sender threads of their viewers.
+     */
+    private static class TaskBatch {
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        // Placeholder of the packets being created by another thread, see getSharedPackets()
+        private static final Object CREATING_PACKETS = new Object();
+
+        private final List<Runnable> tasks;
+        private long[] senderMasks;
+        private long senderMask;
+
+        // Packets created by the first thread executing each task, guarded by the batch
+        private Object[] sharedPackets;
+
+        // Threads which have not executed the batch yet, the last one recycles it
+        private final AtomicInteger remainingThreads;
+
+        private TaskBatch() {
+            this.tasks = new ArrayList<>(INITIAL_CAPACITY);
+            this.senderMasks = new long[INITIAL_CAPACITY];
+            this.sharedPackets = new Object[INITIAL_CAPACITY];
+            this.remainingThreads = new AtomicInteger();
+        }
+
+        private void add(Runnable task, long taskSenderMask) {
+            int index = tasks.size();
+            if (index == senderMasks.length) {
+                senderMasks = Arrays.copyOf(senderMasks, index * 2);
+                sharedPackets = Arrays.copyOf(sharedPackets, index * 2);
+            }
+            tasks.add(task);
+            senderMasks[index] = taskSenderMask;
+            senderMask |= taskSenderMask;
+        }
+
+        private int size() {
+            return tasks.size();
+        }
+
+        @SuppressWarnings("unchecked")
+        private <P> P getSharedPackets(int taskIndex, Supplier<P> packetsFactory) {
+            Object packets;
+            boolean interrupted = false;
+            synchronized (this) {
+                while ((packets = sharedPackets[taskIndex]) == CREATING_PACKETS) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (packets == null) {
+                    sharedPackets[taskIndex] = CREATING_PACKETS;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (packets != null) {
+                return (P) packets;
+            }
+
+            // Created outside the lock, the threads waiting for other tasks are not blocked
+            P createdPackets = null;
+            try {
+                createdPackets = packetsFactory.get();
+                return createdPackets;
+            } finally {
+                synchronized (this) {
+                    sharedPackets[taskIndex] = createdPackets; // If null, the next thread tries again
+                    notifyAll();
+                }
+            }
+        }
+
+        private void clear() {
+            Arrays.fill(sharedPackets, 0, tasks.size(), null);
+            tasks.clear();
+            senderMask = 0;
+        }
+
+    }
+
+
+    private static class PacketSenderThread extends Thread {
+
+        private final int index;
+        private final long mask;
+
+        // Batches of tasks submitted once per tick
+        private final BlockingQueue<TaskBatch> batches;
+
+        // The batch and the task being executed, only used by the thread
+        private TaskBatch currentBatch;
+        private int currentTaskIndex;
+
+        // Packets are written without flushing by the tasks, then sent together once per tick. Only used by the thread.
+        private final List<PacketWriter> packetWritersToFlush;
+
+        // Entities destroyed for each player are accumulated and destroyed with a single packet, before other packets
+        // are written to the player or at the end of the tick. Only used by the thread.
+        private final List<CachedPlayer> playersWithEntitiesToDestroy;
+
+        // Players with updates held back by a congested connection, checked at the end of each tick. Only used by the
+        // thread, except the flag telling the main thread to wake up the thread even if there are no tasks.
+        private final List<CachedPlayer> playersWithPendingUpdates;
+        private volatile boolean hasPlayersWithPendingUpdates;
+
+        // Packets encoded for the players of the thread in the current tick, null if disabled. Only used by the thread.
+        private EncodedPacketCache encodedPacketCache;
+
+        private PacketSenderThread(int index) {
+            this.index = index;
+            this.mask = 1L << index;
+            this.batches = new LinkedBlockingQueue<>();
+            this.packetWritersToFlush = new ArrayList<>();
+            this.playersWithEntitiesToDestroy = new ArrayList<>();
+            this.playersWithPendingUpdates = new ArrayList<>();
+            setName("Holographic Displays async packets #" + (index + 1));
+        }
+
+        @Override
+        public void run() {
             while (true) {
+                TaskBatch batch;
                 try {
-                    Runnable task = tasks.take();
-                    if (task == STOP_MARKER_TASK) {
-                        return;
+                    batch = batches.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (batch == STOP_MARKER_BATCH) {
+                    return;
+                }
+
+                updateEncodedPacketCache();
+                currentBatch = batch;
+                for (int i = 0; i < batch.size(); i++) {
+                    if ((batch.senderMasks[i] & mask) != 0) {
+                        currentTaskIndex = i;
+                        runTask(batch.tasks.get(i));
+                    }
+                }
+                currentBatch = null;
+                flushPacketWriters();
+
+                if (batch.remainingThreads.decrementAndGet() == 0) {
+                    submittedTasks.addAndGet(-batch.size());
+                    batch.clear();
+                    recycledBatches.offer(batch);
+                }
+            }
+        }
+
+        private void updateEncodedPacketCache() {
+            if (!sharedPacketEncoding) {
+                encodedPacketCache = null;
+            } else if (encodedPacketCache == null) {
+                encodedPacketCache = new EncodedPacketCache(sharedPacketWrites);
+            }
+        }
+
+        private void runTask(Runnable task) {
+            try {
+                task.run();
+            } catch (Throwable t) {
+                Log.severe("Error in packet sender task", t);
+            }
+        }
+
+        private void flushAtEndOfTick(PacketWriter packetWriter) {
+            if (bundlePackets) {
+                packetWriter.beginBundle();
+            }
+            packetWriter.setEncodedPacketCache(encodedPacketCache);
+            packetWritersToFlush.add(packetWriter);
+        }
+
+        private void flushPacketWriters() {
+            int keptPlayers = 0;
+            for (int i = 0; i < playersWithPendingUpdates.size(); i++) {
+                CachedPlayer player = playersWithPendingUpdates.get(i);
+                PendingPacketUpdates playerPendingUpdates = player.getPendingPacketUpdates();
+                try {
+                    if (!playerPendingUpdates.isEmpty()) {
+                        if (isCongested(player)) {
+                            playersWithPendingUpdates.set(keptPlayers++, player);
+                            continue;
+                        }
+                        getPacketWriter(player, null); // Writes the pending updates
                     }
-                    task.run();
                 } catch (Throwable t) {
-                    Log.severe("Error in packet sender task", t);
+                    Log.severe("Error while writing pending updates", t);
                 }
+                playerPendingUpdates.setScheduled(false);
             }
-        });
-        thread.setName("Holographic Displays async packets");
-        thread.start();
-    }
+            for (int i = playersWithPendingUpdates.size() - 1; i >= keptPlayers; i--) {
+                playersWithPendingUpdates.remove(i); // Instead of subList().clear(), to avoid allocating a view
+            }
+            hasPlayersWithPendingUpdates = keptPlayers > 0;
 
-    public static void stopGracefully() {
-        if (tasks != null) {
-            tasks.add(STOP_MARKER_TASK);
+            for (int i = 0; i < playersWithEntitiesToDestroy.size(); i++) {
+                try {
+                    CachedPlayer player = playersWithEntitiesToDestroy.get(i);
+                    if (!player.getEntityIDsToDestroy().isEmpty()) {
+                        getPacketWriter(player); // Writes the destroy packets
+                    }
+                } catch (Throwable t) {
+                    Log.severe("Error while destroying entities", t);
+                }
+            }
+            playersWithEntitiesToDestroy.clear();
+
+            for (int i = 0; i < packetWritersToFlush.size(); i++) {
+                try {
+                    PacketWriter packetWriter = packetWritersToFlush.get(i);
+                    packetWriter.endBundle();
+                    packetWriter.flush();
+                } catch (Throwable t) {
+                    Log.severe("Error while flushing packets", t);
+                }
+            }
+            packetWritersToFlush.clear();
+
+            // The packets of the tick are not written again, the encoded bytes are released after their last write
+            if (encodedPacketCache != null) {
+                encodedPacketCache.clear();
+            }
         }
+
     }
 
 }
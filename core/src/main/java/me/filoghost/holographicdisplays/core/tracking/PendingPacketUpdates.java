@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.core.tracking;
+
+import me.filoghost.holographicdisplays.nms.common.PacketGroup;
+import me.filoghost.holographicdisplays.nms.common.PacketWriter;
+import me.filoghost.holographicdisplays.nms.common.entity.NMSPacketEntity;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Updates of entities held back while the connection of a player is congested: only the latest update of each kind is
+ * kept for each entity, since it replaces the previous ones. Other packets, such as spawn and move packets, are never
+ * held back and keep their order: the pending updates of the same entity are written before them. Only used by the
+ * packet sender thread of the player.
+ */
+public class PendingPacketUpdates {
+
+    // Beyond this number of updates, they are written even if the connection is still congested
+    static final int MAX_UPDATES = 256;
+
+    private static final UpdateKind[] UPDATE_KINDS = UpdateKind.values();
+
+    private final Map<NMSPacketEntity, PacketGroup[]> updatesByEntity;
+    private int size;
+
+    // If the player is in the list of players with pending updates of its sender thread
+    private boolean scheduled;
+
+    public PendingPacketUpdates() {
+        this.updatesByEntity = new IdentityHashMap<>();
+    }
+
+    /**
+     * Returns true if the update replaced an older one of the same kind for the same entity.
+     */
+    boolean put(NMSPacketEntity entity, UpdateKind kind, PacketGroup packetGroup) {
+        PacketGroup[] updates = updatesByEntity.computeIfAbsent(entity, key -> new PacketGroup[UPDATE_KINDS.length]);
+        boolean replaced = updates[kind.ordinal()] != null;
+        updates[kind.ordinal()] = packetGroup;
+        if (!replaced) {
+            size++;
+        }
+        return replaced;
+    }
+
+    /**
+     * Discards the updates of the entity, for example because it's destroyed, and returns their number.
+     */
+    int remove(NMSPacketEntity entity) {
+        PacketGroup[] updates = updatesByEntity.remove(entity);
+        if (updates == null) {
+            return 0;
+        }
+
+        int removed = 0;
+        for (PacketGroup update : updates) {
+            if (update != null) {
+                removed++;
+            }
+        }
+        size -= removed;
+        return removed;
+    }
+
+    /**
+     * Writes all the pending updates, clears them and returns their number.
+     */
+    int writeTo(PacketWriter packetWriter) {
+        for (PacketGroup[] updates : updatesByEntity.values()) {
+            writeTo(packetWriter, updates);
+        }
+        updatesByEntity.clear();
+        int written = size;
+        size = 0;
+        return written;
+    }
+
+    /**
+     * Writes the pending updates of the entity, clears them and returns their number.
+     */
+    int writeTo(PacketWriter packetWriter, NMSPacketEntity entity) {
+        PacketGroup[] updates = updatesByEntity.remove(entity);
+        if (updates == null) {
+            return 0;
+        }
+        int written = writeTo(packetWriter, updates);
+        size -= written;
+        return written;
+    }
+
+    private static int writeTo(PacketWriter packetWriter, PacketGroup[] updates) {
+        int written = 0;
+        for (PacketGroup update : updates) {
+            if (update != null) {
+                update.writeTo(packetWriter);
+                written++;
+            }
+        }
+        return written;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isScheduled() {
+        return scheduled;
+    }
+
+    void setScheduled(boolean scheduled) {
+        this.scheduled = scheduled;
+    }
+
+}
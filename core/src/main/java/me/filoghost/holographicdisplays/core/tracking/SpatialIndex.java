@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.core.tracking;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Groups elements by world and by square cells on the X/Z plane, so that only the elements near a position need to be
+ * inspected instead of all of them. The Y coordinate is ignored, like in the range checks of line trackers.
+ * <p>
+ * This class is not thread safe and must only be used from the main thread.
+ */
+class SpatialIndex<T> {
+
+    // Each cell is 64x64 blocks (4x4 chunks)
+    private static final int CELL_SIZE_SHIFT = 6;
+
+    private final Map<World, WorldCells<T>> cellsByWorld;
+    private final Map<T, Cell<T>> cellByElement;
+
+    // Reused as return value to avoid allocating a new list on each query
+    private final List<T> nearbyElements;
+
+    SpatialIndex() {
+        this.cellsByWorld = new HashMap<>();
+        this.cellByElement = new HashMap<>();
+        this.nearbyElements = new ArrayList<>();
+    }
+
+    static int toCellCoordinate(double blockCoordinate) {
+        return Location.locToBlock(blockCoordinate) >> CELL_SIZE_SHIFT;
+    }
+
+    /**
+     * Returns the minimum radius (in cells) around the cell of a position that contains all the positions within the
+     * given range on the X and Z axes.
+     */
+    static int toCellRadius(double range) {
+        return ((int) Math.ceil(range) >> CELL_SIZE_SHIFT) + 1;
+    }
+
+    void put(T element, World world, double x, double z) {
+        int cellX = toCellCoordinate(x);
+        int cellZ = toCellCoordinate(z);
+
+        Cell<T> currentCell = cellByElement.get(element);
+        if (currentCell != null) {
+            if (currentCell.isAt(world, cellX, cellZ)) {
+                return;
+            }
+            removeFromCell(element, currentCell);
+        }
+
+        WorldCells<T> worldCells = cellsByWorld.computeIfAbsent(world, key -> new WorldCells<>());
+        Cell<T> newCell = worldCells.get(cellX, cellZ);
+        if (newCell == null) {
+            newCell = new Cell<>(world, cellX, cellZ);
+            worldCells.add(newCell);
+        }
+        newCell.elements.add(element);
+        cellByElement.put(element, newCell);
+    }
+
+    void remove(T element) {
+        Cell<T> currentCell = cellByElement.remove(element);
+        if (currentCell != null) {
+            removeFromCell(element, currentCell);
+        }
+    }
+
+    private void removeFromCell(T element, Cell<T> cell) {
+        cell.elements.remove(element);
+        if (cell.elements.isEmpty()) {
+            // Remove empty cells, also to avoid holding references to unloaded worlds
+            WorldCells<T> worldCells = cellsByWorld.get(cell.world);
+            worldCells.remove(cell);
+            if (worldCells.isEmpty()) {
+                cellsByWorld.remove(cell.world);
+            }
+        }
+    }
+
+    @Nullable Cell<T> getCell(T element) {
+        return cellByElement.get(element);
+    }
+
+    /**
+     * Returns the elements in the cells within the given radius (in cells) from the center cell. The returned list is
+     * reused and overwritten by the next call, it should not be stored.
+     */
+    List<T> getElementsNear(World world, int centerCellX, int centerCellZ, int cellRadius) {
+        nearbyElements.clear();
+
+        WorldCells<T> worldCells = cellsByWorld.get(world);
+        if (worldCells == null) {
+            return nearbyElements;
+        }
+
+        for (int cellX = centerCellX - cellRadius; cellX <= centerCellX + cellRadius; cellX++) {
+            for (int cellZ = centerCellZ - cellRadius; cellZ <= centerCellZ + cellRadius; cellZ++) {
+                Cell<T> cell = worldCells.get(cellX, cellZ);
+                if (cell != null) {
+                    // Don't use addAll(), it copies the elements to a new array
+                    for (int i = 0; i < cell.elements.size(); i++) {
+                        nearbyElements.add(cell.elements.get(i));
+                    }
+                }
+            }
+        }
+        return nearbyElements;
+    }
+
+
+    /**
+     * The cells of a world in an open addressing hash table, looked up by their coordinates without boxing them into a
+     * key object on each query.
+     */
+    private static class WorldCells<T> {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private Cell<T>[] table;
+        private int size;
+
+        private WorldCells() {
+            this.table = newTable(INITIAL_CAPACITY);
+        }
+
+        @Nullable Cell<T> get(int x, int z) {
+            int mask = table.length - 1;
+            for (int i = hash(x, z) & mask; ; i = (i + 1) & mask) {
+                Cell<T> cell = table[i];
+                if (cell == null || (cell.x == x && cell.z == z)) {
+                    return cell;
+                }
+            }
+        }
+
+        /**
+         * Adds a cell which is not in the table yet.
+         */
+        void add(Cell<T> cell) {
+            if ((size + 1) * 2 > table.length) {
+                // Keep the table at most half full, so that the sequences of slots to probe remain short
+                Cell<T>[] oldTable = table;
+                table = newTable(oldTable.length * 2);
+                for (Cell<T> oldCell : oldTable) {
+                    if (oldCell != null) {
+                        insert(oldCell);
+                    }
+                }
+            }
+            insert(cell);
+            size++;
+        }
+
+        void remove(Cell<T> cell) {
+            int mask = table.length - 1;
+            int emptyIndex = hash(cell.x, cell.z) & mask;
+            while (table[emptyIndex] != cell) {
+                emptyIndex = (emptyIndex + 1) & mask;
+            }
+            table[emptyIndex] = null;
+            size--;
+
+            // Move back the following cells which would not be found anymore, since lookups stop at the empty slot
+            for (int i = (emptyIndex + 1) & mask; table[i] != null; i = (i + 1) & mask) {
+                int homeIndex = hash(table[i].x, table[i].z) & mask;
+                boolean reachableFromHome = emptyIndex < i
+                        ? homeIndex > emptyIndex && homeIndex <= i
+                        : homeIndex > emptyIndex || homeIndex <= i;
+                if (!reachableFromHome) {
+                    table[emptyIndex] = table[i];
+                    table[i] = null;
+                    emptyIndex = i;
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        private void insert(Cell<T> cell) {
+            int mask = table.length - 1;
+            int i = hash(cell.x, cell.z) & mask;
+            while (table[i] != null) {
+                i = (i + 1) & mask;
+            }
+            table[i] = cell;
+        }
+
+        private static int hash(int x, int z) {
+            int hash = (x * 0x9E3779B9) ^ z;
+            return hash ^ (hash >>> 16);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> Cell<T>[] newTable(int capacity) {
+            return (Cell<T>[]) new Cell<?>[capacity];
+        }
+
+    }
+
+
+    static class Cell<T> {
+
+        private final World world;
+        private final int x;
+        private final int z;
+        private final List<T> elements;
+
+        private Cell(World world, int x, int z) {
+            this.world = world;
+            this.x = x;
+            this.z = z;
+            this.elements = new ArrayList<>();
+        }
+
+        World getWorld() {
+            return world;
+        }
+
+        int getX() {
+            return x;
+        }
+
+        int getZ() {
+            return z;
+        }
+
+        boolean isAt(World world, int x, int z) {
+            return this.world == world && this.x == x && this.z == z;
+        }
+
+    }
+
+}
@@ -0,0 +1,451 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.core.tracking;
+
+import me.filoghost.holographicdisplays.core.base.BaseHologram;
+import me.filoghost.holographicdisplays.core.tick.CachedPlayer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Limits the lines spawned to each player, to avoid sending thousands of packets at once when a player joins or
+ * teleports near many holograms and to bound the number of entities on the client in areas with many holograms. Line
+ * trackers request the spawn instead of adding the viewer, then at the end of the tick the requests are handled in
+ * order of priority and distance, grouped by hologram so that a player never sees only a part of a hologram:
+ * <ul>
+ * <li>about a fixed number of lines is spawned per tick, the other holograms are requested again in the next ticks;
+ * <li>if the player cannot see more lines, the requested hologram replaces those with a lower priority (or farther,
+ * if equal) only if it's better, otherwise it's ignored until the player moves again, a slot is freed or the priority
+ * of a nearby hologram changes.
+ * </ul>
+ * Only new viewers are limited: destroy and change packets concern lines already spawned and are always sent
+ * immediately.
+ */
+class SpawnScheduler {
+
+    // Higher priority first, then nearest first. All the lines of a hologram have the same priority and distance, and
+    // the sort is stable: the requests of a hologram stay contiguous.
+    private static final Comparator<SpawnRequest> BEST_FIRST = (request1, request2) -> {
+        if (request1.priority != request2.priority) {
+            return Integer.compare(request2.priority, request1.priority);
+        }
+        return Double.compare(request1.distance, request2.distance);
+    };
+
+    // Lower priority first, then farthest first
+    private static final Comparator<DisplayedHologram> WORST_FIRST = (hologram1, hologram2) -> {
+        if (hologram1.priority != hologram2.priority) {
+            return Integer.compare(hologram1.priority, hologram2.priority);
+        }
+        return Double.compare(hologram2.distance, hologram1.distance);
+    };
+
+    // The lists are kept empty after handling the requests and reused in the next ticks, until the player quits
+    private final Map<CachedPlayer, List<SpawnRequest>> requestsByPlayer;
+    private final List<CachedPlayer> playersWithRequests;
+    private final List<LineTracker<?>> lineTrackersWithAddedViewers;
+
+    // Lines postponed for each player in the last tick, a line requested and postponed again is counted only once
+    private Map<CachedPlayer, Set<LineTracker<?>>> deferredLinesByPlayer;
+    private Map<CachedPlayer, Set<LineTracker<?>>> nextDeferredLinesByPlayer;
+
+    // Players who cannot see some holograms in range because of the maximum number of lines, with the number of lines
+    // they could see at that moment: the holograms are requested again when the player sees fewer lines
+    private final Map<CachedPlayer, Integer> playersWithHiddenHolograms;
+
+    // Players whose nearby holograms must request the spawn again, for example after the priority of one changed
+    private final Set<CachedPlayer> playersToReschedule;
+
+    // Holograms displayed to the player whose requests are handled, grouped once when it sees too many lines and kept
+    // up to date until its next requests, instead of being grouped again for each request. Reused for all players.
+    private final Map<BaseHologram, DisplayedHologram> displayedHolograms;
+    private final List<DisplayedHologram> worstDisplayedHolograms;
+    private final List<DisplayedHologram> recycledDisplayedHolograms;
+    private CachedPlayer displayedHologramsPlayer;
+
+    private long deferredSpawns;
+    private long replacedLines;
+
+    SpawnScheduler() {
+        this.requestsByPlayer = new HashMap<>();
+        this.playersWithRequests = new ArrayList<>();
+        this.lineTrackersWithAddedViewers = new ArrayList<>();
+        this.deferredLinesByPlayer = new HashMap<>();
+        this.nextDeferredLinesByPlayer = new HashMap<>();
+        this.playersWithHiddenHolograms = new HashMap<>();
+        this.playersToReschedule = new HashSet<>();
+        this.displayedHolograms = new IdentityHashMap<>(); // Doesn't allocate an entry for each mapping
+        this.worstDisplayedHolograms = new ArrayList<>();
+        this.recycledDisplayedHolograms = new ArrayList<>();
+    }
+
+    void requestSpawn(LineTracker<?> lineTracker, HologramTracker hologramTracker, CachedPlayer player, double distance) {
+        List<SpawnRequest> requests = requestsByPlayer.get(player);
+        if (requests == null) {
+            requests = new ArrayList<>();
+            requestsByPlayer.put(player, requests);
+        }
+        if (requests.isEmpty()) {
+            playersWithRequests.add(player);
+        }
+        requests.add(new SpawnRequest(lineTracker, hologramTracker, lineTracker.getPriority(), distance));
+    }
+
+    /**
+     * Requests the spawn of the holograms near the player again in the next tick, because the holograms it can see may
+     * have changed.
+     */
+    void reschedule(CachedPlayer player) {
+        playersToReschedule.add(player);
+    }
+
+    /**
+     * Adds to the given list the players that must be checked again by the nearby holograms: those rescheduled and those
+     * which see fewer lines than when a hologram was hidden from them.
+     */
+    void collectPlayersToReschedule(List<CachedPlayer> players) {
+        if (!playersWithHiddenHolograms.isEmpty()) {
+            Iterator<Map.Entry<CachedPlayer, Integer>> iterator = playersWithHiddenHolograms.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<CachedPlayer, Integer> entry = iterator.next();
+                if (entry.getKey().getTrackedLines().size() < entry.getValue()) {
+                    playersToReschedule.add(entry.getKey());
+                    iterator.remove();
+                }
+            }
+        }
+        if (!playersToReschedule.isEmpty()) {
+            players.addAll(playersToReschedule);
+            playersToReschedule.clear();
+        }
+    }
+
+    void removePlayer(CachedPlayer player) {
+        List<SpawnRequest> requests = requestsByPlayer.remove(player);
+        if (requests != null && !requests.isEmpty()) {
+            playersWithRequests.remove(player);
+        }
+        playersWithHiddenHolograms.remove(player);
+        playersToReschedule.remove(player);
+    }
+
+    /**
+     * Spawns the requested lines to each player, within the given limits (zero or negative for no limit). The hologram
+     * trackers that must be updated again in the next tick are passed to the given consumer, for example those of the
+     * lines postponed to the next tick, after the player is added to the players to check.
+     */
+    void spawnRequestedLines(int spawnsPerTick, int linesPerPlayer, Consumer<HologramTracker> hologramTrackerConsumer) {
+        if (playersWithRequests.isEmpty()) {
+            deferredLinesByPlayer.clear(); // Lines not requested again are no longer postponed
+            return;
+        }
+        if (spawnsPerTick <= 0) {
+            spawnsPerTick = Integer.MAX_VALUE;
+        }
+        if (linesPerPlayer <= 0) {
+            linesPerPlayer = Integer.MAX_VALUE;
+        }
+
+        for (int playerIndex = 0; playerIndex < playersWithRequests.size(); playerIndex++) {
+            CachedPlayer player = playersWithRequests.get(playerIndex);
+            List<SpawnRequest> requests = requestsByPlayer.get(player);
+            if (requests.size() > 1) {
+                requests.sort(BEST_FIRST);
+            }
+
+            Set<LineTracker<?>> previouslyDeferredLines = deferredLinesByPlayer.get(player);
+            int spawned = 0;
+            boolean budgetExhausted = false;
+            boolean hologramsHidden = false;
+
+            for (int groupStart = 0, groupEnd; groupStart < requests.size(); groupStart = groupEnd) {
+                HologramTracker hologramTracker = requests.get(groupStart).hologramTracker;
+                groupEnd = groupStart + 1;
+                while (groupEnd < requests.size() && requests.get(groupEnd).hologramTracker == hologramTracker) {
+                    groupEnd++;
+                }
+
+                int newLines = 0;
+                for (int i = groupStart; i < groupEnd; i++) {
+                    if (!requests.get(i).lineTracker.isViewer(player.getBukkitPlayer()) && !isDuplicate(requests, groupStart, i)) {
+                        newLines++;
+                    }
+                }
+                if (newLines == 0) {
+                    continue;
+                }
+
+                // A hologram larger than the budget is spawned alone, otherwise it would never be spawned. The next
+                // holograms are postponed too, they must not be spawned before the better ones.
+                if (budgetExhausted || (spawned > 0 && spawned + newLines > spawnsPerTick)) {
+                    budgetExhausted = true;
+                    // The player is checked again in the next tick, requesting the spawn again if still in range
+                    hologramTracker.addPlayerToCheck(player);
+                    hologramTrackerConsumer.accept(hologramTracker);
+                    Set<LineTracker<?>> deferredLines = nextDeferredLinesByPlayer.computeIfAbsent(player, key -> new HashSet<>());
+                    for (int i = groupStart; i < groupEnd; i++) {
+                        LineTracker<?> lineTracker = requests.get(i).lineTracker;
+                        if (lineTracker.isViewer(player.getBukkitPlayer())) {
+                            continue;
+                        }
+                        if (deferredLines.add(lineTracker)
+                                && (previouslyDeferredLines == null || !previouslyDeferredLines.contains(lineTracker))) {
+                            deferredSpawns++;
+                        }
+                    }
+                    continue;
+                }
+
+                // Holograms added in this loop are never replaced, since the requests are sorted and only a strictly
+                // better hologram can replace another one
+                int missingLines = player.getTrackedLines().size() + newLines - linesPerPlayer;
+                if (missingLines > 0) {
+                    hologramsHidden = true; // Either the requested hologram or those it replaces
+                    if (!replaceWorseHolograms(player, requests.get(groupStart), missingLines)) {
+                        // Lines added to a hologram already displayed cannot be displayed alone
+                        hideHologram(player, hologramTracker);
+                        continue; // The next holograms are worse, but may be small enough to fit
+                    }
+                }
+
+                // Never replaced in this loop, even if it was already displayed
+                forgetDisplayedHologram(player, hologramTracker.getHologram());
+                for (int i = groupStart; i < groupEnd; i++) {
+                    SpawnRequest request = requests.get(i);
+                    // Also true for a line requested twice, once it's added
+                    if (request.lineTracker.isViewer(player.getBukkitPlayer())) {
+                        continue;
+                    }
+
+                    request.lineTracker.addScheduledViewer(player, request.distance);
+                    lineTrackersWithAddedViewers.add(request.lineTracker);
+                    spawned++;
+
+                    if (request.lineTracker instanceof TextLineTracker
+                            && ((TextLineTracker) request.lineTracker).isCollapsedIntoAnotherLine()) {
+                        // The line rendering the text must be updated again, to send it to the new viewer
+                        hologramTrackerConsumer.accept(hologramTracker);
+                    }
+                }
+            }
+
+            if (hologramsHidden) {
+                playersWithHiddenHolograms.put(player, player.getTrackedLines().size());
+            }
+            if (displayedHologramsPlayer != null) {
+                clearDisplayedHolograms();
+            }
+            requests.clear();
+        }
+        playersWithRequests.clear();
+
+        // Swap the maps, the lines postponed in this tick replace those of the previous one
+        Map<CachedPlayer, Set<LineTracker<?>>> deferredLinesByPlayer = this.deferredLinesByPlayer;
+        deferredLinesByPlayer.clear();
+        this.deferredLinesByPlayer = nextDeferredLinesByPlayer;
+        this.nextDeferredLinesByPlayer = deferredLinesByPlayer;
+
+        // Send the spawn packets once per line tracker, for all the players added
+        for (int i = 0; i < lineTrackersWithAddedViewers.size(); i++) {
+            lineTrackersWithAddedViewers.get(i).sendScheduledSpawnPackets();
+        }
+        lineTrackersWithAddedViewers.clear();
+    }
+
+    /**
+     * Returns true if the line of the request at the given index was also requested before it, in the same group. A line
+     * is requested twice if the player was checked twice by the hologram tracker.
+     */
+    private static boolean isDuplicate(List<SpawnRequest> requests, int groupStart, int index) {
+        LineTracker<?> lineTracker = requests.get(index).lineTracker;
+        for (int i = groupStart; i < index; i++) {
+            if (requests.get(i).lineTracker == lineTracker) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Hides from the player the worst holograms it sees, until at least the given number of lines is freed, only if
+     * they are all worse than the requested one. Returns false if nothing was hidden.
+     */
+    private boolean replaceWorseHolograms(CachedPlayer player, SpawnRequest request, int linesToFree) {
+        if (displayedHologramsPlayer != player) {
+            groupDisplayedHolograms(player);
+        }
+
+        int worseHolograms = 0;
+        int freedLines = 0;
+        while (freedLines < linesToFree && worseHolograms < worstDisplayedHolograms.size()) {
+            DisplayedHologram candidate = worstDisplayedHolograms.get(worseHolograms);
+            if (!isBetter(request, candidate)) {
+                break;
+            }
+            worseHolograms++;
+            freedLines += candidate.lineTrackers.size();
+        }
+        if (freedLines < linesToFree) {
+            return false;
+        }
+
+        for (int i = 0; i < worseHolograms; i++) {
+            DisplayedHologram worseHologram = worstDisplayedHolograms.get(i);
+            for (LineTracker<?> lineTracker : worseHologram.lineTrackers) {
+                lineTracker.removeViewerAndSendDestroyPackets(player);
+                replacedLines++;
+            }
+            displayedHolograms.remove(worseHologram.hologram);
+            recycleDisplayedHologram(worseHologram);
+        }
+        worstDisplayedHolograms.subList(0, worseHolograms).clear();
+        return true;
+    }
+
+    private void hideHologram(CachedPlayer player, HologramTracker hologramTracker) {
+        List<LineTracker<?>> lineTrackers = null;
+        for (LineTracker<?> lineTracker : player.getTrackedLines()) {
+            if (lineTracker.getLine().getHologram() == hologramTracker.getHologram()) {
+                if (lineTrackers == null) {
+                    lineTrackers = new ArrayList<>();
+                }
+                lineTrackers.add(lineTracker);
+            }
+        }
+        if (lineTrackers == null) {
+            return;
+        }
+
+        // Removed after iterating, removing the player from a line tracker also removes the line tracker from the player
+        for (LineTracker<?> lineTracker : lineTrackers) {
+            lineTracker.removeViewerAndSendDestroyPackets(player);
+            replacedLines++;
+        }
+        forgetDisplayedHologram(player, hologramTracker.getHologram());
+    }
+
+    private void groupDisplayedHolograms(CachedPlayer player) {
+        if (displayedHologramsPlayer != null) {
+            clearDisplayedHolograms();
+        }
+
+        for (LineTracker<?> lineTracker : player.getTrackedLines()) {
+            BaseHologram hologram = lineTracker.getLine().getHologram();
+            DisplayedHologram displayedHologram = displayedHolograms.get(hologram);
+            if (displayedHologram == null) {
+                displayedHologram = newDisplayedHologram(hologram, lineTracker.getPriority(), lineTracker.getViewerDistance(player));
+                displayedHolograms.put(hologram, displayedHologram);
+                worstDisplayedHolograms.add(displayedHologram);
+            }
+            displayedHologram.lineTrackers.add(lineTracker);
+        }
+        worstDisplayedHolograms.sort(WORST_FIRST);
+        displayedHologramsPlayer = player;
+    }
+
+    /**
+     * Removes the hologram from those displayed to the player, if they are grouped, because its lines changed.
+     */
+    private void forgetDisplayedHologram(CachedPlayer player, BaseHologram hologram) {
+        if (displayedHologramsPlayer != player) {
+            return;
+        }
+        DisplayedHologram displayedHologram = displayedHolograms.remove(hologram);
+        if (displayedHologram != null) {
+            worstDisplayedHolograms.remove(displayedHologram);
+            recycleDisplayedHologram(displayedHologram);
+        }
+    }
+
+    private void clearDisplayedHolograms() {
+        for (int i = 0; i < worstDisplayedHolograms.size(); i++) {
+            recycleDisplayedHologram(worstDisplayedHolograms.get(i));
+        }
+        worstDisplayedHolograms.clear();
+        displayedHolograms.clear();
+        displayedHologramsPlayer = null;
+    }
+
+    private DisplayedHologram newDisplayedHologram(BaseHologram hologram, int priority, double distance) {
+        DisplayedHologram displayedHologram;
+        if (recycledDisplayedHolograms.isEmpty()) {
+            displayedHologram = new DisplayedHologram();
+        } else {
+            displayedHologram = recycledDisplayedHolograms.remove(recycledDisplayedHolograms.size() - 1);
+        }
+        displayedHologram.hologram = hologram;
+        displayedHologram.priority = priority;
+        displayedHologram.distance = distance;
+        return displayedHologram;
+    }
+
+    private void recycleDisplayedHologram(DisplayedHologram displayedHologram) {
+        displayedHologram.hologram = null;
+        displayedHologram.lineTrackers.clear();
+        recycledDisplayedHolograms.add(displayedHologram);
+    }
+
+    private static boolean isBetter(SpawnRequest request, DisplayedHologram displayedHologram) {
+        return request.priority > displayedHologram.priority
+                || (request.priority == displayedHologram.priority && request.distance < displayedHologram.distance);
+    }
+
+    /**
+     * Returns the total number of line spawns postponed to a later tick because of the spawn budget. A spawn postponed
+     * for several ticks in a row is counted once.
+     */
+    long getDeferredSpawns() {
+        return deferredSpawns;
+    }
+
+    /**
+     * Returns the total number of lines hidden to make room for lines with a higher priority or nearer to the player.
+     */
+    long getReplacedLines() {
+        return replacedLines;
+    }
+
+
+    private static class DisplayedHologram {
+
+        private final List<LineTracker<?>> lineTrackers;
+        private BaseHologram hologram;
+        private int priority;
+        private double distance;
+
+        private DisplayedHologram() {
+            this.lineTrackers = new ArrayList<>();
+        }
+
+    }
+
+
+    private static class SpawnRequest {
+
+        private final LineTracker<?> lineTracker;
+        private final HologramTracker hologramTracker;
+        private final int priority;
+        private final double distance;
+
+        private SpawnRequest(LineTracker<?> lineTracker, HologramTracker hologramTracker, int priority, double distance) {
+            this.lineTracker = lineTracker;
+            this.hologramTracker = hologramTracker;
+            this.priority = priority;
+            this.distance = distance;
+        }
+
+    }
+
+}
@@ -6,25 +6,50 @@
 package me.filoghost.holographicdisplays.core.tracking;
 
 import me.filoghost.holographicdisplays.common.PositionCoordinates;
+import me.filoghost.holographicdisplays.core.CoreGlobalConfig;
 import me.filoghost.holographicdisplays.core.base.BaseTextHologramLine;
 import me.filoghost.holographicdisplays.core.listener.LineClickListener;
 import me.filoghost.holographicdisplays.core.placeholder.tracking.ActivePlaceholderTracker;
 import me.filoghost.holographicdisplays.core.tick.CachedPlayer;
 import me.filoghost.holographicdisplays.nms.common.IndividualTextPacketGroup;
+import me.filoghost.holographicdisplays.nms.common.DisplayEntitySupport;
 import me.filoghost.holographicdisplays.nms.common.NMSManager;
+import me.filoghost.holographicdisplays.nms.common.entity.RidingNMSPacketEntity;
+import me.filoghost.holographicdisplays.nms.common.entity.TextDisplayNMSPacketEntity;
 import me.filoghost.holographicdisplays.nms.common.entity.TextNMSPacketEntity;
 import org.jetbrains.annotations.MustBeInvokedByOverriders;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 public class TextLineTracker extends ClickableLineTracker<TextLineViewer> {
 
     private final BaseTextHologramLine line;
     private final TextNMSPacketEntity textEntity;
+    private final @Nullable TextDisplayNMSPacketEntity textDisplayEntity;
 
     private final DisplayText displayText;
     private boolean displayTextChanged;
 
+    // With text display entities, contiguous lines are rendered by the entity of the bottom line
+    private List<TextLineTracker> collapsedLines; // Lines above rendered by this one, null if none
+    private TextLineTracker collapsedInto; // Line rendering this one, null if rendered by its own entity
+    private boolean collapsedTextChanged;
+
+    // Viewers whose refreshes are resumed must receive the text refreshes they skipped
+    private boolean skippedTextRefreshesChanged;
+
+    // Text changes within the minimum interval are deferred, then only the latest text is sent
+    private int textUpdateCooldown;
+    private boolean textUpdateDeferred;
+
+    // Created once and reused while the viewers don't change, instead of allocating them every time the text changes
+    private final Consumer<TextLineViewer> refreshNextTextToSendAction;
+    private @Nullable Runnable textChangeTask;
+    private @Nullable Viewers<TextLineViewer> textChangeTaskViewers;
+
     public TextLineTracker(
             BaseTextHologramLine line,
             NMSManager nmsManager,
@@ -32,8 +57,16 @@ public class TextLineTracker extends ClickableLineTracker<TextLineViewer> {
             ActivePlaceholderTracker placeholderTracker) {
         super(line, nmsManager, lineClickListener);
         this.line = line;
-        this.textEntity = nmsManager.newTextPacketEntity();
+        DisplayEntitySupport displayEntitySupport = nmsManager.getDisplayEntitySupport();
+        if (CoreGlobalConfig.textDisplays && displayEntitySupport != null) {
+            this.textDisplayEntity = displayEntitySupport.newTextDisplayPacketEntity(CoreGlobalConfig.movementUpdateInterval);
+            this.textEntity = textDisplayEntity;
+        } else {
+            this.textDisplayEntity = null;
+            this.textEntity = nmsManager.newTextPacketEntity();
+        }
         this.displayText = new DisplayText(placeholderTracker);
+        this.refreshNextTextToSendAction = this::refreshNextTextToSend;
     }
 
     @Override
@@ -43,13 +76,151 @@ public class TextLineTracker extends ClickableLineTracker<TextLineViewer> {
 
     @Override
     protected boolean updatePlaceholders() {
-        boolean placeholdersChanged = displayText.updateReplacements(getViewers());
+        if (textUpdateCooldown > 0) {
+            textUpdateCooldown--;
+        }
+
+        boolean placeholdersChanged = displayText.updateReplacements(getViewersSnapshot());
+        if (collapsedTextChanged) {
+            collapsedTextChanged = false;
+            placeholdersChanged = true; // The text of a collapsed line changed, it must be sent with this one
+        }
+        if (skippedTextRefreshesChanged) {
+            skippedTextRefreshesChanged = false;
+            placeholdersChanged = true; // Viewers receive the latest text only if it differs from the last one sent
+        }
+        if (textUpdateDeferred && textUpdateCooldown == 0) {
+            textUpdateDeferred = false;
+            placeholdersChanged = true;
+        }
         if (placeholdersChanged) {
             displayTextChanged = true; // Mark as changed to trigger a packet send with updated placeholders
         }
         return placeholdersChanged;
     }
 
+    boolean isTextDisplay() {
+        return textDisplayEntity != null;
+    }
+
+    @Override
+    protected @Nullable RidingNMSPacketEntity getRidingEntity() {
+        // Collapsed lines are rendered by the entity of another line
+        return collapsedInto == null ? textDisplayEntity : null;
+    }
+
+    /**
+     * Sets the lines above this one (from top to bottom) whose text is rendered by the display entity of this line, or
+     * null to only render the text of this line. Viewers must be reset before changing the collapsed lines.
+     */
+    void setCollapsedLines(@Nullable List<TextLineTracker> collapsedLines) {
+        this.collapsedLines = collapsedLines;
+        this.collapsedInto = null;
+    }
+
+    /**
+     * Sets the line whose display entity renders the text of this line, instead of spawning a separate entity.
+     * Viewers must be reset before changing it.
+     */
+    void setCollapsedInto(TextLineTracker collapsedInto) {
+        this.collapsedInto = collapsedInto;
+        this.collapsedLines = null;
+    }
+
+    @Nullable List<TextLineTracker> getCollapsedLines() {
+        return collapsedLines;
+    }
+
+    @Nullable TextLineTracker getCollapsedInto() {
+        return collapsedInto;
+    }
+
+    boolean isCollapsedIntoAnotherLine() {
+        return collapsedInto != null;
+    }
+
+    @Override
+    protected boolean catchUpSkippedRefreshes(CachedPlayer player) {
+        TextLineViewer viewer = getViewer(player.getBukkitPlayer());
+        if (viewer == null || !viewer.isRefreshSkipped()) {
+            return false;
+        }
+
+        viewer.setRefreshSkipped(false);
+        if (displayText.containsIndividualPlaceholders()) {
+            viewer.updateIndividualText();
+        }
+        // Collapsed lines are sent by the line rendering them
+        if (collapsedInto != null) {
+            collapsedInto.skippedTextRefreshesChanged = true;
+        } else {
+            skippedTextRefreshesChanged = true;
+        }
+        return true;
+    }
+
+    /**
+     * Text changes are not essential: they are skipped for viewers with a congested connection or over the limit of text
+     * updates, which receive only the latest text once refreshes are resumed.
+     */
+    private void refreshNextTextToSend(TextLineViewer viewer) {
+        CachedPlayer player = viewer.getCachedPlayer();
+        if (!player.canRefreshText()) {
+            viewer.setRefreshSkipped(true);
+            player.onTextRefreshSkipped();
+            return;
+        }
+        if (updateNextTextToSend(viewer)) {
+            player.onTextRefreshed();
+        }
+    }
+
+    /**
+     * Returns true if the text to send changed.
+     */
+    private boolean updateNextTextToSend(TextLineViewer viewer) {
+        if (collapsedLines == null) {
+            return viewer.updateNextTextToSend();
+        }
+
+        StringBuilder text = new StringBuilder();
+        for (TextLineTracker collapsedLine : collapsedLines) {
+            // Players that are not viewers of a collapsed line (for example, because of the spawn limit) see it empty
+            TextLineViewer collapsedLineViewer = collapsedLine.getViewer(viewer.getCachedPlayer().getBukkitPlayer());
+            if (collapsedLineViewer != null) {
+                appendIfNotNull(text, collapsedLineViewer.getCurrentText());
+            }
+            text.append('\n');
+        }
+        appendIfNotNull(text, viewer.getCurrentText());
+        return viewer.setNextTextToSend(text.toString());
+    }
+
+    private int getTextUpdateIntervalTicks() {
+        int maxTextUpdatesPerSecond = CoreGlobalConfig.maxTextUpdatesPerSecond;
+        int hologramMaxTextUpdatesPerSecond = line.getHologram().getMaxTextUpdatesPerSecond();
+        if (hologramMaxTextUpdatesPerSecond > 0
+                && (maxTextUpdatesPerSecond <= 0 || hologramMaxTextUpdatesPerSecond < maxTextUpdatesPerSecond)) {
+            maxTextUpdatesPerSecond = hologramMaxTextUpdatesPerSecond;
+        }
+        if (maxTextUpdatesPerSecond <= 0) {
+            return 0;
+        }
+        return (20 + maxTextUpdatesPerSecond - 1) / maxTextUpdatesPerSecond; // Rounded up
+    }
+
+    private static void appendIfNotNull(StringBuilder stringBuilder, @Nullable String text) {
+        if (text != null) {
+            stringBuilder.append(text);
+        }
+    }
+
+    @Override
+    protected boolean requiresUpdateEveryTick() {
+        // Placeholders may change at any time and must be refreshed for the viewers, deferred text changes must be sent
+        return hasViewers() && (displayText.containsPlaceholders() || textUpdateCooldown > 0);
+    }
+
     @Override
     protected TextLineViewer createViewer(CachedPlayer cachedPlayer) {
         return new TextLineViewer(cachedPlayer, displayText);
@@ -85,12 +256,18 @@ public class TextLineTracker extends ClickableLineTracker<TextLineViewer> {
     protected void sendSpawnPackets(Viewers<TextLineViewer> viewers) {
         super.sendSpawnPackets(viewers);
 
+        if (collapsedInto != null) {
+            collapsedInto.collapsedTextChanged = true; // The new viewers must receive the text of this line
+            return;
+        }
+
         // Copy for async use
-        PositionCoordinates positionCoordinates = this.positionCoordinates;
-        viewers.forEach(TextLineViewer::updateNextTextToSend);
-        PacketSenderExecutor.execute(() -> {
-            IndividualTextPacketGroup spawnPackets = textEntity.newSpawnPackets(positionCoordinates);
-            viewers.forEach(viewer -> viewer.sendTextPackets(spawnPackets));
+        PositionCoordinates positionCoordinates = getEntityPositionCoordinates();
+        viewers.forEach(this::updateNextTextToSend);
+        PacketSenderExecutor.execute(viewers, () -> {
+            IndividualTextPacketGroup spawnPackets = PacketSenderExecutor.createOnce(
+                    () -> textEntity.newSpawnPackets(positionCoordinates));
+            viewers.forEach(viewer -> viewer.sendTextPackets(textEntity, spawnPackets));
         });
     }
 
@@ -98,8 +275,11 @@ public class TextLineTracker extends ClickableLineTracker<TextLineViewer> {
     @Override
     protected void sendDestroyPackets(Viewers<TextLineViewer> viewers) {
         super.sendDestroyPackets(viewers);
-        PacketSenderExecutor.execute(() -> {
-            viewers.sendPackets(textEntity.newDestroyPackets());
+        if (collapsedInto != null) {
+            return;
+        }
+        PacketSenderExecutor.execute(viewers, () -> {
+            viewers.sendDestroyPackets(textEntity);
         });
     }
 
@@ -108,27 +288,51 @@ public class TextLineTracker extends ClickableLineTracker<TextLineViewer> {
         super.sendChangesPackets(viewers);
 
         if (displayTextChanged) {
-            viewers.forEach(TextLineViewer::updateNextTextToSend);
-            PacketSenderExecutor.execute(() -> {
-                IndividualTextPacketGroup changePackets = textEntity.newChangePackets();
-                viewers.forEach(viewer -> viewer.sendTextPacketsIfNecessary(changePackets));
-            });
+            if (collapsedInto != null) {
+                collapsedInto.collapsedTextChanged = true; // Sent by the line rendering the text
+                return;
+            }
+            if (textUpdateCooldown > 0) {
+                textUpdateDeferred = true; // The latest text is sent when the cooldown ends
+                return;
+            }
+            textUpdateCooldown = getTextUpdateIntervalTicks();
+            viewers.forEach(refreshNextTextToSendAction);
+            PacketSenderExecutor.execute(viewers, getTextChangeTask(viewers));
         }
     }
 
+    /**
+     * The task only reads the text to send from the viewers when executed, so the same one can be submitted again.
+     */
+    private Runnable getTextChangeTask(Viewers<TextLineViewer> viewers) {
+        if (textChangeTask == null || textChangeTaskViewers != viewers) {
+            textChangeTaskViewers = viewers;
+            textChangeTask = () -> {
+                IndividualTextPacketGroup changePackets = PacketSenderExecutor.createOnce(textEntity::newChangePackets);
+                viewers.forEach(viewer -> viewer.sendTextPacketsIfNecessary(textEntity, changePackets));
+            };
+        }
+        return textChangeTask;
+    }
+
     @MustBeInvokedByOverriders
     @Override
     protected void sendPositionChangePackets(Viewers<TextLineViewer> viewers) {
         super.sendPositionChangePackets(viewers);
+        if (collapsedInto != null) {
+            return;
+        }
         // Copy for async use
-        PositionCoordinates positionCoordinates = this.positionCoordinates;
-        PacketSenderExecutor.execute(() -> {
-            viewers.sendPackets(textEntity.newTeleportPackets(positionCoordinates));
+        PositionCoordinates previousPositionCoordinates = getPreviousEntityPositionCoordinates();
+        PositionCoordinates positionCoordinates = getEntityPositionCoordinates();
+        PacketSenderExecutor.execute(viewers, () -> {
+            sendMovePackets(viewers, textEntity, previousPositionCoordinates, positionCoordinates);
         });
     }
 
     @Override
-    protected double getViewRange() {
+    protected double getDefaultViewRange() {
         return 64;
     }
 
@@ -7,6 +7,9 @@ package me.filoghost.holographicdisplays.core.tracking;
 
 import me.filoghost.holographicdisplays.core.tick.CachedPlayer;
 import me.filoghost.holographicdisplays.nms.common.IndividualTextPacketGroup;
+import me.filoghost.holographicdisplays.nms.common.entity.NMSPacketEntity;
+
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Objects;
 
@@ -19,21 +22,24 @@ class TextLineViewer extends Viewer {
     private String lastSentText;
     private String nextTextToSend;
 
+    // If the text was not refreshed because refreshes were paused for the player, only accessed from the main thread
+    private boolean refreshSkipped;
+
     TextLineViewer(CachedPlayer player, DisplayText displayText) {
         super(player);
         this.displayText = displayText;
     }
 
-    public void sendTextPackets(IndividualTextPacketGroup packets) {
+    public void sendTextPackets(NMSPacketEntity entity, IndividualTextPacketGroup packets) {
         String text;
         synchronized (this) {
             text = nextTextToSend;
             this.lastSentText = text;
         }
-        sendIndividualPackets(packets, text);
+        sendIndividualPackets(entity, packets, text);
     }
 
-    public void sendTextPacketsIfNecessary(IndividualTextPacketGroup packets) {
+    public void sendTextPacketsIfNecessary(NMSPacketEntity entity, IndividualTextPacketGroup packets) {
         String text;
         synchronized (this) {
             text = nextTextToSend;
@@ -42,22 +48,53 @@ class TextLineViewer extends Viewer {
             }
             this.lastSentText = text;
         }
-        sendIndividualPackets(packets, text);
+        sendIndividualUpdatePackets(entity, UpdateKind.TEXT, packets, text);
+    }
+
+    /**
+     * Returns true if the text to send changed.
+     */
+    public synchronized boolean updateNextTextToSend() {
+        return setNextTextToSend(getCurrentText());
+    }
+
+    /**
+     * Used when the text sent also contains the text of other lines.
+     */
+    public synchronized boolean setNextTextToSend(String text) {
+        boolean changed = !Objects.equals(nextTextToSend, text);
+        nextTextToSend = text;
+        return changed;
     }
 
-    public synchronized void updateNextTextToSend() {
+    public synchronized @Nullable String getCurrentText() {
         if (displayText.containsIndividualPlaceholders()) {
             if (individualText == null) {
                 individualText = displayText.computeIndividualText(this);
             }
-            nextTextToSend = individualText;
+            return individualText;
         } else {
             individualText = null;
-            nextTextToSend = displayText.getGlobalText();
+            return displayText.getGlobalText();
         }
     }
 
+    public boolean isRefreshSkipped() {
+        return refreshSkipped;
+    }
+
+    public void setRefreshSkipped(boolean refreshSkipped) {
+        this.refreshSkipped = refreshSkipped;
+    }
+
     public boolean updateIndividualText() {
+        if (!getCachedPlayer().canRefreshText()) {
+            // Computed again when refreshes are resumed, the text could not be sent anyway
+            refreshSkipped = true;
+            getCachedPlayer().onTextRefreshSkipped();
+            return false;
+        }
+
         String individualText = displayText.computeIndividualText(this);
         synchronized (this) {
             if (!Objects.equals(this.individualText, individualText)) {
@@ -0,0 +1,19 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.core.tracking;
+
+/**
+ * Packets which replace a part of the state of an entity: a newer update of the same kind for the same entity
+ * supersedes an older one not sent yet, see {@link PendingPacketUpdates}.
+ */
+enum UpdateKind {
+
+    TEXT,
+    ITEM,
+    ROTATION,
+    TELEPORT
+
+}
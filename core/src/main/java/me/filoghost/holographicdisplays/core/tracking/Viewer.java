@@ -7,6 +7,8 @@ package me.filoghost.holographicdisplays.core.tracking;
 
 import me.filoghost.holographicdisplays.nms.common.IndividualTextPacketGroup;
 import me.filoghost.holographicdisplays.nms.common.PacketGroup;
+import me.filoghost.holographicdisplays.nms.common.PacketWriter;
+import me.filoghost.holographicdisplays.nms.common.entity.NMSPacketEntity;
 import me.filoghost.holographicdisplays.core.tick.CachedPlayer;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
@@ -16,10 +18,44 @@ class Viewer {
 
     private final CachedPlayer player;
 
+    // Distance from the line at the last check, see HologramTracker
+    private double distance;
+
+    // If the player is beyond the view range, but not enough to be removed
+    private boolean inViewRangeMargin;
+
     Viewer(CachedPlayer player) {
         this.player = player;
     }
 
+    final CachedPlayer getCachedPlayer() {
+        return player;
+    }
+
+    final double getDistance() {
+        return distance;
+    }
+
+    final void setDistance(double distance) {
+        this.distance = distance;
+    }
+
+    final boolean isInViewRangeMargin() {
+        return inViewRangeMargin;
+    }
+
+    final void setInViewRangeMargin(boolean inViewRangeMargin) {
+        this.inViewRangeMargin = inViewRangeMargin;
+    }
+
+    final long getPacketSenderMask() {
+        return 1L << player.getPacketSenderIndex();
+    }
+
+    final boolean isHandledByCurrentThread() {
+        return PacketSenderExecutor.isHandledByCurrentThread(player);
+    }
+
     public final Player getBukkitPlayer() {
         return player.getBukkitPlayer();
     }
@@ -28,12 +64,49 @@ class Viewer {
         return player.getLocation();
     }
 
-    public void sendPackets(PacketGroup packetGroup) {
-        packetGroup.sendTo(player.getBukkitPlayer());
+    /**
+     * Sends packets concerning the entity, written after its updates held back, see {@link PendingPacketUpdates}. If
+     * the packets concern more entities, the entity is null and all the updates held back are written before them.
+     */
+    public void sendPackets(@Nullable NMSPacketEntity entity, PacketGroup packetGroup) {
+        packetGroup.writeTo(getPacketWriter(entity));
+    }
+
+    public void sendIndividualPackets(NMSPacketEntity entity, IndividualTextPacketGroup packetGroup, String text) {
+        packetGroup.writeTo(getPacketWriter(entity), text);
+    }
+
+    /**
+     * Sends packets which replace a part of the state of the entity, held back while the connection is congested and
+     * replaced by newer updates of the same kind, see {@link PendingPacketUpdates}.
+     */
+    public void sendUpdatePackets(NMSPacketEntity entity, UpdateKind kind, PacketGroup packetGroup) {
+        PacketSenderExecutor.sendUpdatePackets(player, entity, kind, packetGroup);
+    }
+
+    public void sendIndividualUpdatePackets(
+            NMSPacketEntity entity,
+            UpdateKind kind,
+            IndividualTextPacketGroup packetGroup,
+            String text) {
+        // The held back update is only allocated if the packets cannot be written immediately
+        if (PacketSenderExecutor.isCongested(player)) {
+            sendUpdatePackets(entity, kind, packetWriter -> packetGroup.writeTo(packetWriter, text));
+        } else {
+            sendIndividualPackets(entity, packetGroup, text);
+        }
+    }
+
+    /**
+     * Destroys the entity together with the other entities destroyed for the same player, with a single packet written
+     * before the next packets to the player or at the end of the tick.
+     */
+    public void sendDestroyPackets(NMSPacketEntity entity) {
+        PacketSenderExecutor.addEntityToDestroy(player, entity);
     }
 
-    public void sendIndividualPackets(IndividualTextPacketGroup packetGroup, String text) {
-        packetGroup.sendTo(player.getBukkitPlayer(), text);
+    private PacketWriter getPacketWriter(@Nullable NMSPacketEntity entity) {
+        return PacketSenderExecutor.getPacketWriter(player, entity);
     }
 
 }
@@ -6,15 +6,33 @@
 package me.filoghost.holographicdisplays.core.tracking;
 
 import me.filoghost.holographicdisplays.nms.common.PacketGroup;
+import me.filoghost.holographicdisplays.nms.common.entity.NMSPacketEntity;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.function.Consumer;
 
 interface Viewers<T extends Viewer> {
 
+    /**
+     * Visits the viewers, except those handled by another thread when called from a packet sender thread.
+     */
     void forEach(Consumer<? super T> action);
 
-    default void sendPackets(PacketGroup packetGroup) {
-        forEach(viewer -> viewer.sendPackets(packetGroup));
+    /**
+     * Returns the bits of the packet sender threads of the viewers, see {@link PacketSenderExecutor}.
+     */
+    long getPacketSenderMask();
+
+    default void sendPackets(@Nullable NMSPacketEntity entity, PacketGroup packetGroup) {
+        forEach(viewer -> viewer.sendPackets(entity, packetGroup));
+    }
+
+    default void sendUpdatePackets(NMSPacketEntity entity, UpdateKind kind, PacketGroup packetGroup) {
+        forEach(viewer -> viewer.sendUpdatePackets(entity, kind, packetGroup));
+    }
+
+    default void sendDestroyPackets(NMSPacketEntity entity) {
+        forEach(viewer -> viewer.sendDestroyPackets(entity));
     }
 
 }
@@ -5,13 +5,19 @@
  */
 package me.filoghost.holographicdisplays.core.test;
 
+import me.filoghost.holographicdisplays.nms.common.DisplayEntitySupport;
+import me.filoghost.holographicdisplays.nms.common.EntityID;
 import me.filoghost.holographicdisplays.nms.common.NMSManager;
+import me.filoghost.holographicdisplays.nms.common.PacketGroup;
 import me.filoghost.holographicdisplays.nms.common.PacketListener;
+import me.filoghost.holographicdisplays.nms.common.PacketWriter;
 import me.filoghost.holographicdisplays.nms.common.entity.ClickableNMSPacketEntity;
 import me.filoghost.holographicdisplays.nms.common.entity.ItemNMSPacketEntity;
 import me.filoghost.holographicdisplays.nms.common.entity.TextNMSPacketEntity;
 import org.bukkit.entity.Player;
 
+import java.util.List;
+
 public class TestNMSManager implements NMSManager {
 
     @Override
@@ -29,6 +35,12 @@ public class TestNMSManager implements NMSManager {
         return null;
     }
 
+    @Override
+    public PacketGroup newDestroyPackets(List<EntityID> entityIDs) {
+        int destroyedEntities = entityIDs.size();
+        return packetWriter -> packetWriter.write("destroy " + destroyedEntities);
+    }
+
     @Override
     public void injectPacketListener(Player player, PacketListener packetListener) {
 
@@ -39,4 +51,19 @@ public class TestNMSManager implements NMSManager {
 
     }
 
+    @Override
+    public PacketWriter newPacketWriter(Player player) {
+        return new TestPacketWriter();
+    }
+
+    @Override
+    public boolean supportsBundlePackets() {
+        return false;
+    }
+
+    @Override
+    public DisplayEntitySupport getDisplayEntitySupport() {
+        return null;
+    }
+
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.core.test;
+
+import me.filoghost.holographicdisplays.nms.common.EncodedPacketCache;
+import me.filoghost.holographicdisplays.nms.common.PacketWriter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the packets written by the sender threads, which are visible to the tests once flushed.
+ */
+public class TestPacketWriter implements PacketWriter {
+
+    private static final long FLUSH_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+    private final List<Object> writtenPackets = new ArrayList<>();
+    private final List<Object> flushedPackets = new ArrayList<>();
+    private int flushes;
+    private volatile boolean congested;
+
+    @Override
+    public synchronized void write(Object rawPacket) {
+        writtenPackets.add(rawPacket);
+    }
+
+    @Override
+    public void setEncodedPacketCache(EncodedPacketCache encodedPacketCache) {
+
+    }
+
+    @Override
+    public boolean isCongested() {
+        return congested;
+    }
+
+    public void setCongested(boolean congested) {
+        this.congested = congested;
+    }
+
+    @Override
+    public synchronized boolean hasPendingFlush() {
+        return !writtenPackets.isEmpty();
+    }
+
+    @Override
+    public synchronized void flush() {
+        flushedPackets.addAll(writtenPackets);
+        writtenPackets.clear();
+        flushes++;
+        notifyAll();
+    }
+
+    /**
+     * Waits until the writer is flushed the given number of times in total, then returns all the packets flushed so far.
+     */
+    public synchronized List<Object> awaitFlushedPackets(int expectedFlushes) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + FLUSH_TIMEOUT_MILLIS;
+        while (flushes < expectedFlushes) {
+            long remainingMillis = deadline - System.currentTimeMillis();
+            if (remainingMillis <= 0) {
+                throw new AssertionError("expected " + expectedFlushes + " flushes, but got " + flushes);
+            }
+            wait(remainingMillis);
+        }
+        return new ArrayList<>(flushedPackets);
+    }
+
+    public synchronized int getFlushes() {
+        return flushes;
+    }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.core.tick;
+
+import com.sun.management.ThreadMXBean;
+import me.filoghost.holographicdisplays.api.hologram.Hologram;
+import me.filoghost.holographicdisplays.api.hologram.PlaceholderSetting;
+import me.filoghost.holographicdisplays.core.api.current.APIHologramManager;
+import me.filoghost.holographicdisplays.core.base.ImmutablePosition;
+import me.filoghost.holographicdisplays.core.listener.LineClickListener;
+import me.filoghost.holographicdisplays.core.placeholder.registry.PlaceholderRegistry;
+import me.filoghost.holographicdisplays.core.placeholder.tracking.ActivePlaceholderTracker;
+import me.filoghost.holographicdisplays.core.test.Mocks;
+import me.filoghost.holographicdisplays.core.tracking.LineTrackerManager;
+import me.filoghost.holographicdisplays.core.tracking.PacketSenderExecutor;
+import me.filoghost.holographicdisplays.nms.common.NMSManager;
+import me.filoghost.holographicdisplays.nms.common.PacketWriter;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.*;
+import static org.mockito.Mockito.*;
+
+class TickAllocationTest {
+
+    private static final String WORLD_NAME = "allocation_test";
+    private static final int MAX_VIEW_RANGE = 144;
+
+    private static final int PLAYERS = 20;
+    private static final int WARMUP_TICKS = 500;
+    private static final int MEASURED_TICKS = 2000;
+
+    // Allows rare allocations, such as a cell of the spatial index created again when a player enters it, and the text
+    // of the line with a placeholder replaced every tick, but not allocations for each player or line every tick
+    private static final long MAX_ALLOCATED_BYTES_PER_TICK = 512;
+
+    // Created in advance, the replacements should not count as allocations of the tick
+    private static final String[] PLACEHOLDER_REPLACEMENTS = new String[20];
+
+    static {
+        for (int i = 0; i < PLACEHOLDER_REPLACEMENTS.length; i++) {
+            PLACEHOLDER_REPLACEMENTS[i] = String.valueOf(i);
+        }
+    }
+
+    static World world = mock(World.class);
+    static NMSManager nmsManager = mock(NMSManager.class, RETURNS_MOCKS);
+
+    PlaceholderRegistry placeholderRegistry = new PlaceholderRegistry();
+    TickClock tickClock = new TickClock();
+    ActivePlaceholderTracker placeholderTracker = new ActivePlaceholderTracker(placeholderRegistry, tickClock);
+    LineTrackerManager lineTrackerManager = new LineTrackerManager(nmsManager, placeholderTracker, new LineClickListener());
+    APIHologramManager hologramManager = new APIHologramManager(lineTrackerManager);
+
+    List<CachedPlayer> players = new ArrayList<>();
+    List<CachedPlayer> movedPlayers = new ArrayList<>();
+    int currentTick;
+
+    @BeforeAll
+    static void beforeAll() {
+        Mocks.prepareEnvironment();
+        when(Mocks.SERVER.getWorld(WORLD_NAME)).thenReturn(world);
+        when(Mocks.SERVER.getViewDistance()).thenReturn(10);
+        when(world.isChunkLoaded(anyInt(), anyInt())).thenReturn(true);
+        PacketSenderExecutor.start(nmsManager);
+    }
+
+    @AfterAll
+    static void afterAll() {
+        PacketSenderExecutor.stopGracefully();
+    }
+
+    @Test
+    void steadyTickWithMovingPlayers() {
+        ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        long threadID = Thread.currentThread().getId();
+
+        // Holograms near the origin, always in range of the players walking around it across the borders of the cells
+        for (int x = -16; x <= 16; x += 16) {
+            for (int z = -16; z <= 16; z += 16) {
+                Hologram hologram = hologramManager.createHologram(new ImmutablePosition(WORLD_NAME, x, 70, z), Mocks.PLUGIN);
+                hologram.getLines().appendText("First line");
+                hologram.getLines().appendText("Second line");
+                hologram.getLines().appendText("Third line");
+            }
+        }
+
+        // A line whose text changes every tick, sent to all the players
+        placeholderRegistry.registerGlobalPlaceholder(Mocks.PLUGIN, "tick", 1,
+                argument -> PLACEHOLDER_REPLACEMENTS[currentTick % PLACEHOLDER_REPLACEMENTS.length]);
+        Hologram placeholderHologram = hologramManager.createHologram(new ImmutablePosition(WORLD_NAME, 0, 75, 0), Mocks.PLUGIN);
+        placeholderHologram.setPlaceholderSetting(PlaceholderSetting.ENABLE_ALL);
+        placeholderHologram.getLines().appendText("Tick {tick}");
+
+        for (int i = 0; i < PLAYERS; i++) {
+            players.add(new CachedPlayer(mockPlayer(i), mock(PacketWriter.class)));
+        }
+
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            tick();
+        }
+
+        // The measurement itself may allocate on older Java versions
+        long measurementOverhead = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadID);
+            measurementOverhead = Math.min(measurementOverhead, threadMXBean.getThreadAllocatedBytes(threadID) - allocatedBytes);
+        }
+
+        long totalAllocatedBytes = 0;
+        for (int i = 0; i < MEASURED_TICKS; i++) {
+            long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadID);
+            tick();
+            totalAllocatedBytes += threadMXBean.getThreadAllocatedBytes(threadID) - allocatedBytes - measurementOverhead;
+        }
+
+        assertThat(lineTrackerManager.getTrackedLines(players.get(0))).hasSize(28);
+        assertThat(totalAllocatedBytes / MEASURED_TICKS)
+                .as("bytes allocated per tick")
+                .isLessThanOrEqualTo(MAX_ALLOCATED_BYTES_PER_TICK);
+    }
+
+    // Same steps as the ticking task
+    private void tick() {
+        tickClock.incrementTick();
+        placeholderTracker.clearOutdatedEntries();
+        moveAndSamplePlayers();
+        lineTrackerManager.update(movedPlayers, MAX_VIEW_RANGE);
+        PacketSenderExecutor.flush();
+    }
+
+    private void moveAndSamplePlayers() {
+        currentTick++;
+        movedPlayers.clear();
+        for (CachedPlayer player : players) {
+            player.onTick();
+            if (player.isMovedLastTick()) {
+                movedPlayers.add(player);
+            }
+        }
+    }
+
+    private Player mockPlayer(int index) {
+        return mock(WalkingPlayer.class, withSettings().useConstructor(index).outerInstance(this));
+    }
+
+    /**
+     * Walks in a circle around the origin. The location is computed by a final method, which is not stubbed by the mock
+     * and allocates nothing, like the location of a real player.
+     */
+    abstract class WalkingPlayer implements Player {
+
+        private final int index;
+
+        WalkingPlayer(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public final Location getLocation(Location location) {
+            double angle = currentTick * 0.02 + index;
+            location.setWorld(world);
+            location.setX(24 * Math.cos(angle));
+            location.setY(70);
+            location.setZ(24 * Math.sin(angle));
+            return location;
+        }
+
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.core.tracking;
+
+import me.filoghost.holographicdisplays.core.test.TestNMSManager;
+import me.filoghost.holographicdisplays.core.test.TestPacketWriter;
+import me.filoghost.holographicdisplays.core.tick.CachedPlayer;
+import me.filoghost.holographicdisplays.nms.common.EntityID;
+import me.filoghost.holographicdisplays.nms.common.PacketGroup;
+import me.filoghost.holographicdisplays.nms.common.entity.NMSPacketEntity;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PacketSenderExecutorTest {
+
+    TestPacketWriter packetWriter = new TestPacketWriter();
+    MutableViewers<Viewer> viewers = newViewers(packetWriter);
+
+    @BeforeAll
+    static void beforeAll() {
+        PacketSenderExecutor.start(new TestNMSManager());
+    }
+
+    @AfterAll
+    static void afterAll() {
+        PacketSenderExecutor.stopGracefully();
+    }
+
+    @Test
+    void packetsWrittenInOrderWithSingleFlush() throws InterruptedException {
+        sendPackets(viewers, "first");
+        sendPackets(viewers, "second", "third");
+        PacketSenderExecutor.flush();
+
+        assertThat(packetWriter.awaitFlushedPackets(1)).containsExactly("first", "second", "third");
+        assertThat(packetWriter.getFlushes()).isEqualTo(1);
+    }
+
+    @Test
+    void flushedOncePerTick() throws InterruptedException {
+        sendPackets(viewers, "first");
+        PacketSenderExecutor.flush();
+        sendPackets(viewers, "second");
+        PacketSenderExecutor.flush();
+
+        assertThat(packetWriter.awaitFlushedPackets(2)).containsExactly("first", "second");
+        assertThat(packetWriter.getFlushes()).isEqualTo(2);
+    }
+
+    @Test
+    void destroyedEntitiesWrittenBeforeNextPackets() throws InterruptedException {
+        NMSPacketEntity firstEntity = newEntity();
+        NMSPacketEntity secondEntity = newEntity();
+        PacketSenderExecutor.execute(viewers, () -> viewers.forEach(viewer -> {
+            viewer.sendDestroyPackets(firstEntity);
+            viewer.sendDestroyPackets(secondEntity);
+        }));
+        sendPackets(viewers, "spawn");
+        PacketSenderExecutor.flush();
+
+        assertThat(packetWriter.awaitFlushedPackets(1)).containsExactly("destroy 2", "spawn");
+    }
+
+    @Test
+    void destroyedEntitiesWrittenAtEndOfTick() throws InterruptedException {
+        NMSPacketEntity entity = newEntity();
+        sendPackets(viewers, "spawn");
+        PacketSenderExecutor.execute(viewers, () -> viewers.forEach(viewer -> viewer.sendDestroyPackets(entity)));
+        PacketSenderExecutor.flush();
+
+        assertThat(packetWriter.awaitFlushedPackets(1)).containsExactly("spawn", "destroy 1");
+    }
+
+    @Test
+    void updatesHeldBackWhileCongested() throws InterruptedException {
+        NMSPacketEntity entity = newEntity();
+        NMSPacketEntity otherEntity = newEntity();
+        packetWriter.setCongested(true);
+        PacketSenderExecutor.execute(viewers, () -> viewers.forEach(viewer -> {
+            viewer.sendUpdatePackets(entity, UpdateKind.TELEPORT, packetWriter -> packetWriter.write("old teleport"));
+            viewer.sendUpdatePackets(entity, UpdateKind.TELEPORT, packetWriter -> packetWriter.write("teleport"));
+            viewer.sendUpdatePackets(otherEntity, UpdateKind.TELEPORT, packetWriter -> packetWriter.write("other teleport"));
+            viewer.sendPackets(entity, packetWriter -> packetWriter.write("move"));
+        }));
+        PacketSenderExecutor.flush();
+
+        // Only the updates of the entity concerned by the next packets are written before them
+        assertThat(packetWriter.awaitFlushedPackets(1)).containsExactly("teleport", "move");
+
+        packetWriter.setCongested(false);
+        PacketSenderExecutor.flush();
+
+        assertThat(packetWriter.awaitFlushedPackets(2)).containsExactly("teleport", "move", "other teleport");
+    }
+
+    @Test
+    void viewersOfDifferentThreads() throws InterruptedException {
+        TestPacketWriter otherPacketWriter = new TestPacketWriter();
+        MutableViewers<Viewer> sharedViewers = newViewers(packetWriter);
+        sharedViewers.add(new Viewer(new CachedPlayer(mock(Player.class), otherPacketWriter)));
+
+        sendPackets(sharedViewers, "first");
+        sendPackets(sharedViewers, "second");
+        PacketSenderExecutor.flush();
+
+        assertThat(packetWriter.awaitFlushedPackets(1)).containsExactly("first", "second");
+        assertThat(otherPacketWriter.awaitFlushedPackets(1)).containsExactly("first", "second");
+    }
+
+    @Test
+    void packetsCreatedOnceForViewersOfDifferentThreads() throws InterruptedException {
+        TestPacketWriter[] packetWriters = new TestPacketWriter[8];
+        MutableViewers<Viewer> sharedViewers = new MutableViewers<>();
+        for (int i = 0; i < packetWriters.length; i++) {
+            packetWriters[i] = new TestPacketWriter();
+            sharedViewers.add(new Viewer(new CachedPlayer(mock(Player.class), packetWriters[i])));
+        }
+
+        AtomicInteger createdPackets = new AtomicInteger();
+        PacketSenderExecutor.execute(sharedViewers, () -> {
+            PacketGroup packets = PacketSenderExecutor.createOnce(() -> {
+                createdPackets.incrementAndGet();
+                return packetWriter -> packetWriter.write("packet");
+            });
+            sharedViewers.sendPackets(null, packets);
+        });
+        PacketSenderExecutor.flush();
+
+        for (TestPacketWriter packetWriter : packetWriters) {
+            assertThat(packetWriter.awaitFlushedPackets(1)).containsExactly("packet");
+        }
+        assertThat(createdPackets).hasValue(1);
+    }
+
+    private static void sendPackets(Viewers<Viewer> viewers, String... packets) {
+        PacketSenderExecutor.execute(viewers, () -> viewers.forEach(viewer -> viewer.sendPackets(null, packetWriter -> {
+            for (String packet : packets) {
+                packetWriter.write(packet);
+            }
+        })));
+    }
+
+    private static MutableViewers<Viewer> newViewers(TestPacketWriter packetWriter) {
+        MutableViewers<Viewer> viewers = new MutableViewers<>();
+        viewers.add(new Viewer(new CachedPlayer(mock(Player.class), packetWriter)));
+        return viewers;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static NMSPacketEntity newEntity() {
+        NMSPacketEntity entity = mock(NMSPacketEntity.class);
+        doAnswer(invocation -> ((List<EntityID>) invocation.getArgument(0)).add(new EntityID(() -> 1)))
+                .when(entity).addDestroyedEntityIDs(any());
+        return entity;
+    }
+
+}
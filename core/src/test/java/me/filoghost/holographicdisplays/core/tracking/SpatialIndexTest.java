@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.core.tracking;
+
+import org.bukkit.World;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SpatialIndexTest {
+
+    World world = mock(World.class);
+    World otherWorld = mock(World.class);
+
+    SpatialIndex<String> index = new SpatialIndex<>();
+
+    @Test
+    void nearbyElements() {
+        index.put("near", world, 10, 10);
+        index.put("far", world, 1000, 1000);
+        index.put("otherWorld", otherWorld, 10, 10);
+
+        assertThat(getElementsNear(world, 0, 0, 16)).containsExactly("near");
+    }
+
+    @Test
+    void moveElement() {
+        index.put("element", world, 10, 10);
+        index.put("element", world, 1000, 1000);
+
+        assertThat(getElementsNear(world, 0, 0, 16)).isEmpty();
+        assertThat(getElementsNear(world, 1000, 1000, 16)).containsExactly("element");
+    }
+
+    @Test
+    void moveElementToOtherWorld() {
+        index.put("element", world, 10, 10);
+        index.put("element", otherWorld, 10, 10);
+
+        assertThat(getElementsNear(world, 10, 10, 16)).isEmpty();
+        assertThat(getElementsNear(otherWorld, 10, 10, 16)).containsExactly("element");
+    }
+
+    @Test
+    void removeElement() {
+        index.put("element", world, 10, 10);
+        index.remove("element");
+
+        assertThat(getElementsNear(world, 10, 10, 16)).isEmpty();
+        assertThat(index.getCell("element")).isNull();
+    }
+
+    @ParameterizedTest
+    @ValueSource(doubles = {0, 0.5, 15.5, 16, 48, 63.9, 64, 64.1, 128, 200})
+    void elementsWithinRangeAreAlwaysNearby(double range) {
+        double[] positions = {-130.7, -64, -63.99, -0.01, 0, 0.01, 63.99, 64, 127.5};
+        for (double elementPosition : positions) {
+            for (double queryPosition : positions) {
+                if (Math.abs(elementPosition - queryPosition) > range) {
+                    continue;
+                }
+
+                index.put("element", world, elementPosition, elementPosition);
+                assertThat(getElementsNear(world, queryPosition, queryPosition, range))
+                        .as("element at %s, query at %s", elementPosition, queryPosition)
+                        .containsExactly("element");
+            }
+        }
+    }
+
+    private List<String> getElementsNear(World world, double x, double z, double range) {
+        return index.getElementsNear(
+                world,
+                SpatialIndex.toCellCoordinate(x),
+                SpatialIndex.toCellCoordinate(z),
+                SpatialIndex.toCellRadius(range));
+    }
+
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.core.tracking;
+
+import me.filoghost.holographicdisplays.api.hologram.Hologram;
+import me.filoghost.holographicdisplays.core.api.current.APIHologramManager;
+import me.filoghost.holographicdisplays.core.base.BaseHologram;
+import me.filoghost.holographicdisplays.core.base.BaseHologramLine;
+import me.filoghost.holographicdisplays.core.base.ImmutablePosition;
+import me.filoghost.holographicdisplays.core.test.Mocks;
+import me.filoghost.holographicdisplays.core.tick.CachedPlayer;
+import me.filoghost.holographicdisplays.nms.common.NMSManager;
+import me.filoghost.holographicdisplays.nms.common.PacketWriter;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SpawnSchedulerTest {
+
+    private static final int NO_LIMIT = 0;
+
+    APIHologramManager hologramManager = new APIHologramManager(mock(LineTrackerManager.class));
+    SpawnScheduler spawnScheduler = new SpawnScheduler();
+    CachedPlayer player = new CachedPlayer(mock(Player.class), mock(PacketWriter.class));
+
+    Map<HologramTracker, List<LineTracker<?>>> lineTrackers = new HashMap<>();
+    List<HologramTracker> hologramTrackersToUpdate = new ArrayList<>();
+
+    @BeforeAll
+    static void beforeAll() {
+        Mocks.prepareEnvironment();
+    }
+
+    @Test
+    void nearestHologramsSpawnedWithinBudget() {
+        HologramTracker far = newHologram(2);
+        HologramTracker near = newHologram(2);
+
+        requestSpawn(far, 20);
+        requestSpawn(near, 10);
+        spawnRequestedLines(3, NO_LIMIT);
+
+        assertThat(getDisplayedLines(near)).isEqualTo(2);
+        assertThat(getDisplayedLines(far)).isZero();
+        assertThat(hologramTrackersToUpdate).containsExactly(far);
+        assertThat(spawnScheduler.getDeferredSpawns()).isEqualTo(2);
+    }
+
+    @Test
+    void hologramLargerThanBudgetSpawnedAlone() {
+        HologramTracker hologram = newHologram(3);
+
+        requestSpawn(hologram, 10);
+        spawnRequestedLines(2, NO_LIMIT);
+
+        assertThat(getDisplayedLines(hologram)).isEqualTo(3);
+        assertThat(spawnScheduler.getDeferredSpawns()).isZero();
+    }
+
+    @Test
+    void linesPostponedAgainCountedOnce() {
+        HologramTracker far = newHologram(2);
+        HologramTracker near = newHologram(2);
+        HologramTracker nearer = newHologram(2);
+
+        requestSpawn(far, 30);
+        requestSpawn(near, 20);
+        spawnRequestedLines(2, NO_LIMIT);
+
+        requestSpawn(far, 30);
+        requestSpawn(nearer, 10);
+        spawnRequestedLines(2, NO_LIMIT);
+
+        assertThat(getDisplayedLines(near)).isEqualTo(2);
+        assertThat(getDisplayedLines(nearer)).isEqualTo(2);
+        assertThat(getDisplayedLines(far)).isZero();
+        assertThat(spawnScheduler.getDeferredSpawns()).isEqualTo(2);
+    }
+
+    @Test
+    void duplicateRequestsCountedOnceInBudget() {
+        HologramTracker near = newHologram(2);
+        HologramTracker far = newHologram(2);
+
+        requestSpawn(near, 10);
+        requestSpawn(near, 10);
+        requestSpawn(far, 20);
+        requestSpawn(far, 20);
+        spawnRequestedLines(4, NO_LIMIT);
+
+        assertThat(getDisplayedLines(near)).isEqualTo(2);
+        assertThat(getDisplayedLines(far)).isEqualTo(2);
+        assertThat(spawnScheduler.getDeferredSpawns()).isZero();
+    }
+
+    @Test
+    void duplicateRequestsCountedOnceInMaxLines() {
+        HologramTracker hologram = newHologram(2);
+
+        requestSpawn(hologram, 10);
+        requestSpawn(hologram, 10);
+        spawnRequestedLines(NO_LIMIT, 2);
+
+        assertThat(getDisplayedLines(hologram)).isEqualTo(2);
+        assertThat(spawnScheduler.getReplacedLines()).isZero();
+    }
+
+    @Test
+    void nearerHologramReplacesFartherOne() {
+        HologramTracker far = newHologram(2);
+        HologramTracker near = newHologram(2);
+
+        requestSpawn(far, 20);
+        spawnRequestedLines(NO_LIMIT, 2);
+        requestSpawn(near, 10);
+        spawnRequestedLines(NO_LIMIT, 2);
+
+        assertThat(getDisplayedLines(near)).isEqualTo(2);
+        assertThat(getDisplayedLines(far)).isZero();
+        assertThat(spawnScheduler.getReplacedLines()).isEqualTo(2);
+    }
+
+    @Test
+    void higherPriorityReplacesNearerHologram() {
+        HologramTracker near = newHologram(1);
+        HologramTracker important = newHologram(1);
+        important.getHologram().setPriority(1);
+
+        requestSpawn(near, 10);
+        spawnRequestedLines(NO_LIMIT, 1);
+        requestSpawn(important, 20);
+        spawnRequestedLines(NO_LIMIT, 1);
+
+        assertThat(getDisplayedLines(important)).isEqualTo(1);
+        assertThat(getDisplayedLines(near)).isZero();
+    }
+
+    @Test
+    void onlyWholeHologramsReplaced() {
+        HologramTracker farthest = newHologram(2);
+        HologramTracker far = newHologram(1);
+        HologramTracker near = newHologram(1);
+
+        requestSpawn(farthest, 30);
+        requestSpawn(far, 20);
+        spawnRequestedLines(NO_LIMIT, 3);
+        requestSpawn(near, 10);
+        spawnRequestedLines(NO_LIMIT, 3);
+
+        // A single line is missing, but the farthest hologram is not displayed partially
+        assertThat(getDisplayedLines(near)).isEqualTo(1);
+        assertThat(getDisplayedLines(far)).isEqualTo(1);
+        assertThat(getDisplayedLines(farthest)).isZero();
+        assertThat(spawnScheduler.getReplacedLines()).isEqualTo(2);
+    }
+
+    @Test
+    void severalHologramsReplacedInSameTick() {
+        HologramTracker farthest = newHologram(1);
+        HologramTracker far = newHologram(1);
+        HologramTracker near = newHologram(1);
+        HologramTracker nearest = newHologram(1);
+
+        requestSpawn(farthest, 40);
+        requestSpawn(far, 30);
+        spawnRequestedLines(NO_LIMIT, 2);
+        requestSpawn(near, 20);
+        requestSpawn(nearest, 10);
+        spawnRequestedLines(NO_LIMIT, 2);
+
+        assertThat(getDisplayedLines(nearest)).isEqualTo(1);
+        assertThat(getDisplayedLines(near)).isEqualTo(1);
+        assertThat(getDisplayedLines(far)).isZero();
+        assertThat(getDisplayedLines(farthest)).isZero();
+        assertThat(spawnScheduler.getReplacedLines()).isEqualTo(2);
+    }
+
+    @Test
+    void worseHologramRequestedAgainAfterSlotFreed() {
+        HologramTracker near = newHologram(2);
+        HologramTracker far = newHologram(2);
+
+        requestSpawn(near, 10);
+        spawnRequestedLines(NO_LIMIT, 2);
+        requestSpawn(far, 20);
+        spawnRequestedLines(NO_LIMIT, 2);
+
+        assertThat(getDisplayedLines(near)).isEqualTo(2);
+        assertThat(getDisplayedLines(far)).isZero();
+        assertThat(collectPlayersToReschedule()).isEmpty();
+
+        lineTrackers.get(near).get(0).removeViewerAndSendDestroyPackets(player);
+
+        assertThat(collectPlayersToReschedule()).containsExactly(player);
+        assertThat(collectPlayersToReschedule()).isEmpty();
+    }
+
+    private HologramTracker newHologram(int lines) {
+        Hologram hologram = hologramManager.createHologram(new ImmutablePosition("world", 0, 0, 0), Mocks.PLUGIN);
+        HologramTracker hologramTracker = new HologramTracker((BaseHologram) hologram, mock(NMSManager.class));
+        List<LineTracker<?>> hologramLineTrackers = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            BaseHologramLine line = (BaseHologramLine) hologram.getLines().appendText("Line " + i);
+            TestLineTracker lineTracker = new TestLineTracker(line);
+            hologramTracker.addLineTracker(lineTracker);
+            hologramLineTrackers.add(lineTracker);
+        }
+        lineTrackers.put(hologramTracker, hologramLineTrackers);
+        return hologramTracker;
+    }
+
+    private void requestSpawn(HologramTracker hologramTracker, double distance) {
+        for (LineTracker<?> lineTracker : lineTrackers.get(hologramTracker)) {
+            spawnScheduler.requestSpawn(lineTracker, hologramTracker, player, distance);
+        }
+    }
+
+    private void spawnRequestedLines(int spawnsPerTick, int linesPerPlayer) {
+        hologramTrackersToUpdate.clear();
+        spawnScheduler.spawnRequestedLines(spawnsPerTick, linesPerPlayer, hologramTrackersToUpdate::add);
+    }
+
+    private List<CachedPlayer> collectPlayersToReschedule() {
+        List<CachedPlayer> players = new ArrayList<>();
+        spawnScheduler.collectPlayersToReschedule(players);
+        return players;
+    }
+
+    private int getDisplayedLines(HologramTracker hologramTracker) {
+        int displayedLines = 0;
+        for (LineTracker<?> lineTracker : lineTrackers.get(hologramTracker)) {
+            if (lineTracker.isViewer(player.getBukkitPlayer())) {
+                displayedLines++;
+            }
+        }
+        return displayedLines;
+    }
+
+
+    private static class TestLineTracker extends LineTracker<Viewer> {
+
+        private final BaseHologramLine line;
+
+        private TestLineTracker(BaseHologramLine line) {
+            this.line = line;
+        }
+
+        @Override
+        protected BaseHologramLine getLine() {
+            return line;
+        }
+
+        @Override
+        protected boolean updatePlaceholders() {
+            return false;
+        }
+
+        @Override
+        protected double getDefaultViewRange() {
+            return 48;
+        }
+
+        @Override
+        protected Viewer createViewer(CachedPlayer cachedPlayer) {
+            return new Viewer(cachedPlayer);
+        }
+
+        @Override
+        protected void sendSpawnPackets(Viewers<Viewer> viewers) {}
+
+        @Override
+        protected void sendDestroyPackets(Viewers<Viewer> viewers) {}
+
+        @Override
+        protected void sendPositionChangePackets(Viewers<Viewer> viewers) {}
+
+    }
+
+}
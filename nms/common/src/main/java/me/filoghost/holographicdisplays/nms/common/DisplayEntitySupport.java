@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.nms.common;
+
+import me.filoghost.holographicdisplays.nms.common.entity.InteractionNMSPacketEntity;
+import me.filoghost.holographicdisplays.nms.common.entity.ItemDisplayNMSPacketEntity;
+import me.filoghost.holographicdisplays.nms.common.entity.TextDisplayNMSPacketEntity;
+
+import java.util.List;
+
+/**
+ * Entities and packets added in 1.19.4: display entities, which can render multiple lines of text with a single entity,
+ * and interaction entities.
+ */
+public interface DisplayEntitySupport {
+
+    /**
+     * @param teleportInterpolationTicks the ticks used by the client to move the entity to a new position (ignored
+     *                                   before 1.20.2)
+     */
+    TextDisplayNMSPacketEntity newTextDisplayPacketEntity(int teleportInterpolationTicks);
+
+    /**
+     * @param teleportInterpolationTicks the ticks used by the client to move the entity to a new position (ignored
+     *                                   before 1.20.2)
+     */
+    ItemDisplayNMSPacketEntity newItemDisplayPacketEntity(int teleportInterpolationTicks);
+
+    InteractionNMSPacketEntity newInteractionPacketEntity();
+
+    /**
+     * Returns the packets to mount the given entities on a vehicle after its passengers on the server, replacing all its
+     * previous passengers on the client. Only display entities ride other entities.
+     */
+    PacketGroup newMountPackets(int vehicleEntityID, int[] vehiclePassengerIDs, List<EntityID> passengerIDs);
+
+}
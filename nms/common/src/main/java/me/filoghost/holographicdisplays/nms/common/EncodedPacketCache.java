@@ -0,0 +1,279 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.nms.common;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandler;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.util.AttributeKey;
+import me.filoghost.fcommons.reflection.ReflectMethod;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Encodes packets sent to many players only once: the first time a packet is written, it's serialized by the packet
+ * encoder of the channel, then the same bytes are written to the channels of the other players, skipping the encoder.
+ * Compression, encryption and length prefix are still applied per channel, since their handlers come after the
+ * encoder. Packets are identified by reference, the same packet object is written to all the viewers.
+ * <p>
+ * Each write is executed on the event loop of the channel, in order with the other packets written to it, where the
+ * encoder and the protocol of the channel are read safely. The encoded bytes are only reused for channels with the same
+ * encoder, protocol, compression and encryption of the channel which encoded them, the others encode the packet again.
+ * <p>
+ * Must be used from a single thread and cleared after each group of writes. The encoded bytes are released after the
+ * last write, which may be executed later by an event loop.
+ */
+public class EncodedPacketCache {
+
+    private static final String ENCODER_HANDLER_NAME = "encoder";
+    private static final String COMPRESSION_HANDLER_NAME = "compress";
+    private static final String ENCRYPTION_HANDLER_NAME = "encrypt";
+
+    // Handlers which expect bytes and must come after the encoder
+    private static final String[] BYTE_HANDLER_NAMES = {"prepender", COMPRESSION_HANDLER_NAME, ENCRYPTION_HANDLER_NAME};
+
+    // Vanilla outbound handlers before the encoder, which can be skipped by encoded packets
+    private static final String[] SKIPPABLE_HANDLER_NAMES = {"unbundler", "outbound_config"};
+
+    // Protocol of the channel, used by the vanilla encoder to find the packet IDs (the attribute was renamed in 1.20.2)
+    private static final AttributeKey<Object> PROTOCOL_KEY = AttributeKey.valueOf("protocol");
+    private static final AttributeKey<Object> CLIENTBOUND_PROTOCOL_KEY = AttributeKey.valueOf("clientbound_protocol");
+
+    private static final ReflectMethod<Void> ENCODE_METHOD = ReflectMethod.lookup(
+            void.class, MessageToByteEncoder.class, "encode", ChannelHandlerContext.class, Object.class, ByteBuf.class);
+
+    private final Map<Object, EncodedPacket> encodedPackets;
+    private final AtomicLong sharedWrites;
+
+    /**
+     * @param sharedWrites the counter of the packets written without encoding them again, can be shared by many caches
+     */
+    public EncodedPacketCache(AtomicLong sharedWrites) {
+        this.encodedPackets = new IdentityHashMap<>();
+        this.sharedWrites = sharedWrites;
+    }
+
+    /**
+     * Writes the packet from the event loop of the channel, with the bytes encoded for another channel if possible. If
+     * the channel cannot receive encoded packets, for example because another plugin replaced the encoder or listens to
+     * outgoing packets, the raw packet is written normally by the fallback writer, also called from the event loop.
+     */
+    public void write(Channel channel, Object rawPacket, Consumer<Object> fallbackWriter) {
+        EncodedPacket encodedPacket = encodedPackets.get(rawPacket);
+        if (encodedPacket == null) {
+            encodedPacket = new EncodedPacket(rawPacket);
+            encodedPackets.put(rawPacket, encodedPacket);
+        }
+
+        encodedPacket.retain(); // Released by the write
+        try {
+            channel.eventLoop().execute(new EncodedPacketWrite(encodedPacket, channel, fallbackWriter));
+        } catch (RejectedExecutionException e) {
+            encodedPacket.release(); // The channel is closing, the packet would not be sent anyway
+        }
+    }
+
+    /**
+     * Releases the encoded packets after the writes already submitted, packets written afterwards are encoded again.
+     */
+    public void clear() {
+        if (encodedPackets.isEmpty()) {
+            return;
+        }
+        for (EncodedPacket encodedPacket : encodedPackets.values()) {
+            encodedPacket.release();
+        }
+        encodedPackets.clear();
+    }
+
+    private static boolean isVanillaEncoder(ChannelHandler encoder) {
+        // Replaced encoders may depend on the player, for example to translate packets for other protocol versions
+        return encoder instanceof MessageToByteEncoder && encoder.getClass().getName().startsWith("net.minecraft.");
+    }
+
+    private static boolean canSkipEncoder(ChannelPipeline pipeline) {
+        List<String> handlerNames = pipeline.names();
+        int encoderIndex = handlerNames.indexOf(ENCODER_HANDLER_NAME);
+
+        // Outbound packets go from the last handler to the first one
+        for (String byteHandlerName : BYTE_HANDLER_NAMES) {
+            if (handlerNames.indexOf(byteHandlerName) > encoderIndex) {
+                return false;
+            }
+        }
+
+        for (int i = encoderIndex + 1; i < handlerNames.size(); i++) {
+            String handlerName = handlerNames.get(i);
+            if (pipeline.get(handlerName) instanceof ChannelOutboundHandler && !isSkippableHandler(handlerName)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSkippableHandler(String handlerName) {
+        for (String skippableHandlerName : SKIPPABLE_HANDLER_NAMES) {
+            if (skippableHandlerName.equals(handlerName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static @Nullable Object getProtocol(Channel channel) {
+        Object protocol = channel.attr(PROTOCOL_KEY).get();
+        return protocol != null ? protocol : channel.attr(CLIENTBOUND_PROTOCOL_KEY).get();
+    }
+
+
+    /**
+     * A packet encoded by the first channel writing it. Guarded by itself, since the channels of the viewers may be
+     * handled by different event loops.
+     */
+    private class EncodedPacket {
+
+        private final Object rawPacket;
+
+        // Held by the cache and by each write not executed yet, the bytes are released by the last one
+        private final AtomicInteger references;
+
+        private boolean encoded;
+        private @Nullable ByteBuf bytes; // Null if the packet cannot be encoded on its own, such as bundles
+
+        // State of the channel which encoded the packet
+        private Class<?> encoderClass;
+        private Object protocol;
+        private boolean compressed;
+        private boolean encrypted;
+
+        private EncodedPacket(Object rawPacket) {
+            this.rawPacket = rawPacket;
+            this.references = new AtomicInteger(1);
+        }
+
+        private void retain() {
+            references.incrementAndGet();
+        }
+
+        private void release() {
+            if (references.decrementAndGet() == 0) {
+                synchronized (this) {
+                    if (bytes != null) {
+                        bytes.release();
+                        bytes = null;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns false if the encoded bytes cannot be written to the channel. Must be called from its event loop.
+         */
+        private boolean write(Channel channel) {
+            if (!ENCODE_METHOD.isValid()) {
+                return false;
+            }
+
+            ChannelPipeline pipeline = channel.pipeline();
+            ChannelHandlerContext encoderContext = pipeline.context(ENCODER_HANDLER_NAME);
+            if (encoderContext == null || !isVanillaEncoder(encoderContext.handler()) || !canSkipEncoder(pipeline)) {
+                return false;
+            }
+
+            Object protocol = getProtocol(channel);
+            if (protocol == null) {
+                return false; // Not possible to tell whether the bytes match the protocol of the channel
+            }
+            Class<?> encoderClass = encoderContext.handler().getClass();
+            boolean compressed = pipeline.get(COMPRESSION_HANDLER_NAME) != null;
+            boolean encrypted = pipeline.get(ENCRYPTION_HANDLER_NAME) != null;
+
+            ByteBuf bytesDuplicate;
+            boolean shared;
+            synchronized (this) {
+                if (!encoded) {
+                    encoded = true;
+                    bytes = encode(encoderContext);
+                    this.encoderClass = encoderClass;
+                    this.protocol = protocol;
+                    this.compressed = compressed;
+                    this.encrypted = encrypted;
+                    shared = false;
+                } else if (encoderClass != this.encoderClass
+                        || protocol != this.protocol
+                        || compressed != this.compressed
+                        || encrypted != this.encrypted) {
+                    return false; // For example, a channel switching protocol while the packets are written
+                } else {
+                    shared = true;
+                }
+
+                if (bytes == null) {
+                    return false;
+                }
+                // Each channel releases its own duplicate after writing it, the original is released by release()
+                bytesDuplicate = bytes.duplicate().retain();
+            }
+
+            encoderContext.write(bytesDuplicate);
+            if (shared) {
+                sharedWrites.incrementAndGet();
+            }
+            return true;
+        }
+
+        private @Nullable ByteBuf encode(ChannelHandlerContext encoderContext) {
+            ByteBuf bytes = encoderContext.alloc().buffer();
+            try {
+                ENCODE_METHOD.invoke(encoderContext.handler(), encoderContext, rawPacket, bytes);
+                return bytes;
+            } catch (Throwable t) {
+                // For example, packets which are split by another handler before the encoder (such as bundles)
+                bytes.release();
+                return null;
+            }
+        }
+
+    }
+
+
+    private static class EncodedPacketWrite implements Runnable {
+
+        private final EncodedPacket encodedPacket;
+        private final Channel channel;
+        private final Consumer<Object> fallbackWriter;
+
+        private EncodedPacketWrite(EncodedPacket encodedPacket, Channel channel, Consumer<Object> fallbackWriter) {
+            this.encodedPacket = encodedPacket;
+            this.channel = channel;
+            this.fallbackWriter = fallbackWriter;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (!encodedPacket.write(channel)) {
+                    fallbackWriter.accept(encodedPacket.rawPacket);
+                }
+            } finally {
+                encodedPacket.release();
+            }
+        }
+
+    }
+
+}
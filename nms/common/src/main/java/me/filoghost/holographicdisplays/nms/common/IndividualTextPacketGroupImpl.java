@@ -5,8 +5,6 @@
  */
 package me.filoghost.holographicdisplays.nms.common;
 
-import org.bukkit.entity.Player;
-
 import java.util.Objects;
 
 class IndividualTextPacketGroupImpl {
@@ -22,12 +20,12 @@ class IndividualTextPacketGroupImpl {
         }
 
         @Override
-        public void sendTo(Player player, String text) {
+        public void writeTo(PacketWriter packetWriter, String text) {
             if (packet == null || !Objects.equals(lastPacketText, text)) {
                 packet = packetFactory.createPacket(text);
                 lastPacketText = text;
             }
-            packet.sendTo(player);
+            packet.writeTo(packetWriter);
         }
 
     }
@@ -42,9 +40,9 @@ class IndividualTextPacketGroupImpl {
         }
 
         @Override
-        public void sendTo(Player player, String text) {
-            packet1.sendTo(player);
-            super.sendTo(player, text);
+        public void writeTo(PacketWriter packetWriter, String text) {
+            packet1.writeTo(packetWriter);
+            super.writeTo(packetWriter, text);
         }
 
     }
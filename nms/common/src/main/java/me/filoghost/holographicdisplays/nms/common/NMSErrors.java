@@ -11,5 +11,6 @@ public class NMSErrors {
             + " There is a small chance of entity ID conflicts, causing client-side issues on single entities.";
     public static final String EXCEPTION_ON_PACKET_READ = "Unexpected error while inspecting inbound network packet.";
     public static final String EXCEPTION_MODIFYING_CHANNEL_PIPELINE = "Unexpected error while modifying the channel pipeline.";
+    public static final String EXCEPTION_GETTING_CHANNEL = "Unexpected error while getting the network channel of a player.";
 
 }
@@ -9,6 +9,9 @@ import me.filoghost.holographicdisplays.nms.common.entity.ClickableNMSPacketEnti
 import me.filoghost.holographicdisplays.nms.common.entity.ItemNMSPacketEntity;
 import me.filoghost.holographicdisplays.nms.common.entity.TextNMSPacketEntity;
 import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
 
 public interface NMSManager {
 
@@ -18,8 +21,26 @@ public interface NMSManager {
 
     ClickableNMSPacketEntity newClickablePacketEntity();
 
+    /**
+     * Returns the packets to destroy many entities at once, with a single packet if supported by the protocol.
+     */
+    PacketGroup newDestroyPackets(List<EntityID> entityIDs);
+
+    /**
+     * Returns null if display entities are not supported (they were added in 1.19.4).
+     */
+    @Nullable DisplayEntitySupport getDisplayEntitySupport();
+
     void injectPacketListener(Player player, PacketListener packetListener);
 
     void uninjectPacketListener(Player player);
 
+    PacketWriter newPacketWriter(Player player);
+
+    /**
+     * Returns true if the packet writers can group packets into bundles, which are applied by the client in the same
+     * tick (available since 1.19.4).
+     */
+    boolean supportsBundlePackets();
+
 }
@@ -5,8 +5,6 @@
  */
 package me.filoghost.holographicdisplays.nms.common;
 
-import org.bukkit.entity.Player;
-
 class PacketGroupImpl {
 
     static class PacketGroup2 implements PacketGroup {
@@ -20,9 +18,9 @@ class PacketGroupImpl {
         }
 
         @Override
-        public void sendTo(Player player) {
-            packet1.sendTo(player);
-            packet2.sendTo(player);
+        public void writeTo(PacketWriter packetWriter) {
+            packet1.writeTo(packetWriter);
+            packet2.writeTo(packetWriter);
         }
 
     }
@@ -42,11 +40,11 @@ class PacketGroupImpl {
         }
 
         @Override
-        public void sendTo(Player player) {
-            packet1.sendTo(player);
-            packet2.sendTo(player);
-            packet3.sendTo(player);
-            packet4.sendTo(player);
+        public void writeTo(PacketWriter packetWriter) {
+            packet1.writeTo(packetWriter);
+            packet2.writeTo(packetWriter);
+            packet3.writeTo(packetWriter);
+            packet4.writeTo(packetWriter);
         }
 
     }
@@ -68,12 +66,12 @@ class PacketGroupImpl {
         }
 
         @Override
-        public void sendTo(Player player) {
-            packet1.sendTo(player);
-            packet2.sendTo(player);
-            packet3.sendTo(player);
-            packet4.sendTo(player);
-            packet5.sendTo(player);
+        public void writeTo(PacketWriter packetWriter) {
+            packet1.writeTo(packetWriter);
+            packet2.writeTo(packetWriter);
+            packet3.writeTo(packetWriter);
+            packet4.writeTo(packetWriter);
+            packet5.writeTo(packetWriter);
         }
 
     }
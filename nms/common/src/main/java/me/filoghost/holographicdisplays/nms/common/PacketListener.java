@@ -17,4 +17,14 @@ public interface PacketListener {
      */
     boolean onAsyncEntityInteract(Player player, int entityID);
 
+    /**
+     * Same as {@link #onAsyncEntityInteract(Player, int)}, with the height of the hit relative to the position of the
+     * entity, which the client only sends for some entities and actions.
+     *
+     * @param hitOffsetY the height of the hit relative to the entity, or {@link Double#NaN} if unknown
+     */
+    default boolean onAsyncEntityInteract(Player player, int entityID, double hitOffsetY) {
+        return onAsyncEntityInteract(player, entityID);
+    }
+
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.nms.common;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Writes packets to the network channel of a player without flushing it, so that all the packets written in a tick are
+ * sent together with a single flush instead of one for each packet. Must be used from a single thread.
+ */
+public interface PacketWriter {
+
+    /**
+     * Minimum free space in the outbound buffer of the channel, below which it's considered congested: packets which are
+     * not essential are held back before the buffer is full, leaving room for the others. Only checked on versions whose
+     * Netty exposes the free space, otherwise the channel is congested only when it's not writable.
+     */
+    int MIN_WRITABLE_BYTES = 16 * 1024;
+
+    /**
+     * Writes a raw NMS packet, which is not actually sent until the writer is flushed.
+     */
+    void write(Object rawPacket);
+
+    /**
+     * Sets the cache used to write packets already encoded for other players, or null to always encode them.
+     */
+    void setEncodedPacketCache(@Nullable EncodedPacketCache encodedPacketCache);
+
+    /**
+     * Starts collecting the written packets into a bundle, which is written by {@link #endBundle()} and applied by the
+     * client in a single tick. Does nothing if bundles are not supported, see {@link NMSManager#supportsBundlePackets()}.
+     */
+    default void beginBundle() {}
+
+    /**
+     * Writes the packets collected since {@link #beginBundle()}, if any.
+     */
+    default void endBundle() {}
+
+    /**
+     * Returns true if the channel is buffering more outgoing bytes than it should, because the connection of the player
+     * is slower than the packets written to it. Can be called from any thread.
+     */
+    boolean isCongested();
+
+    /**
+     * Returns true if packets were written after the last flush.
+     */
+    boolean hasPendingFlush();
+
+    void flush();
+
+}
@@ -0,0 +1,21 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.nms.common.entity;
+
+import me.filoghost.holographicdisplays.common.PositionCoordinates;
+import me.filoghost.holographicdisplays.nms.common.PacketGroup;
+
+/**
+ * Clickable entity implemented with an interaction entity (available since 1.19.4), which has a custom size and can
+ * cover multiple lines. The collision box is centered on the position horizontally and grows upwards.
+ */
+public interface InteractionNMSPacketEntity extends ClickableNMSPacketEntity {
+
+    double INTERACTION_Y_OFFSET = 0;
+
+    PacketGroup newSpawnPackets(PositionCoordinates position, float width, float height);
+
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.nms.common.entity;
+
+import me.filoghost.holographicdisplays.common.PositionCoordinates;
+import me.filoghost.holographicdisplays.nms.common.PacketGroup;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Item displayed with a single item display entity (available since 1.19.4), instead of a dropped item riding an
+ * armor stand. The item does not spin by itself, but it can be rotated with an animation interpolated by the client.
+ */
+public interface ItemDisplayNMSPacketEntity extends ItemNMSPacketEntity, RidingNMSPacketEntity {
+
+    // The item is centered on the position, similarly to a dropped item
+    double ITEM_DISPLAY_Y_OFFSET = 0.25;
+
+    PacketGroup newSpawnPackets(PositionCoordinates position, ItemStack itemStack, float rotation);
+
+    /**
+     * Returns the packets to rotate the item around the vertical axis to the given angle in degrees, starting from the
+     * current one, in the given number of ticks.
+     */
+    PacketGroup newRotationPackets(float rotation, int interpolationTicks);
+
+}
@@ -6,12 +6,27 @@
 package me.filoghost.holographicdisplays.nms.common.entity;
 
 import me.filoghost.holographicdisplays.common.PositionCoordinates;
+import me.filoghost.holographicdisplays.nms.common.EntityID;
 import me.filoghost.holographicdisplays.nms.common.PacketGroup;
 
+import java.util.List;
+
 public interface NMSPacketEntity {
 
     PacketGroup newTeleportPackets(PositionCoordinates position);
 
+    /**
+     * Returns the packets to move the entity from the position known by the viewers, which are smaller than teleport
+     * packets if the distance is short.
+     */
+    PacketGroup newMovePackets(PositionCoordinates oldPosition, PositionCoordinates newPosition);
+
     PacketGroup newDestroyPackets();
 
+    /**
+     * Adds the IDs of the entities destroyed by {@link #newDestroyPackets()} to the given list, to destroy them together
+     * with other entities (see {@link me.filoghost.holographicdisplays.nms.common.NMSManager#newDestroyPackets(List)}).
+     */
+    void addDestroyedEntityIDs(List<EntityID> entityIDs);
+
 }
@@ -0,0 +1,26 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.nms.common.entity;
+
+import me.filoghost.holographicdisplays.nms.common.EntityID;
+import me.filoghost.holographicdisplays.nms.common.PacketGroup;
+
+/**
+ * Entity which can be mounted as a passenger of another entity, moved by the client together with its vehicle. Only
+ * display entities (available since 1.19.4) can be displaced from the riding position, through their translation.
+ */
+public interface RidingNMSPacketEntity extends NMSPacketEntity {
+
+    EntityID getID();
+
+    /**
+     * Returns the packets to display the entity at the given vertical offset from the riding position of its vehicle,
+     * as if it was spawned at that offset from the vehicle. The offset is also applied if the entity does not ride, so
+     * it must be spawned and moved at the given offset below its intended position.
+     */
+    PacketGroup newRidingOffsetPackets(double offsetY);
+
+}
@@ -0,0 +1,13 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.nms.common.entity;
+
+/**
+ * Text displayed with a single text display entity (available since 1.19.4), instead of the name of an armor stand.
+ */
+public interface TextDisplayNMSPacketEntity extends TextNMSPacketEntity, RidingNMSPacketEntity {
+
+}
@@ -12,11 +12,14 @@ import io.netty.channel.EventLoop;
 import me.filoghost.fcommons.logging.ErrorCollector;
 import me.filoghost.fcommons.logging.Log;
 import me.filoghost.fcommons.reflection.ReflectField;
+import me.filoghost.holographicdisplays.nms.common.DisplayEntitySupport;
 import me.filoghost.holographicdisplays.nms.common.EntityID;
 import me.filoghost.holographicdisplays.nms.common.FallbackEntityIDGenerator;
 import me.filoghost.holographicdisplays.nms.common.NMSErrors;
 import me.filoghost.holographicdisplays.nms.common.NMSManager;
+import me.filoghost.holographicdisplays.nms.common.PacketGroup;
 import me.filoghost.holographicdisplays.nms.common.PacketListener;
+import me.filoghost.holographicdisplays.nms.common.PacketWriter;
 import me.filoghost.holographicdisplays.nms.common.entity.ClickableNMSPacketEntity;
 import me.filoghost.holographicdisplays.nms.common.entity.ItemNMSPacketEntity;
 import me.filoghost.holographicdisplays.nms.common.entity.TextNMSPacketEntity;
@@ -26,6 +29,7 @@ import net.minecraft.server.v1_10_R1.PlayerConnection;
 import org.bukkit.craftbukkit.v1_10_R1.entity.CraftPlayer;
 import org.bukkit.entity.Player;
 
+import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -87,6 +91,11 @@ public class VersionNMSManager implements NMSManager {
         return new VersionClickableNMSPacketEntity(newEntityID());
     }
 
+    @Override
+    public PacketGroup newDestroyPackets(List<EntityID> entityIDs) {
+        return new EntityDestroyNMSPacket(entityIDs);
+    }
+
     @Override
     public void injectPacketListener(Player player, PacketListener packetListener) {
         modifyPipeline(player, (ChannelPipeline pipeline) -> {
@@ -108,14 +117,34 @@ public class VersionNMSManager implements NMSManager {
         });
     }
 
+    @Override
+    public PacketWriter newPacketWriter(Player player) {
+        return new VersionPacketWriter(player, getChannel(player));
+    }
+
+    @Override
+    public boolean supportsBundlePackets() {
+        return false;
+    }
+
+    @Override
+    public DisplayEntitySupport getDisplayEntitySupport() {
+        return null;
+    }
+
+    // Returns null if the channel is not available
+    private Channel getChannel(Player player) {
+        PlayerConnection playerConnection = ((CraftPlayer) player).getHandle().playerConnection;
+        NetworkManager networkManager = playerConnection.a();
+        return networkManager.channel;
+    }
+
     /*
      * Modifying the pipeline in the main thread can cause deadlocks, delays and other concurrency issues,
      * which can be avoided by using the event loop. Thanks to ProtocolLib for this insight.
      */
     private void modifyPipeline(Player player, Consumer<ChannelPipeline> pipelineModifierTask) {
-        PlayerConnection playerConnection = ((CraftPlayer) player).getHandle().playerConnection;
-        NetworkManager networkManager = playerConnection.a();
-        Channel channel = networkManager.channel;
+        Channel channel = getChannel(player);
         if (channel == null) {
             return;
         }
@@ -9,6 +9,8 @@ import me.filoghost.holographicdisplays.nms.common.EntityID;
 import net.minecraft.server.v1_11_R1.Packet;
 import net.minecraft.server.v1_11_R1.PacketPlayOutEntityDestroy;
 
+import java.util.List;
+
 class EntityDestroyNMSPacket extends VersionNMSPacket {
 
     private final Packet<?> rawPacket;
@@ -21,6 +23,14 @@ class EntityDestroyNMSPacket extends VersionNMSPacket {
         this.rawPacket = new PacketPlayOutEntityDestroy(entityID1.getNumericID(), entityID2.getNumericID());
     }
 
+    EntityDestroyNMSPacket(List<EntityID> entityIDs) {
+        int[] numericIDs = new int[entityIDs.size()];
+        for (int i = 0; i < numericIDs.length; i++) {
+            numericIDs[i] = entityIDs.get(i).getNumericID();
+        }
+        this.rawPacket = new PacketPlayOutEntityDestroy(numericIDs);
+    }
+
     @Override
     Packet<?> getRawPacket() {
         return rawPacket;
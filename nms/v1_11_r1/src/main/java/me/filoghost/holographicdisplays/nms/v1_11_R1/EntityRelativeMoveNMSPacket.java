@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.nms.v1_11_R1;
+
+import me.filoghost.holographicdisplays.common.PositionCoordinates;
+import me.filoghost.holographicdisplays.nms.common.EntityID;
+import net.minecraft.server.v1_11_R1.Packet;
+import net.minecraft.server.v1_11_R1.PacketPlayOutEntity;
+
+/**
+ * Moves an entity by a small distance, with a smaller packet than a teleport. The delta is computed between the encoded
+ * coordinates, like the client does, so that rounding errors do not accumulate over consecutive moves.
+ */
+class EntityRelativeMoveNMSPacket extends VersionNMSPacket {
+
+    private static final int MAX_DELTA = Short.MAX_VALUE;
+
+    private final Packet<?> rawPacket;
+
+    private EntityRelativeMoveNMSPacket(EntityID entityID, int deltaX, int deltaY, int deltaZ) {
+        PacketByteBuffer packetByteBuffer = PacketByteBuffer.get();
+
+        packetByteBuffer.writeVarInt(entityID.getNumericID());
+
+        // Position delta
+        packetByteBuffer.writeShort(deltaX);
+        packetByteBuffer.writeShort(deltaY);
+        packetByteBuffer.writeShort(deltaZ);
+
+        // On ground
+        packetByteBuffer.writeBoolean(false);
+
+        this.rawPacket = packetByteBuffer.writeDataTo(new PacketPlayOutEntity.PacketPlayOutRelEntityMove());
+    }
+
+    /**
+     * Returns a relative move packet, or a teleport packet if the distance is too large.
+     */
+    static VersionNMSPacket newMovePacket(
+            EntityID entityID,
+            PositionCoordinates oldPosition,
+            PositionCoordinates newPosition,
+            double positionOffsetY) {
+        long deltaX = encode(newPosition.getX()) - encode(oldPosition.getX());
+        long deltaY = encode(newPosition.getY() + positionOffsetY) - encode(oldPosition.getY() + positionOffsetY);
+        long deltaZ = encode(newPosition.getZ()) - encode(oldPosition.getZ());
+
+        if (Math.abs(deltaX) > MAX_DELTA || Math.abs(deltaY) > MAX_DELTA || Math.abs(deltaZ) > MAX_DELTA) {
+            return new EntityTeleportNMSPacket(entityID, newPosition, positionOffsetY);
+        }
+        return new EntityRelativeMoveNMSPacket(entityID, (int) deltaX, (int) deltaY, (int) deltaZ);
+    }
+
+    private static long encode(double coordinate) {
+        return (long) Math.floor(coordinate * 4096);
+    }
+
+    @Override
+    Packet<?> getRawPacket() {
+        return rawPacket;
+    }
+
+}
@@ -10,6 +10,8 @@ import me.filoghost.holographicdisplays.nms.common.EntityID;
 import me.filoghost.holographicdisplays.nms.common.PacketGroup;
 import me.filoghost.holographicdisplays.nms.common.entity.ClickableNMSPacketEntity;
 
+import java.util.List;
+
 class VersionClickableNMSPacketEntity implements ClickableNMSPacketEntity {
 
     private final EntityID slimeID;
@@ -36,9 +38,19 @@ class VersionClickableNMSPacketEntity implements ClickableNMSPacketEntity {
         return new EntityTeleportNMSPacket(slimeID, position, SLIME_Y_OFFSET);
     }
 
+    @Override
+    public PacketGroup newMovePackets(PositionCoordinates oldPosition, PositionCoordinates newPosition) {
+        return EntityRelativeMoveNMSPacket.newMovePacket(slimeID, oldPosition, newPosition, SLIME_Y_OFFSET);
+    }
+
     @Override
     public PacketGroup newDestroyPackets() {
         return new EntityDestroyNMSPacket(slimeID);
     }
 
+    @Override
+    public void addDestroyedEntityIDs(List<EntityID> entityIDs) {
+        entityIDs.add(slimeID);
+    }
+
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.nms.v1_12_R1;
+
+import io.netty.channel.Channel;
+import me.filoghost.holographicdisplays.nms.common.EncodedPacketCache;
+import me.filoghost.holographicdisplays.nms.common.PacketWriter;
+import net.minecraft.server.v1_12_R1.Packet;
+import org.bukkit.craftbukkit.v1_12_R1.entity.CraftPlayer;
+import org.bukkit.entity.Player;
+
+import java.util.function.Consumer;
+
+class VersionPacketWriter implements PacketWriter {
+
+    private final Player player;
+    private final Channel channel;
+    private final Consumer<Object> channelWriter; // Writes packets that cannot be shared, from the event loop
+    private EncodedPacketCache encodedPacketCache;
+    private boolean pendingFlush;
+
+    VersionPacketWriter(Player player, Channel channel) {
+        this.player = player;
+        // Packets are written directly to the channel only if it has the vanilla encoder
+        this.channel = channel != null && channel.pipeline().get("encoder") != null ? channel : null;
+        this.channelWriter = rawPacket -> this.channel.write(rawPacket);
+    }
+
+    @Override
+    public void write(Object rawPacket) {
+        if (channel == null) {
+            // Fallback, for example if the channel could not be found or encoded: send and flush each packet
+            ((CraftPlayer) player).getHandle().playerConnection.sendPacket((Packet<?>) rawPacket);
+            return;
+        }
+
+        if (channel.isOpen()) {
+            // The connection has no method to send a packet without flushing it, so the packet is written directly
+            // to the channel. This skips only the protocol checks of the connection, which are not needed because
+            // its protocol cannot change while the player is online. Handlers added by other plugins still see it.
+            if (encodedPacketCache != null) {
+                encodedPacketCache.write(channel, rawPacket, channelWriter);
+            } else {
+                channel.write(rawPacket);
+            }
+            pendingFlush = true;
+        }
+    }
+
+    @Override
+    public void setEncodedPacketCache(EncodedPacketCache encodedPacketCache) {
+        this.encodedPacketCache = encodedPacketCache;
+    }
+
+    @Override
+    public boolean isCongested() {
+        return channel != null && channel.isOpen() && !channel.isWritable();
+    }
+
+    @Override
+    public boolean hasPendingFlush() {
+        return pendingFlush;
+    }
+
+    @Override
+    public void flush() {
+        if (pendingFlush) {
+            pendingFlush = false;
+            channel.flush();
+        }
+    }
+
+}
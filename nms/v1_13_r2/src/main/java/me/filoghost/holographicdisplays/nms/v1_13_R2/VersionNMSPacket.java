@@ -6,15 +6,14 @@
 package me.filoghost.holographicdisplays.nms.v1_13_R2;
 
 import me.filoghost.holographicdisplays.nms.common.PacketGroup;
+import me.filoghost.holographicdisplays.nms.common.PacketWriter;
 import net.minecraft.server.v1_13_R2.Packet;
-import org.bukkit.craftbukkit.v1_13_R2.entity.CraftPlayer;
-import org.bukkit.entity.Player;
 
 abstract class VersionNMSPacket implements PacketGroup {
 
     @Override
-    public void sendTo(Player player) {
-        ((CraftPlayer) player).getHandle().playerConnection.sendPacket(getRawPacket());
+    public void writeTo(PacketWriter packetWriter) {
+        packetWriter.write(getRawPacket());
     }
 
     abstract Packet<?> getRawPacket();
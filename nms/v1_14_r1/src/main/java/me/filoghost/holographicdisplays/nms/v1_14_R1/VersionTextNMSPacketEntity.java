@@ -11,6 +11,8 @@ import me.filoghost.holographicdisplays.nms.common.IndividualTextPacketGroup;
 import me.filoghost.holographicdisplays.nms.common.PacketGroup;
 import me.filoghost.holographicdisplays.nms.common.entity.TextNMSPacketEntity;
 
+import java.util.List;
+
 class VersionTextNMSPacketEntity implements TextNMSPacketEntity {
 
     private final EntityID armorStandID;
@@ -58,9 +60,19 @@ class VersionTextNMSPacketEntity implements TextNMSPacketEntity {
         return new EntityTeleportNMSPacket(armorStandID, position, ARMOR_STAND_Y_OFFSET);
     }
 
+    @Override
+    public PacketGroup newMovePackets(PositionCoordinates oldPosition, PositionCoordinates newPosition) {
+        return EntityRelativeMoveNMSPacket.newMovePacket(armorStandID, oldPosition, newPosition, ARMOR_STAND_Y_OFFSET);
+    }
+
     @Override
     public PacketGroup newDestroyPackets() {
         return new EntityDestroyNMSPacket(armorStandID);
     }
 
+    @Override
+    public void addDestroyedEntityIDs(List<EntityID> entityIDs) {
+        entityIDs.add(armorStandID);
+    }
+
 }
@@ -9,6 +9,8 @@ import me.filoghost.holographicdisplays.nms.common.EntityID;
 import net.minecraft.network.protocol.Packet;
 import net.minecraft.network.protocol.game.PacketPlayOutEntityDestroy;
 
+import java.util.List;
+
 class EntityListDestroyNMSPacket extends VersionNMSPacket {
 
     private final Packet<?> rawPacket;
@@ -29,6 +31,17 @@ class EntityListDestroyNMSPacket extends VersionNMSPacket {
         this.rawPacket = new PacketPlayOutEntityDestroy(packetByteBuffer.getInternalSerializer());
     }
 
+    EntityListDestroyNMSPacket(List<EntityID> entityIDs) {
+        PacketByteBuffer packetByteBuffer = PacketByteBuffer.get();
+
+        packetByteBuffer.writeVarInt(entityIDs.size());
+        for (EntityID entityID : entityIDs) {
+            packetByteBuffer.writeVarInt(entityID.getNumericID());
+        }
+
+        this.rawPacket = new PacketPlayOutEntityDestroy(packetByteBuffer.getInternalSerializer());
+    }
+
     @Override
     Packet<?> getRawPacket() {
         return rawPacket;
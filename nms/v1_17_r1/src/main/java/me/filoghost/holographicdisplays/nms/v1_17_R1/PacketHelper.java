@@ -8,9 +8,11 @@ package me.filoghost.holographicdisplays.nms.v1_17_R1;
 import me.filoghost.fcommons.logging.Log;
 import me.filoghost.holographicdisplays.nms.common.EntityID;
 import me.filoghost.holographicdisplays.nms.common.PacketGroup;
+import me.filoghost.holographicdisplays.nms.common.PacketWriter;
 import net.minecraft.network.protocol.game.PacketPlayOutEntityDestroy;
 
 import java.lang.reflect.Field;
+import java.util.List;
 
 class PacketHelper {
 
@@ -34,6 +36,19 @@ class PacketHelper {
         }
     }
 
+    static PacketGroup newDestroyPackets(List<EntityID> entityIDs) {
+        if (USE_ENTITY_LIST_DESTROY_PACKET) {
+            return new EntityListDestroyNMSPacket(entityIDs);
+        } else {
+            // Before 1.17.1 each packet can only destroy one entity
+            return (PacketWriter packetWriter) -> {
+                for (EntityID entityID : entityIDs) {
+                    new EntityDestroyNMSPacket(entityID).writeTo(packetWriter);
+                }
+            };
+        }
+    }
+
     private static boolean useEntityListDestroyPacket() {
         try {
             for (Field field : PacketPlayOutEntityDestroy.class.getDeclaredFields()) {
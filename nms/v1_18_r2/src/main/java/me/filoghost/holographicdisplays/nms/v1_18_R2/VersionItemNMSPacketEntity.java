@@ -11,6 +11,8 @@ import me.filoghost.holographicdisplays.nms.common.PacketGroup;
 import me.filoghost.holographicdisplays.nms.common.entity.ItemNMSPacketEntity;
 import org.bukkit.inventory.ItemStack;
 
+import java.util.List;
+
 class VersionItemNMSPacketEntity implements ItemNMSPacketEntity {
 
     private final EntityID itemID;
@@ -48,9 +50,20 @@ class VersionItemNMSPacketEntity implements ItemNMSPacketEntity {
         return new EntityTeleportNMSPacket(vehicleID, position, ITEM_Y_OFFSET);
     }
 
+    @Override
+    public PacketGroup newMovePackets(PositionCoordinates oldPosition, PositionCoordinates newPosition) {
+        return EntityRelativeMoveNMSPacket.newMovePacket(vehicleID, oldPosition, newPosition, ITEM_Y_OFFSET);
+    }
+
     @Override
     public PacketGroup newDestroyPackets() {
         return new EntityDestroyNMSPacket(itemID, vehicleID);
     }
 
+    @Override
+    public void addDestroyedEntityIDs(List<EntityID> entityIDs) {
+        entityIDs.add(itemID);
+        entityIDs.add(vehicleID);
+    }
+
 }
@@ -8,7 +8,10 @@ package me.filoghost.holographicdisplays.nms.v1_19_R3;
 class EntityTypeID {
 
     static final int ARMOR_STAND = 2;
+    static final int INTERACTION = 52;
     static final int ITEM = 54;
+    static final int ITEM_DISPLAY = 55;
     static final int SLIME = 88;
+    static final int TEXT_DISPLAY = 100;
 
 }
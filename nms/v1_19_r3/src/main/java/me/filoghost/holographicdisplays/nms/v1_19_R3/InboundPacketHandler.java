@@ -12,6 +12,8 @@ import me.filoghost.fcommons.reflection.ReflectField;
 import me.filoghost.holographicdisplays.nms.common.NMSErrors;
 import me.filoghost.holographicdisplays.nms.common.PacketListener;
 import net.minecraft.network.protocol.game.PacketPlayInUseEntity;
+import net.minecraft.world.EnumHand;
+import net.minecraft.world.phys.Vec3D;
 import org.bukkit.entity.Player;
 
 class InboundPacketHandler extends ChannelInboundHandlerAdapter {
@@ -32,7 +34,8 @@ class InboundPacketHandler extends ChannelInboundHandlerAdapter {
         try {
             if (packet instanceof PacketPlayInUseEntity) {
                 int entityID = ENTITY_ID_FIELD.get(packet);
-                boolean cancel = packetListener.onAsyncEntityInteract(player, entityID);
+                double hitOffsetY = getHitOffsetY((PacketPlayInUseEntity) packet);
+                boolean cancel = packetListener.onAsyncEntityInteract(player, entityID, hitOffsetY);
                 if (cancel) {
                     return;
                 }
@@ -43,4 +46,28 @@ class InboundPacketHandler extends ChannelInboundHandlerAdapter {
         super.channelRead(context, packet);
     }
 
+    private static double getHitOffsetY(PacketPlayInUseEntity packet) {
+        HitOffsetReader hitOffsetReader = new HitOffsetReader();
+        packet.a(hitOffsetReader);
+        return hitOffsetReader.hitOffsetY;
+    }
+
+    private static class HitOffsetReader implements PacketPlayInUseEntity.c {
+
+        // The hit position is only sent when right clicking, relative to the position of the entity
+        private double hitOffsetY = Double.NaN;
+
+        @Override
+        public void a(EnumHand hand) {}
+
+        @Override
+        public void a(EnumHand hand, Vec3D hitPosition) {
+            hitOffsetY = hitPosition.d;
+        }
+
+        @Override
+        public void a() {}
+
+    }
+
 }
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.nms.v1_19_R3;
+
+import me.filoghost.holographicdisplays.common.PositionCoordinates;
+import me.filoghost.holographicdisplays.nms.common.EntityID;
+import me.filoghost.holographicdisplays.nms.common.PacketGroup;
+import me.filoghost.holographicdisplays.nms.common.entity.InteractionNMSPacketEntity;
+
+import java.util.List;
+
+class VersionInteractionNMSPacketEntity implements InteractionNMSPacketEntity {
+
+    private final EntityID interactionID;
+
+    VersionInteractionNMSPacketEntity(EntityID interactionID) {
+        this.interactionID = interactionID;
+    }
+
+    @Override
+    public EntityID getID() {
+        return interactionID;
+    }
+
+    @Override
+    public PacketGroup newSpawnPackets(PositionCoordinates position) {
+        return newSpawnPackets(position, (float) SLIME_HEIGHT, (float) SLIME_HEIGHT);
+    }
+
+    @Override
+    public PacketGroup newSpawnPackets(PositionCoordinates position, float width, float height) {
+        return PacketGroup.of(
+                new EntitySpawnNMSPacket(interactionID, EntityTypeID.INTERACTION, position, INTERACTION_Y_OFFSET),
+                EntityMetadataNMSPacket.builder(interactionID)
+                        .setInteractionSize(width, height)
+                        .build()
+        );
+    }
+
+    @Override
+    public PacketGroup newTeleportPackets(PositionCoordinates position) {
+        return new EntityTeleportNMSPacket(interactionID, position, INTERACTION_Y_OFFSET);
+    }
+
+    @Override
+    public PacketGroup newMovePackets(PositionCoordinates oldPosition, PositionCoordinates newPosition) {
+        return EntityRelativeMoveNMSPacket.newMovePacket(interactionID, oldPosition, newPosition, INTERACTION_Y_OFFSET);
+    }
+
+    @Override
+    public PacketGroup newDestroyPackets() {
+        return new EntityDestroyNMSPacket(interactionID);
+    }
+
+    @Override
+    public void addDestroyedEntityIDs(List<EntityID> entityIDs) {
+        entityIDs.add(interactionID);
+    }
+
+}
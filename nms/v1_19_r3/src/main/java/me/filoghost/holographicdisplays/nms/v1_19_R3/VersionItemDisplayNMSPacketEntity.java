@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.nms.v1_19_R3;
+
+import me.filoghost.holographicdisplays.common.PositionCoordinates;
+import me.filoghost.holographicdisplays.nms.common.EntityID;
+import me.filoghost.holographicdisplays.nms.common.PacketGroup;
+import me.filoghost.holographicdisplays.nms.common.entity.ItemDisplayNMSPacketEntity;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.List;
+
+class VersionItemDisplayNMSPacketEntity implements ItemDisplayNMSPacketEntity {
+
+    private final EntityID itemDisplayID;
+
+    VersionItemDisplayNMSPacketEntity(EntityID itemDisplayID) {
+        this.itemDisplayID = itemDisplayID;
+    }
+
+    @Override
+    public PacketGroup newSpawnPackets(PositionCoordinates position, ItemStack itemStack) {
+        return newSpawnPackets(position, itemStack, 0);
+    }
+
+    @Override
+    public PacketGroup newSpawnPackets(PositionCoordinates position, ItemStack itemStack, float rotation) {
+        return PacketGroup.of(
+                new EntitySpawnNMSPacket(itemDisplayID, EntityTypeID.ITEM_DISPLAY, position, 0),
+                EntityMetadataNMSPacket.builder(itemDisplayID)
+                        .setItemDisplayGroundTransform()
+                        .setDisplayTranslation(ITEM_DISPLAY_Y_OFFSET) // Through the translation, which is kept while riding
+                        .setItemDisplayItemStack(itemStack)
+                        .setDisplayRotation(rotation, 0)
+                        .build()
+        );
+    }
+
+    @Override
+    public PacketGroup newChangePackets(ItemStack itemStack) {
+        return EntityMetadataNMSPacket.builder(itemDisplayID)
+                .setItemDisplayItemStack(itemStack)
+                .build();
+    }
+
+    @Override
+    public PacketGroup newRotationPackets(float rotation, int interpolationTicks) {
+        return EntityMetadataNMSPacket.builder(itemDisplayID)
+                .setDisplayRotation(rotation, interpolationTicks)
+                .build();
+    }
+
+    @Override
+    public PacketGroup newTeleportPackets(PositionCoordinates position) {
+        return new EntityTeleportNMSPacket(itemDisplayID, position, 0);
+    }
+
+    @Override
+    public PacketGroup newMovePackets(PositionCoordinates oldPosition, PositionCoordinates newPosition) {
+        return EntityRelativeMoveNMSPacket.newMovePacket(itemDisplayID, oldPosition, newPosition, 0);
+    }
+
+    @Override
+    public EntityID getID() {
+        return itemDisplayID;
+    }
+
+    @Override
+    public PacketGroup newRidingOffsetPackets(double offsetY) {
+        return EntityMetadataNMSPacket.builder(itemDisplayID)
+                .setDisplayTranslation(offsetY + ITEM_DISPLAY_Y_OFFSET)
+                .build();
+    }
+
+    @Override
+    public PacketGroup newDestroyPackets() {
+        return new EntityDestroyNMSPacket(itemDisplayID);
+    }
+
+    @Override
+    public void addDestroyedEntityIDs(List<EntityID> entityIDs) {
+        entityIDs.add(itemDisplayID);
+    }
+
+}
@@ -12,13 +12,19 @@ import io.netty.channel.EventLoop;
 import me.filoghost.fcommons.logging.ErrorCollector;
 import me.filoghost.fcommons.logging.Log;
 import me.filoghost.fcommons.reflection.ReflectField;
+import me.filoghost.holographicdisplays.nms.common.DisplayEntitySupport;
 import me.filoghost.holographicdisplays.nms.common.EntityID;
 import me.filoghost.holographicdisplays.nms.common.FallbackEntityIDGenerator;
 import me.filoghost.holographicdisplays.nms.common.NMSErrors;
 import me.filoghost.holographicdisplays.nms.common.NMSManager;
+import me.filoghost.holographicdisplays.nms.common.PacketGroup;
 import me.filoghost.holographicdisplays.nms.common.PacketListener;
+import me.filoghost.holographicdisplays.nms.common.PacketWriter;
 import me.filoghost.holographicdisplays.nms.common.entity.ClickableNMSPacketEntity;
+import me.filoghost.holographicdisplays.nms.common.entity.InteractionNMSPacketEntity;
+import me.filoghost.holographicdisplays.nms.common.entity.ItemDisplayNMSPacketEntity;
 import me.filoghost.holographicdisplays.nms.common.entity.ItemNMSPacketEntity;
+import me.filoghost.holographicdisplays.nms.common.entity.TextDisplayNMSPacketEntity;
 import me.filoghost.holographicdisplays.nms.common.entity.TextNMSPacketEntity;
 import net.minecraft.network.NetworkManager;
 import net.minecraft.server.network.PlayerConnection;
@@ -26,11 +32,12 @@ import net.minecraft.world.entity.Entity;
 import org.bukkit.craftbukkit.v1_19_R3.entity.CraftPlayer;
 import org.bukkit.entity.Player;
 
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
-public class VersionNMSManager implements NMSManager {
+public class VersionNMSManager implements NMSManager, DisplayEntitySupport {
 
     private static final ReflectField<AtomicInteger> ENTITY_ID_COUNTER_FIELD = ReflectField.lookup(AtomicInteger.class, Entity.class, "d");
     private static final ReflectField<NetworkManager> NETWORK_MANAGER_FIELD = ReflectField.lookup(NetworkManager.class, PlayerConnection.class, "h");
@@ -67,11 +74,36 @@ public class VersionNMSManager implements NMSManager {
         return new VersionItemNMSPacketEntity(newEntityID(), newEntityID());
     }
 
+    @Override
+    public TextDisplayNMSPacketEntity newTextDisplayPacketEntity(int teleportInterpolationTicks) {
+        return new VersionTextDisplayNMSPacketEntity(newEntityID());
+    }
+
+    @Override
+    public ItemDisplayNMSPacketEntity newItemDisplayPacketEntity(int teleportInterpolationTicks) {
+        return new VersionItemDisplayNMSPacketEntity(newEntityID());
+    }
+
+    @Override
+    public PacketGroup newMountPackets(int vehicleEntityID, int[] vehiclePassengerIDs, List<EntityID> passengerIDs) {
+        return new EntityMountNMSPacket(vehicleEntityID, vehiclePassengerIDs, passengerIDs);
+    }
+
+    @Override
+    public InteractionNMSPacketEntity newInteractionPacketEntity() {
+        return new VersionInteractionNMSPacketEntity(newEntityID());
+    }
+
     @Override
     public ClickableNMSPacketEntity newClickablePacketEntity() {
         return new VersionClickableNMSPacketEntity(newEntityID());
     }
 
+    @Override
+    public PacketGroup newDestroyPackets(List<EntityID> entityIDs) {
+        return new EntityDestroyNMSPacket(entityIDs);
+    }
+
     @Override
     public void injectPacketListener(Player player, PacketListener packetListener) {
         modifyPipeline(player, (ChannelPipeline pipeline) -> {
@@ -93,20 +125,40 @@ public class VersionNMSManager implements NMSManager {
         });
     }
 
-    /*
-     * Modifying the pipeline in the main thread can cause deadlocks, delays and other concurrency issues,
-     * which can be avoided by using the event loop. Thanks to ProtocolLib for this insight.
-     */
-    private void modifyPipeline(Player player, Consumer<ChannelPipeline> pipelineModifierTask) {
+    @Override
+    public PacketWriter newPacketWriter(Player player) {
+        return new VersionPacketWriter(player, getChannel(player));
+    }
+
+    @Override
+    public boolean supportsBundlePackets() {
+        return true;
+    }
+
+    @Override
+    public DisplayEntitySupport getDisplayEntitySupport() {
+        return this;
+    }
+
+    // Returns null if the channel is not available
+    private Channel getChannel(Player player) {
         PlayerConnection playerConnection = ((CraftPlayer) player).getHandle().b;
         NetworkManager networkManager;
         try {
             networkManager = NETWORK_MANAGER_FIELD.get(playerConnection);
         } catch (ReflectiveOperationException e) {
-            Log.warning(NMSErrors.EXCEPTION_MODIFYING_CHANNEL_PIPELINE, e);
-            return;
+            Log.warning(NMSErrors.EXCEPTION_GETTING_CHANNEL, e);
+            return null;
         }
-        Channel channel = networkManager.m;
+        return networkManager.m;
+    }
+
+    /*
+     * Modifying the pipeline in the main thread can cause deadlocks, delays and other concurrency issues,
+     * which can be avoided by using the event loop. Thanks to ProtocolLib for this insight.
+     */
+    private void modifyPipeline(Player player, Consumer<ChannelPipeline> pipelineModifierTask) {
+        Channel channel = getChannel(player);
         if (channel == null) {
             return;
         }
@@ -10,6 +10,8 @@ import net.minecraft.network.chat.IChatBaseComponent;
 import net.minecraft.network.syncher.DataWatcherRegistry;
 import net.minecraft.network.syncher.DataWatcherSerializer;
 import net.minecraft.world.item.ItemStack;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
 
 import java.util.Optional;
 
@@ -17,9 +19,16 @@ class DataWatcherKey<T> {
 
     private static final DataWatcherSerializer<Byte> BYTE_SERIALIZER = DataWatcherRegistry.a;
     private static final DataWatcherSerializer<Integer> INT_SERIALIZER = DataWatcherRegistry.b;
+    private static final DataWatcherSerializer<Float> FLOAT_SERIALIZER = DataWatcherRegistry.d;
     private static final DataWatcherSerializer<Boolean> BOOLEAN_SERIALIZER = DataWatcherRegistry.k;
     private static final DataWatcherSerializer<ItemStack> ITEM_STACK_SERIALIZER = DataWatcherRegistry.h;
+    private static final DataWatcherSerializer<IChatBaseComponent> CHAT_COMPONENT_SERIALIZER = DataWatcherRegistry.f;
     private static final DataWatcherSerializer<Optional<IChatBaseComponent>> OPTIONAL_CHAT_COMPONENT_SERIALIZER = DataWatcherRegistry.g;
+    @SuppressWarnings("unchecked")
+    private static final DataWatcherSerializer<Quaternionf> QUATERNION_SERIALIZER =
+            (DataWatcherSerializer<Quaternionf>) DataWatcherRegistry.a(27);
+    @SuppressWarnings("unchecked")
+    private static final DataWatcherSerializer<Vector3f> VECTOR3_SERIALIZER = (DataWatcherSerializer<Vector3f>) DataWatcherRegistry.a(26);
 
     static final DataWatcherKey<Byte> ENTITY_STATUS = new DataWatcherKey<>(0, BYTE_SERIALIZER);
     static final DataWatcherKey<Optional<IChatBaseComponent>> CUSTOM_NAME = new DataWatcherKey<>(2, OPTIONAL_CHAT_COMPONENT_SERIALIZER);
@@ -27,6 +36,18 @@ class DataWatcherKey<T> {
     static final DataWatcherKey<ItemStack> ITEM_STACK = new DataWatcherKey<>(8, ITEM_STACK_SERIALIZER);
     static final DataWatcherKey<Byte> ARMOR_STAND_STATUS = new DataWatcherKey<>(15, BYTE_SERIALIZER);
     static final DataWatcherKey<Integer> SLIME_SIZE = new DataWatcherKey<>(16, INT_SERIALIZER);
+    static final DataWatcherKey<Float> INTERACTION_WIDTH = new DataWatcherKey<>(8, FLOAT_SERIALIZER);
+    static final DataWatcherKey<Float> INTERACTION_HEIGHT = new DataWatcherKey<>(9, FLOAT_SERIALIZER);
+    static final DataWatcherKey<Boolean> INTERACTION_RESPONSIVE = new DataWatcherKey<>(10, BOOLEAN_SERIALIZER);
+    static final DataWatcherKey<Integer> DISPLAY_INTERPOLATION_START = new DataWatcherKey<>(8, INT_SERIALIZER);
+    static final DataWatcherKey<Integer> DISPLAY_INTERPOLATION_DURATION = new DataWatcherKey<>(9, INT_SERIALIZER);
+    static final DataWatcherKey<Vector3f> DISPLAY_TRANSLATION = new DataWatcherKey<>(10, VECTOR3_SERIALIZER);
+    static final DataWatcherKey<Quaternionf> DISPLAY_LEFT_ROTATION = new DataWatcherKey<>(12, QUATERNION_SERIALIZER);
+    static final DataWatcherKey<Byte> DISPLAY_BILLBOARD = new DataWatcherKey<>(14, BYTE_SERIALIZER);
+    static final DataWatcherKey<IChatBaseComponent> TEXT_DISPLAY_TEXT = new DataWatcherKey<>(22, CHAT_COMPONENT_SERIALIZER);
+    static final DataWatcherKey<ItemStack> ITEM_DISPLAY_ITEM_STACK = new DataWatcherKey<>(22, ITEM_STACK_SERIALIZER);
+    static final DataWatcherKey<Byte> ITEM_DISPLAY_TRANSFORM = new DataWatcherKey<>(23, BYTE_SERIALIZER);
+    static final DataWatcherKey<Integer> TEXT_DISPLAY_LINE_WIDTH = new DataWatcherKey<>(23, INT_SERIALIZER);
 
     private final int index;
     private final DataWatcherSerializer<T> serializer;
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.nms.v1_20_R1;
+
+import io.netty.channel.Channel;
+import me.filoghost.holographicdisplays.nms.common.EncodedPacketCache;
+import me.filoghost.holographicdisplays.nms.common.PacketWriter;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.game.ClientboundBundlePacket;
+import net.minecraft.network.protocol.game.PacketListenerPlayOut;
+import org.bukkit.craftbukkit.v1_20_R1.entity.CraftPlayer;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+class VersionPacketWriter implements PacketWriter {
+
+    // Limit of packets in a bundle accepted by the client
+    private static final int MAX_BUNDLE_SIZE = 4096;
+
+    private final Player player;
+    private final Channel channel;
+    private final Consumer<Object> channelWriter; // Writes packets that cannot be shared, from the event loop
+    private final List<Packet<PacketListenerPlayOut>> bundledPackets; // Reused across bundles
+    private boolean bundling;
+    private EncodedPacketCache encodedPacketCache;
+    private boolean pendingFlush;
+
+    VersionPacketWriter(Player player, Channel channel) {
+        this.player = player;
+        // Packets are written directly to the channel only if it has the vanilla encoder
+        this.channel = channel != null && channel.pipeline().get("encoder") != null ? channel : null;
+        this.channelWriter = rawPacket -> this.channel.write(rawPacket);
+        this.bundledPackets = new ArrayList<>();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void write(Object rawPacket) {
+        if (bundling) {
+            bundledPackets.add((Packet<PacketListenerPlayOut>) rawPacket);
+            pendingFlush = true;
+            return;
+        }
+        writeNow(rawPacket);
+    }
+
+    private void writeNow(Object rawPacket) {
+        if (channel == null) {
+            // Fallback, for example if the channel could not be found or encoded: send and flush each packet
+            ((CraftPlayer) player).getHandle().c.a((Packet<?>) rawPacket);
+            return;
+        }
+
+        if (channel.isOpen()) {
+            // The connection has no method to send a packet without flushing it, so the packet is written directly
+            // to the channel. This skips only the protocol checks of the connection, which are not needed because
+            // its protocol cannot change while the player is online. Handlers added by other plugins still see it.
+            // Bundles are created for each player, they are never shared
+            if (encodedPacketCache != null && !(rawPacket instanceof ClientboundBundlePacket)) {
+                encodedPacketCache.write(channel, rawPacket, channelWriter);
+            } else {
+                channel.write(rawPacket);
+            }
+            pendingFlush = true;
+        }
+    }
+
+    @Override
+    public void beginBundle() {
+        bundling = true;
+    }
+
+    @Override
+    public void endBundle() {
+        if (!bundling) {
+            return;
+        }
+        bundling = false;
+
+        if (bundledPackets.size() == 1) {
+            writeNow(bundledPackets.get(0));
+        } else if (bundledPackets.size() > 1) {
+            // The bundle keeps a reference to the list until it's encoded, so it receives a copy
+            for (int fromIndex = 0; fromIndex < bundledPackets.size(); fromIndex += MAX_BUNDLE_SIZE) {
+                int toIndex = Math.min(fromIndex + MAX_BUNDLE_SIZE, bundledPackets.size());
+                writeNow(new ClientboundBundlePacket(new ArrayList<>(bundledPackets.subList(fromIndex, toIndex))));
+            }
+        }
+        bundledPackets.clear();
+    }
+
+    @Override
+    public void setEncodedPacketCache(EncodedPacketCache encodedPacketCache) {
+        this.encodedPacketCache = encodedPacketCache;
+    }
+
+    @Override
+    public boolean isCongested() {
+        // Also considered congested shortly before the channel becomes unwritable, see MIN_WRITABLE_BYTES
+        return channel != null && channel.isOpen() && channel.bytesBeforeUnwritable() < MIN_WRITABLE_BYTES;
+    }
+
+    @Override
+    public boolean hasPendingFlush() {
+        return pendingFlush;
+    }
+
+    @Override
+    public void flush() {
+        if (pendingFlush) {
+            pendingFlush = false;
+            if (channel != null) {
+                channel.flush();
+            }
+        }
+    }
+
+}
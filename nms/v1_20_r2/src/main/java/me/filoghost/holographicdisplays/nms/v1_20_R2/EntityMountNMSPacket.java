@@ -9,6 +9,8 @@ import me.filoghost.holographicdisplays.nms.common.EntityID;
 import net.minecraft.network.protocol.Packet;
 import net.minecraft.network.protocol.game.PacketPlayOutMount;
 
+import java.util.List;
+
 class EntityMountNMSPacket extends VersionNMSPacket {
 
     private final Packet<?> rawPacket;
@@ -22,6 +24,21 @@ class EntityMountNMSPacket extends VersionNMSPacket {
         this.rawPacket = new PacketPlayOutMount(packetByteBuffer.getInternalSerializer());
     }
 
+    EntityMountNMSPacket(int vehicleEntityID, int[] vehiclePassengerEntityIDs, List<EntityID> passengerEntityIDs) {
+        PacketByteBuffer packetByteBuffer = PacketByteBuffer.get();
+
+        packetByteBuffer.writeVarInt(vehicleEntityID);
+        packetByteBuffer.writeVarInt(vehiclePassengerEntityIDs.length + passengerEntityIDs.size());
+        for (int vehiclePassengerEntityID : vehiclePassengerEntityIDs) {
+            packetByteBuffer.writeVarInt(vehiclePassengerEntityID);
+        }
+        for (EntityID passengerEntityID : passengerEntityIDs) {
+            packetByteBuffer.writeVarInt(passengerEntityID.getNumericID());
+        }
+
+        this.rawPacket = new PacketPlayOutMount(packetByteBuffer.getInternalSerializer());
+    }
+
     @Override
     Packet<?> getRawPacket() {
         return rawPacket;
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.nms.v1_20_R2;
+
+import io.netty.channel.Channel;
+import me.filoghost.holographicdisplays.nms.common.EncodedPacketCache;
+import me.filoghost.holographicdisplays.nms.common.PacketWriter;
+import net.minecraft.network.NetworkManager;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.game.ClientboundBundlePacket;
+import net.minecraft.network.protocol.game.PacketListenerPlayOut;
+import org.bukkit.craftbukkit.v1_20_R2.entity.CraftPlayer;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+class VersionPacketWriter implements PacketWriter {
+
+    // Limit of packets in a bundle accepted by the client
+    private static final int MAX_BUNDLE_SIZE = 4096;
+
+    private final Player player;
+    private final NetworkManager networkManager;
+    private final Channel channel;
+    private final Consumer<Object> channelWriter; // Writes packets that cannot be shared, from the event loop
+    private final List<Packet<PacketListenerPlayOut>> bundledPackets; // Reused across bundles
+    private boolean bundling;
+    private EncodedPacketCache encodedPacketCache;
+    private boolean pendingFlush;
+
+    VersionPacketWriter(Player player, NetworkManager networkManager) {
+        this.player = player;
+        this.networkManager = networkManager;
+        this.channel = networkManager != null ? networkManager.n : null;
+        this.channelWriter = rawPacket -> networkManager.a((Packet<?>) rawPacket, null, false);
+        this.bundledPackets = new ArrayList<>();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void write(Object rawPacket) {
+        if (bundling) {
+            bundledPackets.add((Packet<PacketListenerPlayOut>) rawPacket);
+            pendingFlush = true;
+            return;
+        }
+        writeNow(rawPacket);
+    }
+
+    private void writeNow(Object rawPacket) {
+        if (channel == null) {
+            // Fallback, for example if the network manager could not be found: send and flush each packet
+            ((CraftPlayer) player).getHandle().c.b((Packet<?>) rawPacket);
+            return;
+        }
+
+        if (channel.isOpen()) {
+            // Sent by the network manager, which follows the protocol changes of the connection, without flushing
+            // Bundles are created for each player, they are never shared
+            if (encodedPacketCache != null && !(rawPacket instanceof ClientboundBundlePacket)) {
+                encodedPacketCache.write(channel, rawPacket, channelWriter);
+            } else {
+                networkManager.a((Packet<?>) rawPacket, null, false);
+            }
+            pendingFlush = true;
+        }
+    }
+
+    @Override
+    public void beginBundle() {
+        bundling = true;
+    }
+
+    @Override
+    public void endBundle() {
+        if (!bundling) {
+            return;
+        }
+        bundling = false;
+
+        if (bundledPackets.size() == 1) {
+            writeNow(bundledPackets.get(0));
+        } else if (bundledPackets.size() > 1) {
+            // The bundle keeps a reference to the list until it's encoded, so it receives a copy
+            for (int fromIndex = 0; fromIndex < bundledPackets.size(); fromIndex += MAX_BUNDLE_SIZE) {
+                int toIndex = Math.min(fromIndex + MAX_BUNDLE_SIZE, bundledPackets.size());
+                writeNow(new ClientboundBundlePacket(new ArrayList<>(bundledPackets.subList(fromIndex, toIndex))));
+            }
+        }
+        bundledPackets.clear();
+    }
+
+    @Override
+    public void setEncodedPacketCache(EncodedPacketCache encodedPacketCache) {
+        this.encodedPacketCache = encodedPacketCache;
+    }
+
+    @Override
+    public boolean isCongested() {
+        // Also considered congested shortly before the channel becomes unwritable, see MIN_WRITABLE_BYTES
+        return channel != null && channel.isOpen() && channel.bytesBeforeUnwritable() < MIN_WRITABLE_BYTES;
+    }
+
+    @Override
+    public boolean hasPendingFlush() {
+        return pendingFlush;
+    }
+
+    @Override
+    public void flush() {
+        if (pendingFlush) {
+            pendingFlush = false;
+            if (channel != null) {
+                channel.flush();
+            }
+        }
+    }
+
+}
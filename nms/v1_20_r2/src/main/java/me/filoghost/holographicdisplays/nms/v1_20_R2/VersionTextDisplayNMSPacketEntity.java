@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.nms.v1_20_R2;
+
+import me.filoghost.holographicdisplays.common.PositionCoordinates;
+import me.filoghost.holographicdisplays.nms.common.EntityID;
+import me.filoghost.holographicdisplays.nms.common.IndividualTextPacketGroup;
+import me.filoghost.holographicdisplays.nms.common.PacketGroup;
+import me.filoghost.holographicdisplays.nms.common.entity.TextDisplayNMSPacketEntity;
+
+import java.util.List;
+
+class VersionTextDisplayNMSPacketEntity implements TextDisplayNMSPacketEntity {
+
+    private final EntityID textDisplayID;
+    private final int teleportInterpolationTicks;
+
+    VersionTextDisplayNMSPacketEntity(EntityID textDisplayID, int teleportInterpolationTicks) {
+        this.textDisplayID = textDisplayID;
+        this.teleportInterpolationTicks = teleportInterpolationTicks;
+    }
+
+    @Override
+    public PacketGroup newSpawnPackets(PositionCoordinates position, String text) {
+        return PacketGroup.of(
+                new EntitySpawnNMSPacket(textDisplayID, EntityTypeID.TEXT_DISPLAY, position, 0),
+                EntityMetadataNMSPacket.builder(textDisplayID)
+                        .setTextDisplayFormat()
+                        .setDisplayTeleportDuration(teleportInterpolationTicks)
+                        .setText(text)
+                        .build()
+        );
+    }
+
+    @Override
+    public IndividualTextPacketGroup newSpawnPackets(PositionCoordinates position) {
+        return IndividualTextPacketGroup.of(
+                new EntitySpawnNMSPacket(textDisplayID, EntityTypeID.TEXT_DISPLAY, position, 0),
+                (String text) -> EntityMetadataNMSPacket.builder(textDisplayID)
+                        .setTextDisplayFormat()
+                        .setDisplayTeleportDuration(teleportInterpolationTicks)
+                        .setText(text)
+                        .build()
+        );
+    }
+
+    @Override
+    public PacketGroup newChangePackets(String text) {
+        return EntityMetadataNMSPacket.builder(textDisplayID)
+                .setText(text)
+                .build();
+    }
+
+    @Override
+    public IndividualTextPacketGroup newChangePackets() {
+        return IndividualTextPacketGroup.of(
+                (String text) -> EntityMetadataNMSPacket.builder(textDisplayID)
+                        .setText(text)
+                        .build()
+        );
+    }
+
+    @Override
+    public PacketGroup newTeleportPackets(PositionCoordinates position) {
+        return new EntityTeleportNMSPacket(textDisplayID, position, 0);
+    }
+
+    @Override
+    public PacketGroup newMovePackets(PositionCoordinates oldPosition, PositionCoordinates newPosition) {
+        return EntityRelativeMoveNMSPacket.newMovePacket(textDisplayID, oldPosition, newPosition, 0);
+    }
+
+    @Override
+    public EntityID getID() {
+        return textDisplayID;
+    }
+
+    @Override
+    public PacketGroup newRidingOffsetPackets(double offsetY) {
+        return EntityMetadataNMSPacket.builder(textDisplayID)
+                .setTextDisplayVerticalBillboard()
+                .setDisplayTranslation(offsetY)
+                .build();
+    }
+
+    @Override
+    public PacketGroup newDestroyPackets() {
+        return new EntityDestroyNMSPacket(textDisplayID);
+    }
+
+    @Override
+    public void addDestroyedEntityIDs(List<EntityID> entityIDs) {
+        entityIDs.add(textDisplayID);
+    }
+
+}
@@ -10,6 +10,8 @@ import net.minecraft.network.chat.IChatBaseComponent;
 import org.bukkit.craftbukkit.v1_20_R3.inventory.CraftItemStack;
 import org.bukkit.craftbukkit.v1_20_R3.util.CraftChatMessage;
 import org.bukkit.inventory.ItemStack;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
 
 import java.util.Optional;
 
@@ -50,11 +52,65 @@ abstract class DataWatcherPacketBuilder<T> {
         }
     }
 
+    DataWatcherPacketBuilder<T> setTextDisplayFormat() {
+        packetByteBuffer.writeDataWatcherEntry(DataWatcherKey.DISPLAY_BILLBOARD, (byte) 3); // Center, like custom names
+        packetByteBuffer.writeDataWatcherEntry(DataWatcherKey.TEXT_DISPLAY_LINE_WIDTH, Integer.MAX_VALUE); // Never wrap lines
+        return this;
+    }
+
+    DataWatcherPacketBuilder<T> setText(String text) {
+        // Unlike custom names, the text can contain multiple lines
+        String nonNullText = text != null ? text : "";
+        packetByteBuffer.writeDataWatcherEntry(DataWatcherKey.TEXT_DISPLAY_TEXT, CraftChatMessage.fromString(nonNullText, true, true)[0]);
+        return this;
+    }
+
     DataWatcherPacketBuilder<T> setItemStack(ItemStack itemStack) {
         packetByteBuffer.writeDataWatcherEntry(DataWatcherKey.ITEM_STACK, CraftItemStack.asNMSCopy(itemStack));
         return this;
     }
 
+    DataWatcherPacketBuilder<T> setItemDisplayItemStack(ItemStack itemStack) {
+        packetByteBuffer.writeDataWatcherEntry(DataWatcherKey.ITEM_DISPLAY_ITEM_STACK, CraftItemStack.asNMSCopy(itemStack));
+        return this;
+    }
+
+    DataWatcherPacketBuilder<T> setItemDisplayGroundTransform() {
+        packetByteBuffer.writeDataWatcherEntry(DataWatcherKey.ITEM_DISPLAY_TRANSFORM, (byte) 7); // Same size as dropped items
+        return this;
+    }
+
+    DataWatcherPacketBuilder<T> setDisplayTeleportDuration(int teleportDurationTicks) {
+        packetByteBuffer.writeDataWatcherEntry(DataWatcherKey.DISPLAY_TELEPORT_DURATION, teleportDurationTicks);
+        return this;
+    }
+
+    DataWatcherPacketBuilder<T> setDisplayRotation(float rotation, int interpolationTicks) {
+        packetByteBuffer.writeDataWatcherEntry(DataWatcherKey.DISPLAY_INTERPOLATION_START, 0); // Start immediately
+        packetByteBuffer.writeDataWatcherEntry(DataWatcherKey.DISPLAY_INTERPOLATION_DURATION, interpolationTicks);
+        packetByteBuffer.writeDataWatcherEntry(
+                DataWatcherKey.DISPLAY_LEFT_ROTATION, new Quaternionf().rotateY((float) Math.toRadians(rotation)));
+        return this;
+    }
+
+    DataWatcherPacketBuilder<T> setTextDisplayVerticalBillboard() {
+        // Rotated only around the vertical axis, the translation must not be tilted towards the viewer
+        packetByteBuffer.writeDataWatcherEntry(DataWatcherKey.DISPLAY_BILLBOARD, (byte) 2);
+        return this;
+    }
+
+    DataWatcherPacketBuilder<T> setDisplayTranslation(double offsetY) {
+        packetByteBuffer.writeDataWatcherEntry(DataWatcherKey.DISPLAY_TRANSLATION, new Vector3f(0, (float) offsetY, 0));
+        return this;
+    }
+
+    DataWatcherPacketBuilder<T> setInteractionSize(float width, float height) {
+        packetByteBuffer.writeDataWatcherEntry(DataWatcherKey.INTERACTION_WIDTH, width);
+        packetByteBuffer.writeDataWatcherEntry(DataWatcherKey.INTERACTION_HEIGHT, height);
+        packetByteBuffer.writeDataWatcherEntry(DataWatcherKey.INTERACTION_RESPONSIVE, true); // Swing the arm on click
+        return this;
+    }
+
     DataWatcherPacketBuilder<T> setSlimeSmall() {
         packetByteBuffer.writeDataWatcherEntry(DataWatcherKey.SLIME_SIZE, 1);
         return this;
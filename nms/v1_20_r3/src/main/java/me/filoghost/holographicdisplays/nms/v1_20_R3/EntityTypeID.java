@@ -8,7 +8,10 @@ package me.filoghost.holographicdisplays.nms.v1_20_R3;
 class EntityTypeID {
 
     static final int ARMOR_STAND = 2;
+    static final int INTERACTION = 53;
     static final int ITEM = 55;
+    static final int ITEM_DISPLAY = 56;
     static final int SLIME = 89;
+    static final int TEXT_DISPLAY = 101;
 
 }
@@ -129,6 +129,18 @@ public class HolographicDisplays extends FCommonsPlugin {
 
         core.setSpaceBetweenHologramLines(Settings.spaceBetweenLines);
         core.setMaxViewRange(Settings.viewRange);
+        core.setViewRangeMargin(Settings.viewRangeMargin);
+        core.setSpawnBudgetPerTick(Settings.spawnBudgetPerTick);
+        core.setMaxLinesPerPlayer(Settings.maxLinesPerPlayer);
+        core.setMaxTextUpdatesPerSecond(Settings.maxTextUpdatesPerSecond);
+        core.setMaxTextUpdatesPerPlayerPerSecond(Settings.maxTextUpdatesPerPlayerPerSecond);
+        core.setMovementUpdateInterval(Settings.movementUpdateInterval);
+        core.setTextDisplays(Settings.textDisplays);
+        core.setItemDisplays(Settings.itemDisplays);
+        core.setItemDisplayRotation(Settings.itemDisplayRotation);
+        core.setInteractionEntities(Settings.interactionEntities);
+        core.setInteractionEntityWidth(Settings.interactionEntityWidth);
+        core.setSharedPacketEncoding(Settings.sharedPacketEncoding);
 
         AnimationPlaceholderFactory animationPlaceholderFactory = configManager.loadAnimations(errorCollector);
         DefaultPlaceholders.resetAndRegister(api, animationPlaceholderFactory, bungeeServerTracker);
@@ -141,7 +153,9 @@ public class HolographicDisplays extends FCommonsPlugin {
             try {
                 List<InternalHologramLine> lines = hologramConfig.deserializeLines();
                 Position position = hologramConfig.deserializePosition();
+                double viewRange = hologramConfig.deserializeViewRange();
                 InternalHologram hologram = internalHologramManager.createHologram(hologramConfig.getName(), position);
+                hologram.setViewRange(viewRange);
                 hologram.addLines(lines);
             } catch (InternalHologramLoadException e) {
                 errorCollector.add(e, "error while loading hologram \"" + hologramConfig.getName() + "\"");
@@ -158,6 +172,10 @@ public class HolographicDisplays extends FCommonsPlugin {
         return instance;
     }
 
+    public HolographicDisplaysCore getCore() {
+        return core;
+    }
+
     public InternalHologramEditor getInternalHologramEditor() {
         return internalHologramEditor;
     }
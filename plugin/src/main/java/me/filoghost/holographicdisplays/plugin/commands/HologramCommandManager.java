@@ -30,6 +30,7 @@ import me.filoghost.holographicdisplays.plugin.commands.subs.ReloadCommand;
 import me.filoghost.holographicdisplays.plugin.commands.subs.RemoveLineCommand;
 import me.filoghost.holographicdisplays.plugin.commands.subs.SetLineCommand;
 import me.filoghost.holographicdisplays.plugin.commands.subs.TeleportCommand;
+import me.filoghost.holographicdisplays.plugin.commands.subs.ViewRangeCommand;
 import me.filoghost.holographicdisplays.plugin.config.Settings;
 import me.filoghost.holographicdisplays.plugin.format.ColorScheme;
 import me.filoghost.holographicdisplays.plugin.internal.hologram.InternalHologram;
@@ -68,6 +69,7 @@ public class HologramCommandManager extends SubCommandManager {
         subCommands.add(new TeleportCommand(hologramEditor));
         subCommands.add(new MoveHereCommand(hologramEditor));
         subCommands.add(new AlignCommand(hologramEditor));
+        subCommands.add(new ViewRangeCommand(hologramEditor));
         subCommands.add(new CopyCommand(hologramEditor));
         subCommands.add(new ReloadCommand(holographicDisplays));
 
@@ -78,7 +80,7 @@ public class HologramCommandManager extends SubCommandManager {
         subCommands.add(new ReadImageCommand(hologramEditor));
         subCommands.add(new InfoCommand(this, hologramEditor));
 
-        subCommands.add(new DebugCommand());
+        subCommands.add(new DebugCommand(holographicDisplays.getCore()));
         subCommands.add(helpCommand);
     }
 
@@ -33,9 +33,10 @@ public class CopyCommand extends HologramSubCommand {
         InternalHologram toHologram = hologramEditor.getExistingHologram(args[1]);
 
         toHologram.setLines(fromHologram.getLines());
+        toHologram.setViewRange(fromHologram.getViewRange());
         hologramEditor.saveChanges(toHologram, ChangeType.EDIT_LINES);
 
-        sender.sendMessage(ColorScheme.PRIMARY + "Lines of hologram \"" + fromHologram.getName() + "\""
+        sender.sendMessage(ColorScheme.PRIMARY + "Lines and view range of hologram \"" + fromHologram.getName() + "\""
                 + " copied to hologram \"" + toHologram.getName() + "\".");
     }
 
@@ -6,21 +6,84 @@
 package me.filoghost.holographicdisplays.plugin.commands.subs;
 
 import me.filoghost.fcommons.command.sub.SubCommandContext;
+import me.filoghost.fcommons.command.validation.CommandException;
+import me.filoghost.fcommons.command.validation.CommandValidate;
+import me.filoghost.holographicdisplays.core.HolographicDisplaysCore;
+import me.filoghost.holographicdisplays.core.base.BaseHologram;
+import me.filoghost.holographicdisplays.core.base.BaseHologramLine;
+import me.filoghost.holographicdisplays.core.base.ImmutablePosition;
 import me.filoghost.holographicdisplays.plugin.commands.HologramSubCommand;
 import me.filoghost.holographicdisplays.plugin.format.ColorScheme;
+import me.filoghost.holographicdisplays.plugin.format.DisplayFormat;
+import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 
 public class DebugCommand extends HologramSubCommand {
 
-    public DebugCommand() {
+    private final HolographicDisplaysCore core;
+
+    public DebugCommand(HolographicDisplaysCore core) {
         super("debug");
         setShowInHelpCommand(false);
-        setDescription("Displays information useful for debugging.");
+        setUsageArgs("[player]");
+        setDescription("Displays the holograms currently seen by a player, for debugging.");
+
+        this.core = core;
     }
 
     @Override
-    public void execute(CommandSender sender, String[] args, SubCommandContext context) {
-        sender.sendMessage(ColorScheme.ERROR + "This command is currently unused.");
+    public void execute(CommandSender sender, String[] args, SubCommandContext context) throws CommandException {
+        Player player;
+        if (args.length > 0) {
+            player = Bukkit.getPlayerExact(args[0]);
+            CommandValidate.check(player != null, "Player \"" + args[0] + "\" is not online.");
+        } else {
+            player = CommandValidate.getPlayerSender(sender);
+        }
+
+        List<BaseHologramLine> trackedLines = core.getTrackedLines(player);
+        CommandValidate.check(!trackedLines.isEmpty(), player.getName() + " is not seeing any hologram.");
+
+        Map<BaseHologram, Integer> trackedLinesCountByHologram = new LinkedHashMap<>();
+        for (BaseHologramLine line : trackedLines) {
+            trackedLinesCountByHologram.merge(line.getHologram(), 1, Integer::sum);
+        }
+
+        DisplayFormat.sendTitle(sender, "Holograms seen by " + player.getName()
+                + " (" + trackedLines.size() + " lines)");
+        for (Entry<BaseHologram, Integer> entry : trackedLinesCountByHologram.entrySet()) {
+            BaseHologram hologram = entry.getKey();
+            ImmutablePosition position = hologram.getPosition();
+            sender.sendMessage(ColorScheme.SECONDARY_DARK + "- " + ColorScheme.SECONDARY_BOLD + hologram.getCreatorPlugin().getName()
+                    + ColorScheme.SECONDARY_DARK + " (" + entry.getValue() + "/" + hologram.getLines().size() + " lines) at "
+                    + "world: \"" + position.getWorldName() + "\", "
+                    + "x: " + position.getBlockX() + ", "
+                    + "y: " + position.getBlockY() + ", "
+                    + "z: " + position.getBlockZ());
+        }
+        sender.sendMessage(ColorScheme.SECONDARY_DARK + "Spawn/destroy cycles avoided by the view range margin: "
+                + ColorScheme.SECONDARY + core.getAvoidedSpawnCycles());
+        sender.sendMessage(ColorScheme.SECONDARY_DARK + "Line spawns postponed by the spawn limit per tick: "
+                + ColorScheme.SECONDARY + core.getDeferredSpawns());
+        sender.sendMessage(ColorScheme.SECONDARY_DARK + "Lines replaced by the max lines per player: "
+                + ColorScheme.SECONDARY + core.getReplacedLines());
+        sender.sendMessage(ColorScheme.SECONDARY_DARK + "Packet tasks waiting to be sent: "
+                + ColorScheme.SECONDARY + core.getQueuedPacketTasks());
+        sender.sendMessage(ColorScheme.SECONDARY_DARK + "Updates held back for congested players: "
+                + ColorScheme.SECONDARY + core.getPendingPacketUpdates()
+                + ColorScheme.SECONDARY_DARK + " (max " + core.getMaxPendingPacketUpdatesPerPlayer() + " per player)");
+        sender.sendMessage(ColorScheme.SECONDARY_DARK + "Held back updates replaced by newer ones: "
+                + ColorScheme.SECONDARY + core.getCoalescedPacketUpdates()
+                + ColorScheme.SECONDARY_DARK + ", discarded for destroyed entities: "
+                + ColorScheme.SECONDARY + core.getDroppedPacketUpdates());
+        sender.sendMessage(ColorScheme.SECONDARY_DARK + "Packets written without encoding them again: "
+                + ColorScheme.SECONDARY + core.getSharedPacketWrites());
     }
 
 }
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) filoghost and contributors
+ *
+ * SPDX-License-Identifier: GPL-3.0-or-later
+ */
+package me.filoghost.holographicdisplays.plugin.commands.subs;
+
+import me.filoghost.fcommons.command.sub.SubCommandContext;
+import me.filoghost.fcommons.command.validation.CommandException;
+import me.filoghost.fcommons.command.validation.CommandValidate;
+import me.filoghost.holographicdisplays.plugin.commands.HologramSubCommand;
+import me.filoghost.holographicdisplays.plugin.commands.InternalHologramEditor;
+import me.filoghost.holographicdisplays.plugin.event.InternalHologramChangeEvent.ChangeType;
+import me.filoghost.holographicdisplays.plugin.format.ColorScheme;
+import me.filoghost.holographicdisplays.plugin.internal.hologram.InternalHologram;
+import org.bukkit.command.CommandSender;
+
+public class ViewRangeCommand extends HologramSubCommand {
+
+    private final InternalHologramEditor hologramEditor;
+
+    public ViewRangeCommand(InternalHologramEditor hologramEditor) {
+        super("viewRange");
+        setMinArgs(2);
+        setUsageArgs("<hologram> <blocks | default>");
+        setDescription(
+                "Sets the distance from which a hologram is visible.",
+                "It is still limited by the view range in the configuration.");
+
+        this.hologramEditor = hologramEditor;
+    }
+
+    @Override
+    public void execute(CommandSender sender, String[] args, SubCommandContext context) throws CommandException {
+        InternalHologram hologram = hologramEditor.getExistingHologram(args[0]);
+
+        if (args[1].equalsIgnoreCase("default")) {
+            hologram.setViewRange(-1);
+            hologramEditor.saveChanges(hologram, ChangeType.EDIT_VIEW_RANGE);
+
+            sender.sendMessage(ColorScheme.PRIMARY + "Hologram \"" + hologram.getName() + "\" now uses the default view range.");
+        } else {
+            int viewRange = CommandValidate.parseInteger(args[1]);
+            CommandValidate.check(viewRange > 0, "The view range must be at least 1.");
+
+            hologram.setViewRange(viewRange);
+            hologramEditor.saveChanges(hologram, ChangeType.EDIT_VIEW_RANGE);
+
+            sender.sendMessage(ColorScheme.PRIMARY + "View range of hologram \"" + hologram.getName() + "\""
+                    + " set to " + viewRange + " blocks.");
+        }
+    }
+
+}
@@ -34,6 +34,9 @@ public class InternalHologramConfig {
 
         configSection.setStringList("lines", serializedLines);
         configSection.setConfigSection("position", positionConfigSection);
+        if (hologram.getViewRange() >= 0) {
+            configSection.setDouble("view-range", hologram.getViewRange());
+        }
     }
 
     public String getName() {
@@ -67,6 +70,26 @@ public class InternalHologramConfig {
         return lines;
     }
 
+    /**
+     * Returns the view range of the hologram, or a negative value if not set.
+     */
+    public double deserializeViewRange() throws InternalHologramLoadException {
+        if (!configSection.contains("view-range")) {
+            return -1;
+        }
+
+        try {
+            double viewRange = configSection.getRequiredDouble("view-range");
+            if (viewRange < 1) {
+                // Same bound as the command setting it
+                throw new InternalHologramLoadException("view range must be at least 1");
+            }
+            return viewRange;
+        } catch (ConfigValueException e) {
+            throw new InternalHologramLoadException("invalid view range", e);
+        }
+    }
+
     private ConfigSection serializePosition(Position position) {
         ConfigSection positionConfigSection = new ConfigSection();
         positionConfigSection.setString("world", position.getWorldName());
@@ -21,6 +21,18 @@ public class Settings {
 
     public static double spaceBetweenLines;
     public static int viewRange;
+    public static int viewRangeMargin;
+    public static int spawnBudgetPerTick;
+    public static int maxLinesPerPlayer;
+    public static int maxTextUpdatesPerSecond;
+    public static int maxTextUpdatesPerPlayerPerSecond;
+    public static int movementUpdateInterval;
+    public static boolean textDisplays;
+    public static boolean itemDisplays;
+    public static boolean itemDisplayRotation;
+    public static boolean interactionEntities;
+    public static double interactionEntityWidth;
+    public static boolean sharedPacketEncoding;
     public static boolean quickEditCommands;
     public static DateTimeFormatter timeFormat;
     public static boolean updateNotification;
@@ -45,6 +57,18 @@ public class Settings {
     public static void load(SettingsModel config, ErrorCollector errorCollector) {
         spaceBetweenLines = config.spaceBetweenLines;
         viewRange = config.viewRange;
+        viewRangeMargin = parseViewRangeMargin(config.viewRangeMargin, errorCollector);
+        spawnBudgetPerTick = parseLimit(config.spawnBudgetPerTick);
+        maxLinesPerPlayer = parseLimit(config.maxLinesPerPlayer);
+        maxTextUpdatesPerSecond = parseLimit(config.maxTextUpdatesPerSecond);
+        maxTextUpdatesPerPlayerPerSecond = parseLimit(config.maxTextUpdatesPerPlayerPerSecond);
+        movementUpdateInterval = parseMovementUpdateInterval(config.movementUpdateInterval, errorCollector);
+        textDisplays = config.textDisplays;
+        itemDisplays = config.itemDisplays;
+        itemDisplayRotation = config.itemDisplayRotation;
+        interactionEntities = config.interactionEntities;
+        interactionEntityWidth = parseInteractionEntityWidth(config.interactionEntityWidth, errorCollector);
+        sharedPacketEncoding = config.sharedPacketEncoding;
         quickEditCommands = config.quickEditCommands;
         timeFormat = parseTimeFormatter(config.timeFormat, config.timeZone, errorCollector);
         updateNotification = config.updateNotification;
@@ -97,6 +121,48 @@ public class Settings {
         return timeFormat;
     }
 
+    private static int parseLimit(int limit) {
+        // Zero or negative values disable the limit
+        return Math.max(limit, 0);
+    }
+
+    private static int parseViewRangeMargin(int margin, ErrorCollector errorCollector) {
+        if (margin < 0) {
+            errorCollector.add("the minimum view range margin is 0 blocks. It has been automatically set");
+            return 0;
+        } else if (margin > 16) {
+            // Holograms must disappear before the chunks, which are unloaded one chunk beyond the view range
+            errorCollector.add("the maximum view range margin is 16 blocks. It has been automatically set");
+            return 16;
+        } else {
+            return margin;
+        }
+    }
+
+    private static double parseInteractionEntityWidth(double width, ErrorCollector errorCollector) {
+        if (width < 0.1) {
+            errorCollector.add("the minimum width of interaction entities is 0.1 blocks. It has been automatically set");
+            return 0.1;
+        } else if (width > 16) {
+            errorCollector.add("the maximum width of interaction entities is 16 blocks. It has been automatically set");
+            return 16;
+        } else {
+            return width;
+        }
+    }
+
+    private static int parseMovementUpdateInterval(int interval, ErrorCollector errorCollector) {
+        if (interval < 1) {
+            errorCollector.add("the minimum interval between movement updates is 1 tick. It has been automatically set");
+            return 1;
+        } else if (interval > 20) {
+            errorCollector.add("the maximum interval between movement updates is 20 ticks. It has been automatically set");
+            return 20;
+        } else {
+            return interval;
+        }
+    }
+
     private static int parseBungeeRefreshInterval(int interval, ErrorCollector errorCollector) {
         if (interval < 1) {
             errorCollector.add("the minimum interval for pinging BungeeCord's servers is 1 second. It has been automatically set");
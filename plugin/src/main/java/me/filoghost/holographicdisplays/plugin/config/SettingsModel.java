@@ -21,6 +21,42 @@ public class SettingsModel implements MappedConfig {
     @Path("holograms-view-range")
     int viewRange = 48;
 
+    @Path("holograms-view-range-margin")
+    int viewRangeMargin = 2;
+
+    @Path("holograms-spawn-limit-per-tick")
+    int spawnBudgetPerTick = 100;
+
+    @Path("holograms-max-lines-per-player")
+    int maxLinesPerPlayer = 0;
+
+    @Path("holograms-max-text-updates-per-second")
+    int maxTextUpdatesPerSecond = 0;
+
+    @Path("holograms-max-text-updates-per-player-per-second")
+    int maxTextUpdatesPerPlayerPerSecond = 0;
+
+    @Path("holograms-movement-update-interval")
+    int movementUpdateInterval = 1;
+
+    @Path("text-display-entities")
+    boolean textDisplays = false;
+
+    @Path("item-display-entities")
+    boolean itemDisplays = false;
+
+    @Path("item-display-rotation")
+    boolean itemDisplayRotation = false;
+
+    @Path("interaction-entities")
+    boolean interactionEntities = true;
+
+    @Path("interaction-entity-width")
+    double interactionEntityWidth = 1;
+
+    @Path("shared-packet-encoding")
+    boolean sharedPacketEncoding = false;
+
     @Path("quick-edit-commands")
     boolean quickEditCommands = true;
 
@@ -85,6 +121,9 @@ public class SettingsModel implements MappedConfig {
                 "Plugin page: https://dev.bukkit.org/projects/holographic-displays",
                 "",
                 "Created by filoghost.",
+                "",
+                "The limits of spawns, lines and text updates are disabled if set to 0.",
+                "Display and interaction entities are only used on Minecraft 1.19.4 and later.",
                 ""
         );
     }
@@ -44,6 +44,7 @@ public class InternalHologramChangeEvent extends Event {
         CREATE,
         EDIT_LINES,
         EDIT_POSITION,
+        EDIT_VIEW_RANGE,
         DELETE
 
     }
@@ -22,6 +22,7 @@ public class InternalHologram {
     private final Hologram renderedHologram;
     private final String name;
     private Position position;
+    private double viewRange;
     private final List<InternalHologramLine> lines;
     private final List<InternalHologramLine> unmodifiableLinesView;
     private boolean deleted;
@@ -31,6 +32,7 @@ public class InternalHologram {
         this.renderedHologram.setPlaceholderSetting(PlaceholderSetting.ENABLE_ALL);
         this.name = name;
         this.position = position;
+        this.viewRange = -1;
         this.lines = new ArrayList<>();
         this.unmodifiableLinesView = Collections.unmodifiableList(lines);
     }
@@ -53,6 +55,19 @@ public class InternalHologram {
         updateRendering();
     }
 
+    public double getViewRange() {
+        return viewRange;
+    }
+
+    /**
+     * Sets the view range of the hologram, or a negative value to use the default view range of each line.
+     */
+    public void setViewRange(double viewRange) {
+        checkNotDeleted();
+        this.viewRange = viewRange;
+        renderedHologram.setViewRange(viewRange);
+    }
+
     public List<InternalHologramLine> getLines() {
         return unmodifiableLinesView;
     }